@@ -0,0 +1,128 @@
+package com.farald.Batch;
+
+import com.farald.DocumentSystem.PolishDocumentSystem;
+import com.farald.DocumentSystem.QueryOutput;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//Runs many queries against one parsed document, one query per line in the command line syntax
+//(e.g. "art. 5, ust. 2, pkt 3" or "-A 1,5"). Queries run at the same time, records are written in the input order:
+//a "### <line number>: <query>" header, the results and "ERROR: <message>" lines instead of the error output.
+//Blank lines and lines starting with # are skipped.
+public class BatchQueryRunner {
+    public static final String RECORD_HEADER = "### ";
+    public static final String ERROR_PREFIX = "ERROR: ";
+
+    private final JSAP queryParser;
+    private final String documentPath;
+    private final PolishDocumentSystem documentSystem;
+    private final int threadCount;
+
+    public BatchQueryRunner(JSAP queryParser, String documentPath, PolishDocumentSystem documentSystem, int threadCount) {
+        if (queryParser == null || documentPath == null || documentSystem == null) {
+            throw new IllegalArgumentException("Query parser, document path and system cannot be null.");
+        }
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be positive.");
+        }
+        this.queryParser = queryParser;
+        this.documentPath = documentPath;
+        this.documentSystem = documentSystem;
+        this.threadCount = threadCount;
+    }
+
+    //Only a few queries per thread wait for their turn to be written, so the input can be of any length
+    public void run(BufferedReader queries, Writer output) throws IOException, InterruptedException {
+        //Lazily built indexes are built before queries share the document
+        documentSystem.getArticleIndex();
+        documentSystem.getBillDocument().getFragmentIndex();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        Deque<Future<String>> pendingRecords = new ArrayDeque<>();
+        int maxPendingRecords = 4 * threadCount;
+        try {
+            String query;
+            int lineNumber = 0;
+            while ((query = queries.readLine()) != null) {
+                lineNumber++;
+                String trimmedQuery = query.trim();
+                if (trimmedQuery.isEmpty() || trimmedQuery.startsWith("#")) {
+                    continue;
+                }
+                int recordNumber = lineNumber;
+                pendingRecords.addLast(executor.submit(() -> runQuery(recordNumber, trimmedQuery)));
+                if (pendingRecords.size() >= maxPendingRecords) {
+                    writeRecord(pendingRecords.removeFirst(), output);
+                }
+            }
+            while (!pendingRecords.isEmpty()) {
+                writeRecord(pendingRecords.removeFirst(), output);
+            }
+            output.flush();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void writeRecord(Future<String> record, Writer output) throws IOException, InterruptedException {
+        try {
+            output.write(record.get());
+        } catch (ExecutionException e) {
+            //runQuery reports its own failures, this is left for errors
+            throw new IllegalStateException("Query failed.", e.getCause());
+        }
+    }
+
+    private String runQuery(int lineNumber, String query) {
+        StringWriter record = new StringWriter();
+        record.append(RECORD_HEADER).append(Integer.toString(lineNumber)).append(": ").append(query).append('\n');
+
+        JSAPResult queryResults = parseQuery(query);
+        if (queryResults == null) {
+            record.append(ERROR_PREFIX).append("Couldn't parse given options.").append('\n');
+            return record.toString();
+        }
+
+        StringWriter errors = new StringWriter();
+        QueryOutput output = new QueryOutput(record, errors);
+        try {
+            documentSystem.interpret(queryResults, output);
+        } catch (RuntimeException e) {
+            output.printError(e.toString());
+        }
+        output.flush();
+        for (String error : errors.toString().split("\\R")) {
+            if (!error.isEmpty()) {
+                record.append(ERROR_PREFIX).append(error).append('\n');
+            }
+        }
+        return record.toString();
+    }
+
+    //Query words are separated by white space, as if split by the shell
+    private JSAPResult parseQuery(String query) {
+        List<String> arguments = new ArrayList<>();
+        arguments.add(documentPath);
+        arguments.addAll(Arrays.asList(query.split("\\s+")));
+
+        JSAPResult queryResults;
+        synchronized (queryParser) {
+            queryResults = queryParser.parse(arguments.toArray(new String[0]));
+        }
+        return queryResults.success() ? queryResults : null;
+    }
+}
@@ -3,25 +3,59 @@ package com.farald.Cleaner;
 import com.farald.DocumentRepresentation.BillDocument;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class Cleaner {
     private List<CleanerRule> cleanerRules;
+    private CleanerRuleClassifier ruleClassifier;
+    private boolean fusedCleaning;
 
     public Cleaner() {
         cleanerRules = new ArrayList<>();
+        fusedCleaning = true;
+    }
+
+    public boolean isFusedCleaning() {
+        return fusedCleaning;
+    }
+
+    //Fused cleaning applies all rules to a line in one pass, otherwise every rule makes its own pass over the document
+    public void setFusedCleaning(boolean fusedCleaning) {
+        this.fusedCleaning = fusedCleaning;
     }
 
     public void addNewCleanRule(CleanerRule cleanerRule) {
         cleanerRules.add(cleanerRule);
+        ruleClassifier = null;
+    }
+
+    public String getRulesFingerprint() {
+        StringBuilder fingerprint = new StringBuilder();
+        for (CleanerRule cleanerRule : cleanerRules) {
+            fingerprint.append(cleanerRule.cleanerRuleType).append(':')
+                    .append(cleanerRule.regexPattern.flags()).append(':')
+                    .append(cleanerRule.regexPattern.pattern().length()).append(':')
+                    .append(cleanerRule.regexPattern.pattern()).append('\n');
+        }
+        return fingerprint.toString();
     }
 
     public void clearDocument(BillDocument billDocument) {
-        List<String> documentLines = billDocument.getBillDocumentLines();
+        //Lines read from a document buffer are only copied to strings if they survive cleaning
+        List<CharSequence> documentLines = Collections.unmodifiableList(billDocument.getBillDocumentLineSequences());
+        if (fusedCleaning) {
+            List<String> clearedLines = new ArrayList<>(documentLines.size());
+            clearLines(documentLines, clearedLines::add);
+            billDocument.setBillDocumentLines(clearedLines);
+            return;
+        }
+
         for (CleanerRule cleanerRule : cleanerRules) {
             switch (cleanerRule.cleanerRuleType) {
                 case DeleteLineWithPhrase:
@@ -32,78 +66,136 @@ public class Cleaner {
                     break;
             }
         }
-        billDocument.setBillDocumentLines(documentLines);
+        billDocument.setBillDocumentLines(toStringList(documentLines));
     }
 
     public void connectBrokenWords(BillDocument billDocument) {
-        Pattern brokenLinePattern = Pattern.compile(".+-$");
         List<String> billDocumentLines = billDocument.getBillDocumentLines();
+        List<String> connectedLines = new ArrayList<>(billDocumentLines.size());
+
+        HyphenJoiner hyphenJoiner = new HyphenJoiner(connectedLines::add);
+        for (String line : billDocumentLines) {
+            hyphenJoiner.accept(line);
+        }
+        hyphenJoiner.finish();
+        billDocument.setBillDocumentLines(connectedLines);
+    }
+
+    //Same result as clearDocument followed by connectBrokenWords, fused cleaning passes lines straight to the joiner
+    public void clearAndConnectDocument(BillDocument billDocument) {
+        if (!fusedCleaning) {
+            clearDocument(billDocument);
+            connectBrokenWords(billDocument);
+            return;
+        }
+
+        List<CharSequence> documentLines = Collections.unmodifiableList(billDocument.getBillDocumentLineSequences());
+        List<String> connectedLines = new ArrayList<>(documentLines.size());
+        HyphenJoiner hyphenJoiner = new HyphenJoiner(connectedLines::add);
+        clearLines(documentLines, hyphenJoiner);
+        hyphenJoiner.finish();
+        billDocument.setBillDocumentLines(connectedLines);
+    }
+
+    private void clearLines(List<CharSequence> documentLines, Consumer<? super String> clearedLines) {
+        if (ruleClassifier == null) {
+            ruleClassifier = new CleanerRuleClassifier(cleanerRules);
+        }
+        Matcher[] ruleMatchers = new Matcher[cleanerRules.size()];
+        for (int i = 0; i < ruleMatchers.length; i++) {
+            ruleMatchers[i] = cleanerRules.get(i).regexPattern.matcher("");
+        }
+
+        for (CharSequence line : documentLines) {
+            CharSequence clearedLine = clearLine(line, ruleMatchers);
+            if (clearedLine != null) {
+                clearedLines.accept(clearedLine.toString());
+            }
+        }
+    }
 
-        for (Integer i = 0; i < billDocumentLines.size(); i++) {
-            Matcher matcher = brokenLinePattern.matcher(billDocumentLines.get(i));
-            if (matcher.matches()) {
-                connectBrokenWord(billDocumentLines, i);
+    //Rules are applied in the order they were added, null means the line is deleted.
+    //Only rules which the classifier can't rule out for the line run their regex.
+    private CharSequence clearLine(CharSequence line, Matcher[] ruleMatchers) {
+        boolean plainLine = CleanerRuleClassifier.isPlainLine(line);
+        int[] candidateRules = ruleClassifier.getCandidateRules(line, plainLine);
+        for (int candidate = 0; candidate < candidateRules.length; candidate++) {
+            int ruleNumber = candidateRules[candidate];
+            if (!ruleClassifier.mayMatch(ruleNumber, line, plainLine)) {
+                continue;
+            }
+
+            Matcher matcher = ruleMatchers[ruleNumber].reset(line);
+            switch (cleanerRules.get(ruleNumber).cleanerRuleType) {
+                case DeleteLineWithPhrase:
+                    if (matcher.find()) {
+                        return null;
+                    }
+                    break;
+                case DeletePhrase:
+                    CharSequence newLine = deletePhraseFromLine(matcher);
+                    if (newLine == null) {
+                        return null;
+                    }
+                    if (!newLine.toString().contentEquals(line)) {
+                        //First character may have changed, continue with candidates for the new line
+                        line = newLine;
+                        candidateRules = ruleClassifier.getCandidateRules(line, plainLine);
+                        candidate = findFirstRuleAfter(candidateRules, ruleNumber) - 1;
+                    }
+                    break;
             }
         }
+        return line;
+    }
 
-        while (billDocumentLines.remove(null)) ;
+    private int findFirstRuleAfter(int[] candidateRules, int ruleNumber) {
+        int candidate = 0;
+        while (candidate < candidateRules.length && candidateRules[candidate] <= ruleNumber) {
+            candidate++;
+        }
+        return candidate;
     }
 
-    private List<String> deleteLineRule(Pattern rulePattern, List<String> documentLines) {
+    private List<CharSequence> deleteLineRule(Pattern rulePattern, List<CharSequence> documentLines) {
         return documentLines.stream()
-                .filter((String s) -> notContainsPattern(s, rulePattern))
+                .filter((CharSequence s) -> notContainsPattern(s, rulePattern))
                 .collect(Collectors.toList());
     }
 
-    private List<String> deletePhrase(Pattern rulePattern, List<String> documentLines) {
+    private List<CharSequence> deletePhrase(Pattern rulePattern, List<CharSequence> documentLines) {
         return documentLines.stream()
-                .map((String s) -> deletePhraseFromLine(s, rulePattern))
+                .map((CharSequence s) -> deletePhraseFromLine(s, rulePattern))
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
-    private boolean notContainsPattern(String line, Pattern pattern) {
+    private List<String> toStringList(List<CharSequence> documentLines) {
+        List<String> lines = new ArrayList<>(documentLines.size());
+        for (CharSequence line : documentLines) {
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    private boolean notContainsPattern(CharSequence line, Pattern pattern) {
         return !containsPattern(line, pattern);
     }
 
-    private boolean containsPattern(String line, Pattern pattern) {
+    private boolean containsPattern(CharSequence line, Pattern pattern) {
         Matcher matcher = pattern.matcher(line);
         return matcher.find();
     }
 
-    private String deletePhraseFromLine(String line, Pattern pattern) {
-        Matcher matcher = pattern.matcher(line);
+    private CharSequence deletePhraseFromLine(CharSequence line, Pattern pattern) {
+        return deletePhraseFromLine(pattern.matcher(line));
+    }
+
+    private CharSequence deletePhraseFromLine(Matcher matcher) {
         String newLine = matcher.replaceAll("");
         if (newLine.length() == 0) {
             newLine = null;
         }
         return newLine;
     }
-
-    private void connectBrokenWord(List<String> billDocumentLines, int lineOfWordNumber) {
-        if (lineOfWordNumber == billDocumentLines.size() - 1) {
-            return;
-        }
-
-        String firstHalfLine = billDocumentLines.get(lineOfWordNumber);
-        String secondHalfLine = billDocumentLines.get(lineOfWordNumber + 1);
-
-        int firstHalfPositionStart = firstHalfLine.lastIndexOf(" ") + 1;
-        int firstHalfPositionFinish = firstHalfLine.length() - 1;
-
-        String newFirstLine;
-        String newSecondLine;
-
-        if (firstHalfPositionStart == 0) {
-            newFirstLine = null;
-        } else {
-            newFirstLine = firstHalfLine.substring(0, firstHalfPositionStart - 1);
-        }
-        newSecondLine = firstHalfLine.substring(firstHalfPositionStart, firstHalfPositionFinish) + secondHalfLine;
-
-        billDocumentLines.set(lineOfWordNumber, newFirstLine);
-        billDocumentLines.set(lineOfWordNumber + 1, newSecondLine);
-    }
-
-
-}
\ No newline at end of file
+}
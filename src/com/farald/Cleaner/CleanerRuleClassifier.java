@@ -0,0 +1,94 @@
+package com.farald.Cleaner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Compiled form of a rule set: lines are dispatched on their first character to the rules that can match them,
+//and each remaining rule is checked against its literal prefilter before the regex is run
+public class CleanerRuleClassifier {
+    private static final int DISPATCH_TABLE_SIZE = 256;
+
+    private final CleanerRulePrefilter[] prefilters;
+    private final int[][] rulesByFirstCharacter;
+    private final int[] rulesForOtherFirstCharacters;
+    private final int[] rulesForEmptyLine;
+    private final int[] allRules;
+
+    public CleanerRuleClassifier(List<CleanerRule> cleanerRules) {
+        prefilters = new CleanerRulePrefilter[cleanerRules.size()];
+        for (int i = 0; i < prefilters.length; i++) {
+            prefilters[i] = CleanerRulePrefilter.analyze(cleanerRules.get(i).regexPattern);
+        }
+
+        rulesByFirstCharacter = new int[DISPATCH_TABLE_SIZE][];
+        for (int character = 0; character < DISPATCH_TABLE_SIZE; character++) {
+            List<Integer> rules = new ArrayList<>();
+            for (int i = 0; i < prefilters.length; i++) {
+                if (prefilters[i].mayStartWith((char) character)) {
+                    rules.add(i);
+                }
+            }
+            rulesByFirstCharacter[character] = toArray(rules);
+        }
+
+        List<Integer> otherRules = new ArrayList<>();
+        List<Integer> emptyLineRules = new ArrayList<>();
+        List<Integer> rules = new ArrayList<>();
+        for (int i = 0; i < prefilters.length; i++) {
+            if (prefilters[i].mayStartWithCharacterAbove((char) (DISPATCH_TABLE_SIZE - 1))) {
+                otherRules.add(i);
+            }
+            //Removing a phrase from an empty line leaves nothing, so such lines are deleted by every DeletePhrase rule
+            if (prefilters[i].minimumLength == 0 || cleanerRules.get(i).cleanerRuleType == CleanerRuleType.DeletePhrase) {
+                emptyLineRules.add(i);
+            }
+            rules.add(i);
+        }
+        rulesForOtherFirstCharacters = toArray(otherRules);
+        rulesForEmptyLine = toArray(emptyLineRules);
+        allRules = toArray(rules);
+    }
+
+    //Plain lines have no line terminators inside. Multiline anchors can match after such a terminator,
+    //which prefilters don't model, so other lines are checked against every rule.
+    public static boolean isPlainLine(CharSequence line) {
+        return !containsLineTerminator(line);
+    }
+
+    //Rule numbers in ascending order, the same array is returned for lines with the same first character
+    public int[] getCandidateRules(CharSequence line, boolean plainLine) {
+        if (!plainLine) {
+            return allRules;
+        }
+        if (line.length() == 0) {
+            return rulesForEmptyLine;
+        }
+        char firstCharacter = line.charAt(0);
+        if (firstCharacter < DISPATCH_TABLE_SIZE) {
+            return rulesByFirstCharacter[firstCharacter];
+        }
+        return rulesForOtherFirstCharacters;
+    }
+
+    public boolean mayMatch(int ruleNumber, CharSequence line, boolean plainLine) {
+        return !plainLine || line.length() == 0 || prefilters[ruleNumber].mayMatch(line);
+    }
+
+    private static boolean containsLineTerminator(CharSequence line) {
+        for (int i = 0; i < line.length(); i++) {
+            char character = line.charAt(i);
+            if (character == '\n' || character == '\r' || character == '\u0085' || character == '\u2028' || character == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+}
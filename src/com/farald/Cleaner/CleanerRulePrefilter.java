@@ -0,0 +1,310 @@
+package com.farald.Cleaner;
+
+import java.util.regex.Pattern;
+
+//Cheap necessary conditions extracted from a rule pattern. A line failing them can't contain a match.
+//Patterns that aren't understood get an empty prefilter, which accepts every line.
+public class CleanerRulePrefilter {
+    public final boolean anchoredAtStart;
+    public final String literalPrefix;
+    public final char[] firstCharacterRanges;
+    public final int minimumLength;
+    public final int exactLength;
+
+    private CleanerRulePrefilter(boolean anchoredAtStart, String literalPrefix, char[] firstCharacterRanges, int minimumLength, int exactLength) {
+        this.anchoredAtStart = anchoredAtStart;
+        this.literalPrefix = literalPrefix;
+        this.firstCharacterRanges = firstCharacterRanges;
+        this.minimumLength = minimumLength;
+        this.exactLength = exactLength;
+    }
+
+    private static CleanerRulePrefilter acceptingAll() {
+        return new CleanerRulePrefilter(false, "", null, 0, -1);
+    }
+
+    //<editor-fold desc="Line checks">
+    //Only valid for lines without line terminators, (?m) anchors behave differently otherwise
+    public boolean mayMatch(CharSequence line) {
+        int lineLength = line.length();
+        if (lineLength < minimumLength) {
+            return false;
+        }
+        if (exactLength >= 0 && lineLength != exactLength) {
+            return false;
+        }
+        if (literalPrefix.length() == 0) {
+            return true;
+        }
+        if (anchoredAtStart) {
+            return regionMatches(line, 0, literalPrefix);
+        }
+        return contains(line, literalPrefix);
+    }
+
+    public boolean mayStartWith(char character) {
+        if (!anchoredAtStart || firstCharacterRanges == null) {
+            return true;
+        }
+        for (int i = 0; i < firstCharacterRanges.length; i += 2) {
+            if (character >= firstCharacterRanges[i] && character <= firstCharacterRanges[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean mayStartWithCharacterAbove(char character) {
+        if (!anchoredAtStart || firstCharacterRanges == null) {
+            return true;
+        }
+        for (int i = 1; i < firstCharacterRanges.length; i += 2) {
+            if (firstCharacterRanges[i] > character) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(CharSequence line, String literal) {
+        char first = literal.charAt(0);
+        int lastStart = line.length() - literal.length();
+        for (int i = 0; i <= lastStart; i++) {
+            if (line.charAt(i) == first && regionMatches(line, i, literal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(CharSequence line, int offset, String literal) {
+        if (offset + literal.length() > line.length()) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (line.charAt(offset + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Pattern analysis">
+    public static CleanerRulePrefilter analyze(Pattern pattern) {
+        String regex = pattern.pattern();
+        if ((pattern.flags() & (Pattern.CASE_INSENSITIVE | Pattern.COMMENTS | Pattern.LITERAL | Pattern.CANON_EQ)) != 0
+                || hasSurrogates(regex) || hasTopLevelAlternation(regex)) {
+            return acceptingAll();
+        }
+
+        int position = skipMultilineFlags(regex);
+        if (position < 0) {
+            return acceptingAll();
+        }
+        boolean anchoredAtStart = position < regex.length() && regex.charAt(position) == '^';
+        if (anchoredAtStart) {
+            position++;
+        }
+
+        StringBuilder literalPrefix = new StringBuilder();
+        boolean literalOpen = true;
+        boolean fixedLength = true;
+        boolean firstAtom = true;
+        char[] firstCharacterRanges = null;
+        int minimumLength = 0;
+        boolean anchoredAtEnd = false;
+        boolean fullyAnalyzed = false;
+
+        while (true) {
+            if (position == regex.length()) {
+                fullyAnalyzed = true;
+                break;
+            }
+            if (regex.charAt(position) == '$' && position == regex.length() - 1) {
+                anchoredAtEnd = true;
+                fullyAnalyzed = true;
+                break;
+            }
+
+            //Atom: a single literal character, a simple character class or a dot
+            char[] atomRanges;
+            int atomEnd;
+            char current = regex.charAt(position);
+            if (current == '[') {
+                atomEnd = findClassEnd(regex, position);
+                if (atomEnd < 0) {
+                    break;
+                }
+                atomRanges = parseClassRanges(regex, position + 1, atomEnd - 1);
+            } else if (current == '.') {
+                atomRanges = null;
+                atomEnd = position + 1;
+            } else if (current == '\\') {
+                if (position + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(position + 1))) {
+                    break;
+                }
+                char escaped = regex.charAt(position + 1);
+                atomRanges = new char[]{escaped, escaped};
+                atomEnd = position + 2;
+            } else if ("()|^$*+?{}]".indexOf(current) >= 0) {
+                break;
+            } else {
+                atomRanges = new char[]{current, current};
+                atomEnd = position + 1;
+            }
+            boolean literalAtom = atomRanges != null && atomRanges.length == 2 && atomRanges[0] == atomRanges[1];
+
+            //Quantifier following the atom
+            int minimumCount = 1;
+            int maximumCount = 1;
+            position = atomEnd;
+            if (position < regex.length()) {
+                char quantifier = regex.charAt(position);
+                if (quantifier == '?' || quantifier == '*' || quantifier == '+') {
+                    minimumCount = quantifier == '+' ? 1 : 0;
+                    maximumCount = -1;
+                    position++;
+                } else if (quantifier == '{') {
+                    int quantifierEnd = regex.indexOf('}', position);
+                    if (quantifierEnd < 0) {
+                        break;
+                    }
+                    String[] bounds = regex.substring(position + 1, quantifierEnd).split(",", -1);
+                    try {
+                        minimumCount = Integer.parseInt(bounds[0]);
+                        maximumCount = bounds.length == 1 ? minimumCount : -1;
+                    } catch (NumberFormatException e) {
+                        break;
+                    }
+                    position = quantifierEnd + 1;
+                }
+                //Lazy and possessive modifiers don't change which lines can match
+                if (position < regex.length() && maximumCount != 1 && (regex.charAt(position) == '?' || regex.charAt(position) == '+')) {
+                    position++;
+                }
+            }
+
+            if (firstAtom) {
+                firstCharacterRanges = minimumCount > 0 ? atomRanges : null;
+                firstAtom = false;
+            }
+            minimumLength += minimumCount;
+            if (minimumCount != maximumCount) {
+                fixedLength = false;
+            }
+            if (literalOpen) {
+                if (literalAtom) {
+                    for (int i = 0; i < minimumCount; i++) {
+                        literalPrefix.append(atomRanges[0]);
+                    }
+                }
+                literalOpen = literalAtom && minimumCount == maximumCount;
+            }
+        }
+
+        int exactLength = anchoredAtStart && anchoredAtEnd && fullyAnalyzed && fixedLength ? minimumLength : -1;
+        return new CleanerRulePrefilter(anchoredAtStart, literalPrefix.toString(), anchoredAtStart ? firstCharacterRanges : null, minimumLength, exactLength);
+    }
+
+    //Returns position after leading (?m) groups, -1 if other inline flags are used
+    private static int skipMultilineFlags(String regex) {
+        int position = 0;
+        while (regex.startsWith("(?", position)) {
+            int flagsEnd = regex.indexOf(')', position);
+            if (flagsEnd < 0 || !regex.substring(position + 2, flagsEnd).matches("m+")) {
+                return -1;
+            }
+            position = flagsEnd + 1;
+        }
+        return regex.indexOf("(?", position) >= 0 ? -1 : position;
+    }
+
+    private static boolean hasSurrogates(String regex) {
+        for (int i = 0; i < regex.length(); i++) {
+            if (Character.isSurrogate(regex.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasTopLevelAlternation(String regex) {
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char current = regex.charAt(i);
+            if (current == '\\') {
+                i++;
+            } else if (current == '[') {
+                int classEnd = findClassEnd(regex, i);
+                if (classEnd < 0) {
+                    return true;
+                }
+                i = classEnd - 1;
+            } else if (current == '(') {
+                depth++;
+            } else if (current == ')') {
+                depth--;
+            } else if (current == '|' && depth == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Position after the closing bracket of a simple class, -1 for nested or intersected classes
+    private static int findClassEnd(String regex, int classStart) {
+        int position = classStart + 1;
+        if (position < regex.length() && regex.charAt(position) == '^') {
+            position++;
+        }
+        if (position < regex.length() && regex.charAt(position) == ']') {
+            position++;
+        }
+        while (position < regex.length()) {
+            char current = regex.charAt(position);
+            if (current == '\\') {
+                position += 2;
+            } else if (current == '[' || regex.startsWith("&&", position)) {
+                return -1;
+            } else if (current == ']') {
+                return position + 1;
+            } else {
+                position++;
+            }
+        }
+        return -1;
+    }
+
+    //Character ranges as (low, high) pairs, null if the class can't be expressed that way
+    private static char[] parseClassRanges(String regex, int start, int end) {
+        if (start < end && regex.charAt(start) == '^') {
+            return null;
+        }
+        StringBuilder ranges = new StringBuilder();
+        int position = start;
+        while (position < end) {
+            char low = regex.charAt(position);
+            if (low == '\\') {
+                if (position + 1 >= end || Character.isLetterOrDigit(regex.charAt(position + 1))) {
+                    return null;
+                }
+                low = regex.charAt(position + 1);
+                position += 2;
+            } else {
+                position++;
+            }
+            char high = low;
+            if (position + 1 < end && regex.charAt(position) == '-') {
+                high = regex.charAt(position + 1);
+                if (high == '\\') {
+                    return null;
+                }
+                position += 2;
+            }
+            ranges.append(low).append(high);
+        }
+        return ranges.length() == 0 ? null : ranges.toString().toCharArray();
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,76 @@
+package com.farald.Cleaner;
+
+import java.util.function.Consumer;
+
+//Streaming stage joining words broken with a hyphen at the end of a line.
+//A broken line loses its last word, which is moved to the beginning of the next line without the hyphen.
+//The joined line is checked again, so a word can be carried over many lines. A broken last line stays as it is.
+public class HyphenJoiner implements Consumer<CharSequence> {
+    private final Consumer<String> downstream;
+    //Broken line waiting for the next one, its last word is kept in heldLine
+    private final StringBuilder heldLine;
+    private boolean holdingLine;
+
+    public HyphenJoiner(Consumer<String> downstream) {
+        if (downstream == null) {
+            throw new IllegalArgumentException("Downstream cannot be null.");
+        }
+        this.downstream = downstream;
+        this.heldLine = new StringBuilder();
+        this.holdingLine = false;
+    }
+
+    @Override
+    public void accept(CharSequence line) {
+        if (!holdingLine) {
+            if (isBrokenLine(line)) {
+                heldLine.append(line);
+                holdingLine = true;
+            } else {
+                downstream.accept(line.toString());
+            }
+            return;
+        }
+
+        int wordStart = heldLine.lastIndexOf(" ") + 1;
+        if (wordStart > 0) {
+            downstream.accept(heldLine.substring(0, wordStart - 1));
+        }
+        heldLine.delete(0, wordStart);
+        heldLine.setLength(heldLine.length() - 1);
+        heldLine.append(line);
+
+        if (!isBrokenLine(heldLine)) {
+            downstream.accept(heldLine.toString());
+            heldLine.setLength(0);
+            holdingLine = false;
+        }
+    }
+
+    //Passes the held line on, must be called after the last line
+    public void finish() {
+        if (holdingLine) {
+            downstream.accept(heldLine.toString());
+            heldLine.setLength(0);
+            holdingLine = false;
+        }
+    }
+
+    //Same lines as matched by ".+-$": at least one character before the final hyphen and no line terminators
+    public static boolean isBrokenLine(CharSequence line) {
+        int length = line.length();
+        if (length < 2 || line.charAt(length - 1) != '-') {
+            return false;
+        }
+        for (int i = 0; i < length - 1; i++) {
+            if (isLineTerminator(line.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLineTerminator(char character) {
+        return character == '\n' || character == '\r' || character == '\u0085' || character == '\u2028' || character == '\u2029';
+    }
+}
@@ -0,0 +1,37 @@
+package com.farald.Corpus;
+
+import com.farald.DocumentRepresentation.DocumentType;
+
+import java.nio.file.Path;
+
+//Outcome of loading one file of a corpus, failure is null if the document was loaded and registered
+public class CorpusFileReport {
+    public final Path file;
+    public final String fileName;
+    public final DocumentType documentType;
+    public final String actName;
+    public final long loadNanos;
+    public final String failure;
+
+    public CorpusFileReport(Path file, String fileName, DocumentType documentType, String actName, long loadNanos, String failure) {
+        this.file = file;
+        this.fileName = fileName;
+        this.documentType = documentType;
+        this.actName = actName;
+        this.loadNanos = loadNanos;
+        this.failure = failure;
+    }
+
+    public boolean isLoaded() {
+        return failure == null;
+    }
+
+    @Override
+    public String toString() {
+        String time = String.format("%10.1f ms", loadNanos / 1e6);
+        if (failure != null) {
+            return String.format("%-40s %s  FAILED: %s", fileName, time, failure);
+        }
+        return String.format("%-40s %s  %-13s %s", fileName, time, documentType, actName == null ? "" : actName);
+    }
+}
@@ -0,0 +1,138 @@
+package com.farald.Corpus;
+
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentRepresentation.DocumentType;
+import com.farald.DocumentSystem.AbstractDocumentSystem;
+import com.farald.DocumentSystem.DocumentSystemOptions;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+import com.farald.Statistics.Phase;
+import com.farald.Statistics.PhaseStatistics;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//Reads, detects, cleans and parses many documents at the same time, with at most threadCount files loaded at once.
+//Loaded documents are registered in the order of the files, failures are reported instead of stopping the load.
+public class CorpusLoader {
+    private final DocumentSystemOptions options;
+    private final int threadCount;
+    private boolean mappingFiles;
+
+    public CorpusLoader(DocumentSystemOptions options, int threadCount) {
+        if (options == null) {
+            throw new IllegalArgumentException("Options cannot be null.");
+        }
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be positive.");
+        }
+        this.options = options;
+        this.threadCount = threadCount;
+        this.mappingFiles = true;
+    }
+
+    //Files which will be watched for changes aren't mapped, see DocumentBuffer.read
+    public void setMappingFiles(boolean mappingFiles) {
+        this.mappingFiles = mappingFiles;
+    }
+
+    //Regular files of the directory, hidden files are skipped. Subdirectories aren't loaded.
+    public static List<Path> listCorpusFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+            for (Path file : directoryStream) {
+                if (Files.isRegularFile(file) && !Files.isHidden(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    public List<CorpusFileReport> loadDirectory(Path directory, DocumentRegistry registry) throws IOException, InterruptedException {
+        return load(listCorpusFiles(directory), registry);
+    }
+
+    public List<CorpusFileReport> load(List<Path> files, DocumentRegistry registry) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<LoadedFile>> loadedFiles = new ArrayList<>();
+            for (Path file : files) {
+                loadedFiles.add(executor.submit(() -> loadFile(file)));
+            }
+
+            List<CorpusFileReport> reports = new ArrayList<>();
+            for (Future<LoadedFile> loadedFile : loadedFiles) {
+                reports.add(register(getLoadedFile(loadedFile), registry));
+            }
+            return reports;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private LoadedFile getLoadedFile(Future<LoadedFile> loadedFile) throws InterruptedException {
+        try {
+            return loadedFile.get();
+        } catch (ExecutionException e) {
+            //loadFile reports its own failures, this is left for errors
+            throw new IllegalStateException("Corpus file couldn't be loaded.", e.getCause());
+        }
+    }
+
+    private CorpusFileReport register(LoadedFile loadedFile, DocumentRegistry registry) {
+        CorpusFileReport report = loadedFile.report;
+        if (!report.isLoaded()) {
+            return report;
+        }
+        try {
+            registry.register(report.fileName, report.actName, loadedFile.documentSystem);
+        } catch (IllegalArgumentException e) {
+            return new CorpusFileReport(report.file, report.fileName, report.documentType, report.actName, report.loadNanos, e.getMessage());
+        }
+        return report;
+    }
+
+    private LoadedFile loadFile(Path file) {
+        String fileName = file.getFileName().toString();
+        long loadStart = System.nanoTime();
+        DocumentType documentType = DocumentType.Unknown;
+        String actName = null;
+        try {
+            Phase readPhase = Phase.start(PhaseStatistics.READ_FILE, options.getPhaseStatistics());
+            DocumentBuffer documentBuffer = mappingFiles
+                    ? AbstractDocumentSystem.readDocumentBuffer(file.toString())
+                    : DocumentBuffer.read(file);
+            readPhase.finish(documentBuffer.getLineSequences().size(), -1);
+            documentType = PolishDocumentSystem.checkDocumentType(documentBuffer.getLineSequences());
+            actName = PolishDocumentSystem.findActName(documentBuffer.getLineSequences());
+            PolishDocumentSystem documentSystem = PolishDocumentSystem.create(documentBuffer, options);
+            CorpusFileReport report = new CorpusFileReport(file, fileName, documentType, actName, System.nanoTime() - loadStart, null);
+            return new LoadedFile(report, documentSystem);
+        } catch (IOException e) {
+            return new LoadedFile(new CorpusFileReport(file, fileName, documentType, actName, System.nanoTime() - loadStart, "Couldn't read file."), null);
+        } catch (RuntimeException e) {
+            String failure = e.getMessage() == null ? e.toString() : e.getMessage();
+            return new LoadedFile(new CorpusFileReport(file, fileName, documentType, actName, System.nanoTime() - loadStart, failure), null);
+        }
+    }
+
+    private static class LoadedFile {
+        private final CorpusFileReport report;
+        private final PolishDocumentSystem documentSystem;
+
+        private LoadedFile(CorpusFileReport report, PolishDocumentSystem documentSystem) {
+            this.report = report;
+            this.documentSystem = documentSystem;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.farald.Corpus;
+
+import com.farald.DocumentSystem.PolishDocumentSystem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+//Parsed documents addressed by file name (with or without extension) or by act name.
+//Act names are compared ignoring case, a part of an act name is enough if only one document has it.
+//Registered documents are kept in a map which is replaced instead of changed, so documents are found without locking
+//and a replaced document is seen by every lookup started after the replacement.
+public class DocumentRegistry {
+    private volatile Map<String, RegisteredDocument> documentsByFileName;
+
+    public DocumentRegistry() {
+        documentsByFileName = Collections.emptyMap();
+    }
+
+    public synchronized void register(String fileName, String actName, PolishDocumentSystem documentSystem) {
+        if (fileName == null || documentSystem == null) {
+            throw new IllegalArgumentException("File name and document system cannot be null.");
+        }
+        if (documentsByFileName.containsKey(fileName)) {
+            throw new IllegalArgumentException("Document already registered: " + fileName);
+        }
+        put(fileName, new RegisteredDocument(actName, documentSystem));
+    }
+
+    //Lookups which already got the previous document system keep it
+    public synchronized void replace(String fileName, String actName, PolishDocumentSystem documentSystem) {
+        if (fileName == null || documentSystem == null) {
+            throw new IllegalArgumentException("File name and document system cannot be null.");
+        }
+        if (!documentsByFileName.containsKey(fileName)) {
+            throw new IllegalArgumentException("Document isn't registered: " + fileName);
+        }
+        put(fileName, new RegisteredDocument(actName, documentSystem));
+    }
+
+    private void put(String fileName, RegisteredDocument document) {
+        Map<String, RegisteredDocument> documents = new LinkedHashMap<>(documentsByFileName);
+        documents.put(fileName, document);
+        documentsByFileName = Collections.unmodifiableMap(documents);
+    }
+
+    public int size() {
+        return documentsByFileName.size();
+    }
+
+    public List<String> getFileNames() {
+        return Collections.unmodifiableList(new ArrayList<>(documentsByFileName.keySet()));
+    }
+
+    //Null if the document has no act name or isn't registered
+    public String getActName(String fileName) {
+        RegisteredDocument document = documentsByFileName.get(fileName);
+        return document == null ? null : document.actName;
+    }
+
+    public PolishDocumentSystem get(String fileName) {
+        RegisteredDocument document = documentsByFileName.get(fileName);
+        return document == null ? null : document.documentSystem;
+    }
+
+    //File name of the document the name points to, null if there is none or the name is ambiguous
+    public String resolve(String name) {
+        if (name == null) {
+            return null;
+        }
+        Map<String, RegisteredDocument> documents = documentsByFileName;
+        if (documents.containsKey(name)) {
+            return name;
+        }
+
+        String found = null;
+        for (String fileName : documents.keySet()) {
+            if (getFileStem(fileName).equals(name)) {
+                if (found != null) {
+                    return null;
+                }
+                found = fileName;
+            }
+        }
+        if (found != null) {
+            return found;
+        }
+
+        String lowerCaseName = name.toLowerCase(Locale.ROOT);
+        List<String> partialMatches = new ArrayList<>();
+        for (Map.Entry<String, RegisteredDocument> document : documents.entrySet()) {
+            String actName = document.getValue().actName;
+            if (actName == null) {
+                continue;
+            }
+            String lowerCaseActName = actName.toLowerCase(Locale.ROOT);
+            if (lowerCaseActName.equals(lowerCaseName)) {
+                return document.getKey();
+            }
+            if (lowerCaseActName.contains(lowerCaseName)) {
+                partialMatches.add(document.getKey());
+            }
+        }
+        return partialMatches.size() == 1 ? partialMatches.get(0) : null;
+    }
+
+    public PolishDocumentSystem find(String name) {
+        String fileName = resolve(name);
+        return fileName == null ? null : get(fileName);
+    }
+
+    private static String getFileStem(String fileName) {
+        int extensionStart = fileName.lastIndexOf('.');
+        return extensionStart > 0 ? fileName.substring(0, extensionStart) : fileName;
+    }
+
+    private static class RegisteredDocument {
+        private final String actName;
+        private final PolishDocumentSystem documentSystem;
+
+        private RegisteredDocument(String actName, PolishDocumentSystem documentSystem) {
+            this.actName = actName;
+            this.documentSystem = documentSystem;
+        }
+    }
+}
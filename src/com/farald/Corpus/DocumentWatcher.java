@@ -0,0 +1,220 @@
+package com.farald.Corpus;
+
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+import com.farald.Statistics.Phase;
+import com.farald.Statistics.PhaseStatistics;
+import com.farald.Statistics.ReloadStatistics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+//Watches the files of registered documents and reloads a document when its file changes. The new edition is parsed
+//on the watcher thread, again only where its text changed, and then replaces the document system in the registry:
+//queries which already got the old one finish on it, later ones get the new one. If the file can't be read or parsed,
+//the old document stays registered and the failure is counted. Files are read without mapping, so they can be
+//truncated or replaced at any time.
+public class DocumentWatcher implements Closeable {
+    //Editors often write a file in a few steps, changed files are reloaded once no file changed for this long
+    public static final long DEFAULT_QUIET_MILLIS = 200;
+
+    private final DocumentRegistry documentRegistry;
+    private final long quietMillis;
+    private final WatchService watchService;
+    private final ReloadStatistics statistics;
+    //Absolute paths of the watched files and the names of their documents
+    private final Map<Path, String> fileNamesByPath;
+    private final Set<Path> directories;
+    //Document systems of one document share their parser, so documents are reloaded one at a time
+    private final Object reloadLock;
+    private Thread watcherThread;
+
+    public DocumentWatcher(DocumentRegistry documentRegistry) throws IOException {
+        this(documentRegistry, DEFAULT_QUIET_MILLIS);
+    }
+
+    public DocumentWatcher(DocumentRegistry documentRegistry, long quietMillis) throws IOException {
+        if (documentRegistry == null) {
+            throw new IllegalArgumentException("Document registry cannot be null.");
+        }
+        if (quietMillis < 0) {
+            throw new IllegalArgumentException("Quiet period cannot be negative.");
+        }
+        this.documentRegistry = documentRegistry;
+        this.quietMillis = quietMillis;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.statistics = new ReloadStatistics();
+        this.fileNamesByPath = new LinkedHashMap<>();
+        this.directories = new HashSet<>();
+        this.reloadLock = new Object();
+    }
+
+    public ReloadStatistics getStatistics() {
+        return statistics;
+    }
+
+    public synchronized int getWatchedFileCount() {
+        return fileNamesByPath.size();
+    }
+
+    //Directory of the file is watched, so a file replaced by renaming another one is reloaded as well.
+    //A document is reloaded from one file only, the file it was loaded from.
+    public synchronized void watch(String fileName, Path file) throws IOException {
+        if (documentRegistry.get(fileName) == null) {
+            throw new IllegalArgumentException("Document isn't registered: " + fileName);
+        }
+        Path absoluteFile = file.toAbsolutePath().normalize();
+        String watchedFileName = fileNamesByPath.get(absoluteFile);
+        if (watchedFileName != null && !watchedFileName.equals(fileName)) {
+            throw new IllegalArgumentException("File is already watched for " + watchedFileName + ": " + file);
+        }
+        for (Map.Entry<Path, String> watchedFile : fileNamesByPath.entrySet()) {
+            if (watchedFile.getValue().equals(fileName) && !watchedFile.getKey().equals(absoluteFile)) {
+                throw new IllegalArgumentException("Document " + fileName + " is already watched at " + watchedFile.getKey());
+            }
+        }
+        Path directory = absoluteFile.getParent();
+        if (!directories.contains(directory)) {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            directories.add(directory);
+        }
+        fileNamesByPath.put(absoluteFile, fileName);
+    }
+
+    public synchronized void start() {
+        if (watcherThread != null) {
+            throw new IllegalStateException("Watcher is already running.");
+        }
+        watcherThread = new Thread(this::watchFiles, "document-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    //A reload which has already started is finished
+    @Override
+    public void close() throws IOException {
+        Thread thread;
+        synchronized (this) {
+            thread = watcherThread;
+            watcherThread = null;
+        }
+        watchService.close();
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    //<editor-fold desc="Watching">
+    private void watchFiles() {
+        try {
+            while (true) {
+                Set<Path> changedFiles = new LinkedHashSet<>();
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    addChangedFiles(key, changedFiles);
+                    key = watchService.poll(quietMillis, TimeUnit.MILLISECONDS);
+                }
+                for (Path file : changedFiles) {
+                    reloadChangedFile(file);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            //Watcher was closed
+        }
+    }
+
+    //Failures of reloads are counted by reload, anything else mustn't stop watching the other files
+    private void reloadChangedFile(Path file) {
+        try {
+            reload(file);
+        } catch (RuntimeException | Error e) {
+            System.err.println("Couldn't reload " + file + ". " + e);
+        }
+    }
+
+    private void addChangedFiles(WatchKey key, Set<Path> changedFiles) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                //Some events were lost, every file of the directory may have changed
+                changedFiles.addAll(getWatchedFiles(directory));
+            } else {
+                Path file = directory.resolve((Path) event.context());
+                if (getFileName(file) != null) {
+                    changedFiles.add(file);
+                }
+            }
+        }
+        key.reset();
+    }
+
+    private synchronized List<Path> getWatchedFiles(Path directory) {
+        List<Path> files = new ArrayList<>();
+        for (Path file : fileNamesByPath.keySet()) {
+            if (file.getParent().equals(directory)) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private synchronized String getFileName(Path file) {
+        return fileNamesByPath.get(file.toAbsolutePath().normalize());
+    }
+    //</editor-fold>
+
+    //Loads the new edition of the watched file now, false if the old document was kept
+    public boolean reload(Path file) {
+        String fileName = getFileName(file);
+        if (fileName == null) {
+            throw new IllegalArgumentException("File isn't watched: " + file);
+        }
+        synchronized (reloadLock) {
+            return reload(fileName, file);
+        }
+    }
+
+    private boolean reload(String fileName, Path file) {
+        PolishDocumentSystem documentSystem = documentRegistry.get(fileName);
+        Phase phase = Phase.start(PhaseStatistics.RELOAD_DOCUMENT, documentSystem.getOptions().getPhaseStatistics());
+        long reloadStart = System.nanoTime();
+        String failure;
+        try {
+            DocumentBuffer documentBuffer = DocumentBuffer.read(file);
+            PolishDocumentSystem reloadedSystem = documentSystem.reload(documentBuffer);
+            reloadedSystem.buildIndexes();
+            documentRegistry.replace(fileName, PolishDocumentSystem.findActName(documentBuffer.getLineSequences()), reloadedSystem);
+            statistics.addReload(System.nanoTime() - reloadStart);
+            phase.finish(documentBuffer.getLineCount(), -1);
+            return true;
+        } catch (IOException e) {
+            failure = "Couldn't read file.";
+        } catch (RuntimeException | Error e) {
+            //Errors too, e.g. a StackOverflowError, the document being parsed is dropped and the old one is still served
+            failure = e.getMessage() == null ? e.toString() : e.getMessage();
+        }
+        statistics.addFailure(System.nanoTime() - reloadStart, fileName + ": " + failure);
+        phase.finish(-1, -1);
+        System.err.println("Couldn't reload " + fileName + ", the previous version is kept. " + failure);
+        return false;
+    }
+}
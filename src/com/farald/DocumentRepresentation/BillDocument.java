@@ -5,7 +5,10 @@ import java.util.List;
 
 public class BillDocument {
     private List<String> billDocumentLines;
+    private DocumentBuffer documentBuffer;
     private BillFragment billFragment;
+    private BillFragmentIndex fragmentIndex;
+    private BillFragmentSpans fragmentSpans;
 
     public BillDocument() {
         billDocumentLines = new ArrayList<>();
@@ -15,15 +18,61 @@ public class BillDocument {
         this.billDocumentLines = billDocumentLines;
     }
 
+    public BillDocument(DocumentBuffer documentBuffer) {
+        this.documentBuffer = documentBuffer;
+    }
+
     public BillFragment getBillFragment() {
         return billFragment;
     }
 
-    public void setBillFragment(BillFragment billFragment) {
+    public synchronized void setBillFragment(BillFragment billFragment) {
         this.billFragment = billFragment;
+        this.fragmentIndex = null;
+        this.fragmentSpans = null;
+    }
+
+    //Index of the fragment tree, built on the first call if the parser didn't provide one. Null if there is no tree.
+    //Synchronized, so queries answered at the same time share one index.
+    public synchronized BillFragmentIndex getFragmentIndex() {
+        if (fragmentIndex == null && billFragment != null) {
+            fragmentIndex = BillFragmentIndex.build(billFragment);
+        }
+        return fragmentIndex;
+    }
+
+    public synchronized void setFragmentIndex(BillFragmentIndex fragmentIndex) {
+        if (fragmentIndex != null && !fragmentIndex.contains(billFragment)) {
+            throw new IllegalArgumentException("Index doesn't contain the document fragment.");
+        }
+        this.fragmentIndex = fragmentIndex;
+    }
+
+    //Spans the fragments were parsed from, null if the tree wasn't parsed from shared content (e.g. loaded from a snapshot)
+    public synchronized BillFragmentSpans getFragmentSpans() {
+        return fragmentSpans;
     }
 
+    public synchronized void setFragmentSpans(BillFragmentSpans fragmentSpans) {
+        this.fragmentSpans = fragmentSpans;
+    }
+
+    public DocumentBuffer getDocumentBuffer() {
+        return documentBuffer;
+    }
+
+    //Lines are copied out of the buffer only when somebody asks for them as strings
     public List<String> getBillDocumentLines() {
+        if (billDocumentLines == null && documentBuffer != null) {
+            billDocumentLines = documentBuffer.getLines();
+        }
+        return billDocumentLines;
+    }
+
+    public List<? extends CharSequence> getBillDocumentLineSequences() {
+        if (billDocumentLines == null && documentBuffer != null) {
+            return documentBuffer.getLineSequences();
+        }
         return billDocumentLines;
     }
 
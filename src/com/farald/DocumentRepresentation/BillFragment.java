@@ -1,13 +1,25 @@
 package com.farald.DocumentRepresentation;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class BillFragment {
     private String identifier;
-    private String content;
+    //Content is the [contentStart, contentEnd) span of contentSource, many fragments can share one source
+    private CharSequence contentSource;
+    private int contentStart;
+    private int contentEnd;
     private BillFragment parent;
     private List<BillFragment> children;
 
@@ -18,7 +30,7 @@ public class BillFragment {
 
     public BillFragment(String identifier, String content) {
         this.identifier = identifier;
-        this.content = content;
+        setContent(content);
         this.parent = null;
         this.children = new ArrayList<>();
     }
@@ -32,12 +44,45 @@ public class BillFragment {
         this.identifier = identifier;
     }
 
+    //Content string is built from the span on every call, unless the fragment owns the whole source string
     public String getContent() {
-        return content;
+        if (contentSource == null) {
+            return null;
+        }
+        if (contentStart == 0 && contentEnd == contentSource.length() && contentSource instanceof String) {
+            return (String) contentSource;
+        }
+        return contentSource.subSequence(contentStart, contentEnd).toString();
     }
 
     public void setContent(String content) {
-        this.content = content;
+        this.contentSource = content;
+        this.contentStart = 0;
+        this.contentEnd = content == null ? 0 : content.length();
+    }
+
+    public void setContentSpan(CharSequence contentSource, int contentStart, int contentEnd) {
+        if (contentSource == null) {
+            throw new IllegalArgumentException("Content source cannot be null.");
+        }
+        if (contentStart < 0 || contentStart > contentEnd || contentEnd > contentSource.length()) {
+            throw new IndexOutOfBoundsException("Wrong content span: " + contentStart + ", " + contentEnd);
+        }
+        this.contentSource = contentSource;
+        this.contentStart = contentStart;
+        this.contentEnd = contentEnd;
+    }
+
+    public CharSequence getContentSource() {
+        return contentSource;
+    }
+
+    public int getContentStart() {
+        return contentStart;
+    }
+
+    public int getContentEnd() {
+        return contentEnd;
     }
 
     public BillFragment getParent() {
@@ -63,72 +108,35 @@ public class BillFragment {
 
     @Override
     public String toString() {
-        return identifier + content;
-    }
-
-    //<editor-fold desc="Table Of Contents">
-    public List<String> getTableOfContentsWithEndingPredicate(int indentSize, Predicate<BillFragment> endSubtreePredicate) {
-        return getTableOfContentsWithEndingPredicateAndContentPredicate(indentSize, endSubtreePredicate, (x) -> true);
+        return identifier + getContent();
     }
 
-    public List<String> getTableOfContentsWithEndingPredicateAndContentPredicate(int indentSize, Predicate<BillFragment> traverseSubtree, Predicate<String> subContentPredicate) {
-        List<String> tableOfContents = new ArrayList<>();
-        if (!traverseSubtree.test(this)) {
-            return tableOfContents;
-        }
-
-        String indent = getSpacesForIndent(indentSize);
-        if (identifier != null) {
-            tableOfContents.addAll(Arrays.asList(identifier.split("\n")));
-        }
-        if (subContentPredicate.test(content)) {
-            tableOfContents.add(content);
-        }
-
-        for (BillFragment child : children) {
-            List<String> childTableOfContents = child.getTableOfContentsWithEndingPredicateAndContentPredicate(indentSize, traverseSubtree, subContentPredicate);
-            for (String childToC : childTableOfContents) {
-                tableOfContents.add(indent + childToC);
-            }
+    //<editor-fold desc="Tree Operations">
+    public BillFragment findFirstFragmentSatisfyingPredicate(Predicate<BillFragment> predicate) {
+        BillFragment fragment = findFirstFragment(predicate);
+        if (fragment == null) {
+            throw new IllegalArgumentException("Couldn't find fragment satisfying predicate.");
         }
-        return tableOfContents;
+        return fragment;
     }
 
-    public List<String> getTableOfContents(int indentSize) {
-        return getTableOfContentsWithEndingPredicate(indentSize, (x) -> false);
+    //Depth first search stopping at the first fragment found, null if there is none
+    private BillFragment findFirstFragment(Predicate<BillFragment> predicate) {
+        return preOrderStream().filter(predicate).findFirst().orElse(null);
     }
 
-    private String getSpacesForIndent(int indentSize) {
-        StringBuilder stringBuilder = new StringBuilder(indentSize);
-
-        for (int i = 0; i < indentSize; i++) {
-            stringBuilder.append(" ");
-        }
-        return stringBuilder.toString();
+    public List<BillFragment> findAllFragmentsSatisfyingPredicate(Predicate<BillFragment> predicate) {
+        return preOrderStream().filter(predicate).collect(Collectors.toList());
     }
-    //</editor-fold>
 
-    //<editor-fold desc="Tree Operations">
-    public BillFragment findFirstFragmentSatisfyingPredicate(Predicate<BillFragment> predicate) {
-        List<BillFragment> fragments = findAllFragmentsSatisfyingPredicate(predicate);
-        if (fragments.size() == 0) {
-            throw new IllegalArgumentException("Couldn't find fragment satisfying predicate.");
-        }
-        return fragments.get(0);
+    //Fragment and its whole subtree in pre-order, the order of a depth first search. Fragments are visited lazily,
+    //nothing is collected on the way, so the walk ends as soon as the stream consumer stops.
+    public Stream<BillFragment> preOrderStream() {
+        return StreamSupport.stream(new PreOrderSpliterator(this), false);
     }
 
-    public List<BillFragment> findAllFragmentsSatisfyingPredicate(Predicate<BillFragment> predicate) {
-        List<BillFragment> fragments = new ArrayList<>();
-        if (predicate.test(this)) {
-            fragments.add(this);
-        }
-        if (children != null) {
-            for (BillFragment child : children) {
-                List<BillFragment> childList = child.findAllFragmentsSatisfyingPredicate(predicate);
-                fragments.addAll(childList);
-            }
-        }
-        return fragments;
+    public Iterator<BillFragment> preOrderIterator() {
+        return Spliterators.iterator(new PreOrderSpliterator(this));
     }
 
     public List<BillFragment> findAllFragmentsWithIdentifier(String identifier) {
@@ -140,36 +148,102 @@ public class BillFragment {
     }
 
     public BillFragment findFirstFragmentWithIdentifier(String identifier) {
-        List<BillFragment> fragments;
-        try {
-            fragments = findAllFragmentsWithIdentifier(identifier);
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException(e);
-        }
-        if (fragments.size() == 0) {
-            return null;
-        } else {
-            return fragments.get(0);
+        if (identifier == null) {
+            throw new IllegalArgumentException("Identifier cannot be null.");
         }
+        return findFirstFragment((BillFragment x) -> x.identifier != null && x.identifier.equals(identifier));
     }
 
     public String getFragmentContentWithChildren() {
-        StringBuilder contents = new StringBuilder("");
-        if (identifier != null) {
-            contents.append(this.identifier);
-            contents.append(" ");
+        StringBuilder contents = new StringBuilder();
+        try {
+            new FragmentRenderer(contents).render(this);
+        } catch (IOException e) {
+            //StringBuilder doesn't throw
+            throw new IllegalStateException(e);
         }
-        if (content != null) {
-            contents.append(this.content);
-            contents.append("\n");
+        return contents.toString();
+    }
+    //</editor-fold>
+
+    //Keeps an iterator over the children of every fragment on the path from the root to the last visited fragment.
+    //Traversal of the whole tree at once goes recursively instead.
+    private static class PreOrderSpliterator implements Spliterator<BillFragment> {
+        private final Deque<Iterator<BillFragment>> path;
+        private BillFragment next;
+        private boolean started;
+
+        private PreOrderSpliterator(BillFragment root) {
+            this.path = new ArrayDeque<>();
+            this.next = root;
+            this.started = false;
         }
 
-        for (BillFragment child : this.children) {
-            String childContents = child.getFragmentContentWithChildren();
-            contents.append(childContents);
+        @Override
+        public boolean tryAdvance(Consumer<? super BillFragment> action) {
+            started = true;
+            if (next == null && !findNext()) {
+                return false;
+            }
+            BillFragment fragment = next;
+            next = null;
+            if (fragment.children != null && !fragment.children.isEmpty()) {
+                path.push(fragment.children.iterator());
+            }
+            action.accept(fragment);
+            return true;
         }
 
-        return contents.toString();
+        private boolean findNext() {
+            while (!path.isEmpty()) {
+                Iterator<BillFragment> siblings = path.peek();
+                if (siblings.hasNext()) {
+                    next = siblings.next();
+                    return true;
+                }
+                path.pop();
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super BillFragment> action) {
+            if (started) {
+                //Part of the tree was already visited lazily, the rest is visited the same way
+                boolean advanced = true;
+                while (advanced) {
+                    advanced = tryAdvance(action);
+                }
+                return;
+            }
+            started = true;
+            BillFragment root = next;
+            next = null;
+            visitSubtree(root, action);
+        }
+
+        private void visitSubtree(BillFragment fragment, Consumer<? super BillFragment> action) {
+            action.accept(fragment);
+            if (fragment.children != null) {
+                for (BillFragment child : fragment.children) {
+                    visitSubtree(child, action);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<BillFragment> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL;
+        }
     }
-    //</editor-fold>
 }
@@ -0,0 +1,184 @@
+package com.farald.DocumentRepresentation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Fragments of a tree numbered in pre-order, the order in which a depth first search visits them.
+//Subtree of a fragment is a range of numbers, so the first fragment with an identifier inside a subtree
+//is found with a binary search among the fragments having that identifier.
+public class BillFragmentIndex {
+    private final List<BillFragment> fragments;
+    private final Map<BillFragment, Integer> fragmentNumbers;
+    //Number after the last fragment of the subtree, for every fragment
+    private int[] subtreeEnds;
+    private final Map<String, FragmentNumbers> identifierFragments;
+
+    public BillFragmentIndex() {
+        this.fragments = new ArrayList<>();
+        this.fragmentNumbers = new IdentityHashMap<>();
+        this.subtreeEnds = new int[16];
+        this.identifierFragments = new HashMap<>();
+    }
+
+    public static BillFragmentIndex build(BillFragment root) {
+        if (root == null) {
+            throw new IllegalArgumentException("Root cannot be null.");
+        }
+        BillFragmentIndex fragmentIndex = new BillFragmentIndex();
+        fragmentIndex.addSubtree(root);
+        return fragmentIndex;
+    }
+
+    private void addSubtree(BillFragment fragment) {
+        enterFragment(fragment);
+        for (BillFragment child : fragment.getChildren()) {
+            addSubtree(child);
+        }
+        exitFragment(fragment);
+    }
+
+    //<editor-fold desc="Building">
+    //Fragments have to be entered in pre-order, and exited after all fragments of their subtree
+    public void enterFragment(BillFragment fragment) {
+        if (fragmentNumbers.containsKey(fragment)) {
+            throw new IllegalArgumentException("Fragment is already indexed.");
+        }
+        int number = fragments.size();
+        fragments.add(fragment);
+        fragmentNumbers.put(fragment, number);
+        if (number == subtreeEnds.length) {
+            subtreeEnds = Arrays.copyOf(subtreeEnds, number * 2);
+        }
+        subtreeEnds[number] = -1;
+        if (fragment.getIdentifier() != null) {
+            identifierFragments.computeIfAbsent(fragment.getIdentifier(), (x) -> new FragmentNumbers()).add(number);
+        }
+    }
+
+    public void exitFragment(BillFragment fragment) {
+        Integer number = fragmentNumbers.get(fragment);
+        if (number == null || subtreeEnds[number] != -1) {
+            throw new IllegalArgumentException("Fragment wasn't entered.");
+        }
+        subtreeEnds[number] = fragments.size();
+    }
+
+    //Changes the identifier of an indexed fragment and moves it to its new identifier in the index
+    public void changeIdentifier(BillFragment fragment, String identifier) {
+        Integer number = fragmentNumbers.get(fragment);
+        if (number == null) {
+            throw new IllegalArgumentException("Fragment isn't indexed.");
+        }
+        String oldIdentifier = fragment.getIdentifier();
+        if (oldIdentifier != null) {
+            FragmentNumbers numbers = identifierFragments.get(oldIdentifier);
+            numbers.remove(number);
+            if (numbers.size == 0) {
+                identifierFragments.remove(oldIdentifier);
+            }
+        }
+        fragment.setIdentifier(identifier);
+        if (identifier != null) {
+            identifierFragments.computeIfAbsent(identifier, (x) -> new FragmentNumbers()).add(number);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Lookup">
+    public boolean contains(BillFragment fragment) {
+        return fragmentNumbers.containsKey(fragment);
+    }
+
+    public int size() {
+        return fragments.size();
+    }
+
+    //Same result as scope.findFirstFragmentWithIdentifier(identifier), the scope itself included
+    public BillFragment findFirstFragmentWithIdentifier(BillFragment scope, String identifier) {
+        if (identifier == null) {
+            throw new IllegalArgumentException("Identifier cannot be null.");
+        }
+        Integer scopeNumber = getCompleteFragmentNumber(scope);
+        FragmentNumbers numbers = identifierFragments.get(identifier);
+        if (numbers == null) {
+            return null;
+        }
+        int position = numbers.findFirstNotLower(scopeNumber);
+        if (position == numbers.size || numbers.values[position] >= subtreeEnds[scopeNumber]) {
+            return null;
+        }
+        return fragments.get(numbers.values[position]);
+    }
+
+    //Same result as scope.findAllFragmentsWithIdentifier(identifier), in pre-order
+    public List<BillFragment> findAllFragmentsWithIdentifier(BillFragment scope, String identifier) {
+        if (identifier == null) {
+            throw new IllegalArgumentException("Identifier cannot be null.");
+        }
+        Integer scopeNumber = getCompleteFragmentNumber(scope);
+        List<BillFragment> found = new ArrayList<>();
+        FragmentNumbers numbers = identifierFragments.get(identifier);
+        if (numbers == null) {
+            return found;
+        }
+        int subtreeEnd = subtreeEnds[scopeNumber];
+        for (int position = numbers.findFirstNotLower(scopeNumber); position < numbers.size && numbers.values[position] < subtreeEnd; position++) {
+            found.add(fragments.get(numbers.values[position]));
+        }
+        return found;
+    }
+
+    private Integer getCompleteFragmentNumber(BillFragment scope) {
+        Integer number = fragmentNumbers.get(scope);
+        if (number == null) {
+            throw new IllegalArgumentException("Fragment isn't indexed.");
+        }
+        if (subtreeEnds[number] == -1) {
+            throw new IllegalStateException("Fragment subtree isn't indexed, yet.");
+        }
+        return number;
+    }
+    //</editor-fold>
+
+    //Ascending fragment numbers
+    private static class FragmentNumbers {
+        private int[] values = new int[1];
+        private int size = 0;
+
+        private void add(int number) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int position = findFirstNotLower(number);
+            System.arraycopy(values, position, values, position + 1, size - position);
+            values[position] = number;
+            size++;
+        }
+
+        private void remove(int number) {
+            int position = findFirstNotLower(number);
+            if (position < size && values[position] == number) {
+                System.arraycopy(values, position + 1, values, position, size - position - 1);
+                size--;
+            }
+        }
+
+        private int findFirstNotLower(int number) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] < number) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.farald.DocumentRepresentation;
+
+import com.farald.Parser.ParserRule;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Text a document was parsed from and, for every fragment, the span of the text its content had before its children
+//were cut out of it, with the rules the content was parsed with. Fragments with content which isn't a span of the text
+//have no span. Spans can be added by many parsing tasks at the same time.
+public class BillFragmentSpans {
+    private final String text;
+    private final Map<BillFragment, Span> spans;
+
+    public BillFragmentSpans(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Text cannot be null.");
+        }
+        this.text = text;
+        this.spans = new IdentityHashMap<>();
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public synchronized void add(BillFragment fragment, int start, int end, List<ParserRule> parserRules) {
+        if (start < 0 || start > end || end > text.length()) {
+            throw new IndexOutOfBoundsException("Wrong span: " + start + ", " + end);
+        }
+        spans.put(fragment, new Span(start, end, parserRules));
+    }
+
+    //Null if the fragment has no span
+    public synchronized Span get(BillFragment fragment) {
+        return spans.get(fragment);
+    }
+
+    public synchronized int size() {
+        return spans.size();
+    }
+
+    public static class Span {
+        public final int start;
+        public final int end;
+        public final List<ParserRule> parserRules;
+
+        public Span(int start, int end, List<ParserRule> parserRules) {
+            this.start = start;
+            this.end = end;
+            this.parserRules = parserRules;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.farald.DocumentRepresentation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DocumentBuffer {
+    private final char[] characters;
+    private final int length;
+    //lineStarts[i] is the first character of line i, lineStarts[lineCount] is the end of the text
+    private final int[] lineStarts;
+    private final int lineCount;
+
+    private DocumentBuffer(char[] characters, int length) {
+        this.characters = characters;
+        this.length = length;
+
+        int[] starts = new int[16];
+        int count = 0;
+        int position = 0;
+        while (position < length) {
+            if (count + 1 >= starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[count++] = position;
+            position = skipLine(position);
+        }
+        starts[count] = length;
+
+        this.lineStarts = starts;
+        this.lineCount = count;
+    }
+
+    //<editor-fold desc="Creation">
+    public static DocumentBuffer map(Path filepath) throws IOException {
+        try (FileChannel channel = FileChannel.open(filepath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Document is too large to be mapped.");
+            }
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return decode(bytes, (int) size);
+        }
+    }
+
+    //Reads the file into memory instead of mapping it. A file which is still mapped can't be replaced on Windows
+    //and one truncated while it's mapped makes reading it fail with an InternalError, so changing files are read this way.
+    public static DocumentBuffer read(Path filepath) throws IOException {
+        byte[] bytes = Files.readAllBytes(filepath);
+        return decode(ByteBuffer.wrap(bytes), bytes.length);
+    }
+
+    public static DocumentBuffer fromLines(List<String> lines) {
+        int length = 0;
+        for (String line : lines) {
+            length += line.length() + 1;
+        }
+
+        char[] characters = new char[length];
+        int position = 0;
+        for (String line : lines) {
+            line.getChars(0, line.length(), characters, position);
+            position += line.length();
+            characters[position++] = '\n';
+        }
+        return new DocumentBuffer(characters, length);
+    }
+
+    private static DocumentBuffer decode(ByteBuffer bytes, int size) throws CharacterCodingException {
+        //UTF-8 never produces more chars than bytes, so a single output buffer is enough
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer characters = CharBuffer.allocate(size);
+
+        CoderResult result = decoder.decode(bytes, characters, true);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        result = decoder.flush(characters);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        return new DocumentBuffer(characters.array(), characters.position());
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Line index">
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public int getLineStart(int lineNumber) {
+        checkLineNumber(lineNumber);
+        return lineStarts[lineNumber];
+    }
+
+    //Position just after the last character of the line, line terminator excluded
+    public int getLineEnd(int lineNumber) {
+        checkLineNumber(lineNumber);
+        int start = lineStarts[lineNumber];
+        int end = lineStarts[lineNumber + 1];
+        if (end > start && characters[end - 1] == '\n') {
+            end--;
+            if (end > start && characters[end - 1] == '\r') {
+                end--;
+            }
+        } else if (end > start && characters[end - 1] == '\r') {
+            end--;
+        }
+        return end;
+    }
+
+    public CharSequence getLineSequence(int lineNumber) {
+        int start = getLineStart(lineNumber);
+        return CharBuffer.wrap(characters, start, getLineEnd(lineNumber) - start);
+    }
+
+    public String getLine(int lineNumber) {
+        int start = getLineStart(lineNumber);
+        return new String(characters, start, getLineEnd(lineNumber) - start);
+    }
+
+    //View over the lines, no line content is copied
+    public List<CharSequence> getLineSequences() {
+        return new AbstractList<CharSequence>() {
+            @Override
+            public CharSequence get(int index) {
+                return getLineSequence(index);
+            }
+
+            @Override
+            public int size() {
+                return lineCount;
+            }
+        };
+    }
+
+    public List<String> getLines() {
+        List<String> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            lines.add(getLine(i));
+        }
+        return lines;
+    }
+
+    private int skipLine(int position) {
+        while (position < length) {
+            char character = characters[position++];
+            if (character == '\n') {
+                return position;
+            }
+            if (character == '\r') {
+                if (position < length && characters[position] == '\n') {
+                    position++;
+                }
+                return position;
+            }
+        }
+        return position;
+    }
+
+    private void checkLineNumber(int lineNumber) {
+        if (lineNumber < 0 || lineNumber >= lineCount) {
+            throw new IndexOutOfBoundsException("No line with number: " + lineNumber);
+        }
+    }
+    //</editor-fold>
+
+    public int length() {
+        return length;
+    }
+
+    public CharSequence asCharSequence() {
+        return CharBuffer.wrap(characters, 0, length);
+    }
+}
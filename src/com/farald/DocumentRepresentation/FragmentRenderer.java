@@ -0,0 +1,45 @@
+package com.farald.DocumentRepresentation;
+
+import java.io.IOException;
+import java.io.Writer;
+
+//Writes the text of fragments with their subtrees straight into an output, one fragment at a time.
+//The text is the same as returned by BillFragment.getFragmentContentWithChildren.
+public class FragmentRenderer {
+    private final Appendable output;
+    private final Writer writer;
+
+    public FragmentRenderer(Appendable output) {
+        if (output == null) {
+            throw new IllegalArgumentException("Output cannot be null.");
+        }
+        this.output = output;
+        this.writer = output instanceof Writer ? (Writer) output : null;
+    }
+
+    public void render(BillFragment fragment) throws IOException {
+        String identifier = fragment.getIdentifier();
+        if (identifier != null) {
+            output.append(identifier);
+            output.append(' ');
+        }
+        CharSequence contentSource = fragment.getContentSource();
+        if (contentSource != null) {
+            appendSpan(contentSource, fragment.getContentStart(), fragment.getContentEnd());
+            output.append('\n');
+        }
+
+        for (BillFragment child : fragment.getChildren()) {
+            render(child);
+        }
+    }
+
+    //Writers copy a span of a string straight into their buffers, Appendable.append would copy it to a new string first
+    private void appendSpan(CharSequence source, int start, int end) throws IOException {
+        if (writer != null && source instanceof String) {
+            writer.write((String) source, start, end - start);
+        } else {
+            output.append(source, start, end);
+        }
+    }
+}
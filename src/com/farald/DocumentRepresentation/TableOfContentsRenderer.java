@@ -0,0 +1,82 @@
+package com.farald.DocumentRepresentation;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+//Writes the table of contents of a fragment subtree straight into an output, one line at a time.
+//Lines are indented by the depth of their fragment, blank lines are skipped. Fragments which don't satisfy
+//the traverse predicate are left out with their subtrees, contents are listed if they satisfy the content predicate.
+//Fragments without content have no content line, the content predicate is never given null.
+public class TableOfContentsRenderer {
+    private final Appendable output;
+    private final int indentSize;
+    private final Predicate<BillFragment> traverseSubtree;
+    private final Predicate<String> contentPredicate;
+
+    public TableOfContentsRenderer(Appendable output, int indentSize, Predicate<BillFragment> traverseSubtree, Predicate<String> contentPredicate) {
+        if (output == null) {
+            throw new IllegalArgumentException("Output cannot be null.");
+        }
+        if (indentSize < 0) {
+            throw new IllegalArgumentException("Indent size cannot be negative.");
+        }
+        if (traverseSubtree == null || contentPredicate == null) {
+            throw new IllegalArgumentException("Predicates cannot be null.");
+        }
+        this.output = output;
+        this.indentSize = indentSize;
+        this.traverseSubtree = traverseSubtree;
+        this.contentPredicate = contentPredicate;
+    }
+
+    public void render(BillFragment fragment) throws IOException {
+        render(fragment, 0);
+    }
+
+    private void render(BillFragment fragment, int depth) throws IOException {
+        if (!traverseSubtree.test(fragment)) {
+            return;
+        }
+
+        //Every line of a many line identifier is indented, content is a single entry
+        String identifier = fragment.getIdentifier();
+        if (identifier != null) {
+            int lineStart = 0;
+            int lineEnd;
+            while ((lineEnd = identifier.indexOf('\n', lineStart)) >= 0) {
+                writeLine(identifier, lineStart, lineEnd, depth);
+                lineStart = lineEnd + 1;
+            }
+            writeLine(identifier, lineStart, identifier.length(), depth);
+        }
+        String content = fragment.getContent();
+        if (content != null && contentPredicate.test(content)) {
+            writeLine(content, 0, content.length(), depth);
+        }
+
+        for (BillFragment child : fragment.getChildren()) {
+            render(child, depth + 1);
+        }
+    }
+
+    private void writeLine(String text, int start, int end, int depth) throws IOException {
+        if (isBlank(text, start, end)) {
+            return;
+        }
+        for (int i = depth * indentSize; i > 0; i--) {
+            output.append(' ');
+        }
+        output.append(text, start, end);
+        output.append('\n');
+    }
+
+    //Same as an empty String.trim
+    private static boolean isBlank(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -3,74 +3,201 @@ package com.farald.DocumentSystem;
 import com.farald.Cleaner.Cleaner;
 import com.farald.DocumentRepresentation.BillDocument;
 import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.BillFragmentIndex;
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentRepresentation.DocumentType;
+import com.farald.DocumentRepresentation.TableOfContentsRenderer;
 import com.farald.Parser.Parser;
+import com.farald.Parser.ReparseReport;
+import com.farald.Snapshot.DocumentSnapshot;
+import com.farald.Snapshot.SnapshotCache;
+import com.farald.Statistics.Phase;
+import com.farald.Statistics.PhaseStatistics;
 import com.frequal.romannumerals.Converter;
 import com.martiansoftware.jsap.JSAPResult;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public abstract class AbstractDocumentSystem {
     protected Cleaner cleaner;
     protected Parser parser;
     protected BillDocument billDocument;
+    protected final DocumentSystemOptions options;
 
     public AbstractDocumentSystem() {
+        this(new DocumentSystemOptions());
+    }
+
+    public AbstractDocumentSystem(DocumentSystemOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("Options cannot be null.");
+        }
         cleaner = new Cleaner();
         parser = new Parser();
+        parser.setEngineType(options.getParserEngineType());
+        parser.setProfile(options.getParserProfile());
+        if (options.isParallelParsing()) {
+            parser.setParsingPool(ForkJoinPool.commonPool());
+        }
+        this.options = options;
+    }
+
+    //Shares the rules, the options and the current document with the document system, so a new edition of the document
+    //can be parsed without changing it. Cleaner and parser keep state while a document is processed, so only one of
+    //the document systems can process a document at a time.
+    protected AbstractDocumentSystem(AbstractDocumentSystem documentSystem) {
+        cleaner = documentSystem.cleaner;
+        parser = documentSystem.parser;
+        billDocument = documentSystem.billDocument;
+        options = documentSystem.options;
+    }
+
+    public Cleaner getCleaner() {
+        return cleaner;
+    }
+
+    public Parser getParser() {
+        return parser;
+    }
+
+    public BillDocument getBillDocument() {
+        return billDocument;
+    }
+
+    public DocumentSystemOptions getOptions() {
+        return options;
     }
 
     //<editor-fold desc="Read document methods">
     public static List<String> readFile(String filepath) throws IOException {
-        List<String> documentLines = new ArrayList<>();
-
-        try (BufferedReader documentReader = new BufferedReader(new FileReader(filepath))) {
+        return readDocumentBuffer(filepath).getLines();
+    }
 
-            String line = documentReader.readLine();
-            while (line != null) {
-                documentLines.add(line);
-                line = documentReader.readLine();
-            }
-        } catch (IOException e) {
+    public static DocumentBuffer readDocumentBuffer(String filepath) throws IOException {
+        try {
+            return DocumentBuffer.map(Paths.get(filepath));
+        } catch (IOException | InvalidPathException e) {
             throw new IOException("Document could not be read.", e);
         }
+    }
 
-        return documentLines;
+    //Results go to the standard output
+    public void interpret(JSAPResult parsingResults) {
+        PhaseStatistics statistics = options.getPhaseStatistics();
+        QueryOutput output = QueryOutput.standardOutput();
+        output.setPhaseStatistics(statistics);
+        Phase phase = Phase.start(PhaseStatistics.INTERPRET, statistics);
+        interpret(parsingResults, output);
+        output.flush();
+        phase.finish(-1, -1);
     }
 
-    public abstract void interpret(JSAPResult parsingResults);
+    public abstract void interpret(JSAPResult parsingResults, QueryOutput output);
 
     protected void readDocument(String filepath) throws IOException {
-        List<String> documentLines;
+        DocumentBuffer documentBuffer;
         try {
-            documentLines = readFile(filepath);
+            documentBuffer = readDocumentBuffer(filepath);
         } catch (IOException e) {
             throw new IOException(e);
         }
 
-        this.billDocument = new BillDocument(documentLines);
+        this.billDocument = new BillDocument(documentBuffer);
     }
 
     protected void readDocument(List<String> fileLines) {
-        this.billDocument = new BillDocument(fileLines);
+        this.billDocument = new BillDocument(DocumentBuffer.fromLines(fileLines));
+    }
+
+    protected void readDocument(DocumentBuffer documentBuffer) {
+        this.billDocument = new BillDocument(documentBuffer);
     }
+    //</editor-fold>
 
-    protected String appendList(List<String> list) {
-        if (list == null) {
-            throw new IllegalArgumentException("Null list cannot be appended.");
+    //<editor-fold desc="Document processing methods">
+    protected void processDocument(DocumentType documentType) {
+        PhaseStatistics statistics = options.getPhaseStatistics();
+        SnapshotCache snapshotCache = options.getSnapshotCache();
+        String snapshotKey = null;
+        if (snapshotCache != null) {
+            Phase phase = Phase.start(PhaseStatistics.LOAD_SNAPSHOT, statistics);
+            String rulesFingerprint = cleaner.getRulesFingerprint() + parser.getRulesFingerprint();
+            snapshotKey = snapshotCache.computeKey(billDocument.getDocumentBuffer().asCharSequence(), documentType, rulesFingerprint);
+            DocumentSnapshot snapshot = snapshotCache.load(snapshotKey, documentType);
+            if (snapshot != null) {
+                billDocument.setBillFragment(snapshot.billFragment);
+                phase.finish(-1, phase.isRecorded() ? countFragments() : -1);
+                return;
+            }
+            phase.finish(-1, 0);
         }
-        StringBuilder builder = new StringBuilder("");
-        for (String line : list) {
-            if (line != null && line.trim().length() > 0) {
-                builder.append(line).append("\n");
+
+        cleanDocument(billDocument);
+        Phase parsePhase = Phase.start(PhaseStatistics.PARSE_DOCUMENT, statistics);
+        int lineCount = billDocument.getBillDocumentLineSequences().size();
+        parser.parseDocument(billDocument);
+        fixParsedDocument();
+        parsePhase.finish(lineCount, parsePhase.isRecorded() ? countFragments() : -1);
+
+        if (snapshotCache != null) {
+            Phase phase = Phase.start(PhaseStatistics.STORE_SNAPSHOT, statistics);
+            try {
+                snapshotCache.store(snapshotKey, new DocumentSnapshot(documentType, billDocument.getBillFragment()));
+            } catch (IOException e) {
+                System.err.println("Couldn't store document snapshot. " + e.getMessage());
             }
+            phase.finish(-1, -1);
+        }
+    }
+
+    //Replaces the document with its new edition, only the parts of the tree whose text changed are parsed again.
+    //The snapshot cache isn't used.
+    public ReparseReport updateDocument(DocumentBuffer documentBuffer) {
+        if (billDocument == null || billDocument.getBillFragment() == null) {
+            throw new IllegalStateException("Document hasn't been parsed, yet.");
+        }
+        BillDocument updatedDocument = new BillDocument(documentBuffer);
+        cleanDocument(updatedDocument);
+        Phase phase = Phase.start(PhaseStatistics.REPARSE_DOCUMENT, options.getPhaseStatistics());
+        int lineCount = updatedDocument.getBillDocumentLineSequences().size();
+        ReparseReport report = parser.reparseDocument(updatedDocument, billDocument);
+        billDocument = updatedDocument;
+        fixParsedDocument();
+        phase.finish(lineCount, phase.isRecorded() ? countFragments() : -1);
+        return report;
+    }
+
+    private void cleanDocument(BillDocument document) {
+        PhaseStatistics statistics = options.getPhaseStatistics();
+        //Fused cleaning joins broken words while the lines are cleaned, so both are one phase
+        if (cleaner.isFusedCleaning()) {
+            Phase phase = Phase.start(PhaseStatistics.CLEAR_AND_CONNECT_DOCUMENT, statistics);
+            cleaner.clearAndConnectDocument(document);
+            phase.finish(document.getBillDocumentLineSequences().size(), -1);
+        } else {
+            Phase phase = Phase.start(PhaseStatistics.CLEAR_DOCUMENT, statistics);
+            cleaner.clearDocument(document);
+            phase.finish(document.getBillDocumentLineSequences().size(), -1);
+            phase = Phase.start(PhaseStatistics.CONNECT_BROKEN_WORDS, statistics);
+            cleaner.connectBrokenWords(document);
+            phase.finish(document.getBillDocumentLineSequences().size(), -1);
         }
-        return builder.toString();
+    }
+
+    private int countFragments() {
+        return (int) billDocument.getBillFragment().preOrderStream().count();
+    }
+
+    //Called after the document is parsed or updated, changes made here are included in the stored snapshot
+    protected void fixParsedDocument() {
     }
     //</editor-fold>
 
@@ -105,7 +232,7 @@ public abstract class AbstractDocumentSystem {
         if (parent == null) {
             throw new IllegalArgumentException("Parent cannot be null.");
         }
-        BillFragment part = parent.findFirstFragmentWithIdentifier(identifier);
+        BillFragment part = findFragmentWithIdentifier(parent, identifier);
         if (part == null) {
             throw new IllegalArgumentException("Couldn't find: " + identifier);
         }
@@ -113,11 +240,20 @@ public abstract class AbstractDocumentSystem {
         return part;
     }
 
+    //Same result as parent.findFirstFragmentWithIdentifier, looked up in the fragment index of the document
+    protected BillFragment findFragmentWithIdentifier(BillFragment parent, String identifier) {
+        BillFragmentIndex fragmentIndex = billDocument.getFragmentIndex();
+        if (fragmentIndex == null || !fragmentIndex.contains(parent)) {
+            return parent.findFirstFragmentWithIdentifier(identifier);
+        }
+        return fragmentIndex.findFirstFragmentWithIdentifier(parent, identifier);
+    }
+
     public List<BillFragment> getPartsInRange(BillFragment parent, Predicate<BillFragment> rangePredicate, String fromIdentifier, String toIdentifier) {
         if (parent == null) {
             throw new IllegalArgumentException("Parent cannot be null.");
         }
-        List<BillFragment> fragmentsInScope = parent.findAllFragmentsSatisfyingPredicate(rangePredicate);
+        List<BillFragment> fragmentsInScope = parent.preOrderStream().filter(rangePredicate).collect(Collectors.toList());
 
         if (fragmentsInScope.size() == 0) {
             throw new IllegalArgumentException("Couldn't find elements with given predicate.");
@@ -167,11 +303,42 @@ public abstract class AbstractDocumentSystem {
     }
 
     public String getTableOfContentsForPart(BillFragment parent, Predicate<BillFragment> terminalPredicate) {
+        return getTableOfContentsForPart(parent, terminalPredicate, (x) -> true);
+    }
+
+    protected String getTableOfContentsForPart(BillFragment parent, Predicate<BillFragment> terminalPredicate, Predicate<String> contentPredicate) {
         if (parent == null) {
             throw new IllegalStateException("Document hasn't been parsed, yet.");
         }
 
-        return appendList(parent.getTableOfContentsWithEndingPredicate(2, terminalPredicate));
+        StringBuilder tableOfContents = new StringBuilder();
+        try {
+            writeTableOfContents(tableOfContents, parent, terminalPredicate, contentPredicate);
+        } catch (IOException e) {
+            //StringBuilder doesn't throw
+            throw new IllegalStateException(e);
+        }
+        return tableOfContents.toString();
+    }
+
+    //Table of contents followed by an empty line, same as println of getTableOfContentsForPart
+    protected void printTableOfContents(QueryOutput output, BillFragment part, Predicate<BillFragment> terminalPredicate, Predicate<String> contentPredicate) {
+        if (part == null) {
+            throw new IllegalStateException("Document hasn't been parsed, yet.");
+        }
+
+        try {
+            writeTableOfContents(output.getOut(), part, terminalPredicate, contentPredicate);
+        } catch (IOException e) {
+            //PrintWriter doesn't throw
+            throw new IllegalStateException(e);
+        }
+        output.getOut().println();
+    }
+
+    //Lines are indented by two spaces for every level below the part
+    public void writeTableOfContents(Appendable output, BillFragment parent, Predicate<BillFragment> terminalPredicate, Predicate<String> contentPredicate) throws IOException {
+        new TableOfContentsRenderer(output, 2, terminalPredicate, contentPredicate).render(parent);
     }
     //</editor-fold>
 
@@ -0,0 +1,130 @@
+package com.farald.DocumentSystem;
+
+import com.farald.DocumentRepresentation.BillFragment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//Articles of a document in document order with their numbers, single articles and ranges are found with binary searches.
+//Searching is only possible when the articles follow each other in the order of their numbers.
+public class ArticleIndex {
+    private final List<BillFragment> articles;
+    private final List<ArticleNumber> articleNumbers;
+    private final boolean ordered;
+
+    public ArticleIndex(List<BillFragment> articles) {
+        this.articles = new ArrayList<>(articles);
+        this.articleNumbers = new ArrayList<>(articles.size());
+        boolean ordered = true;
+        for (BillFragment article : this.articles) {
+            ArticleNumber articleNumber = ArticleNumber.fromIdentifier(article.getIdentifier());
+            if (articleNumber == null || (!articleNumbers.isEmpty() && articleNumbers.get(articleNumbers.size() - 1).compareTo(articleNumber) > 0)) {
+                ordered = false;
+            }
+            articleNumbers.add(articleNumber);
+        }
+        this.ordered = ordered;
+    }
+
+    //Same articles as getPartsInRange uses: fragments with "Art." in their identifiers
+    public static ArticleIndex build(BillFragment root) {
+        if (root == null) {
+            throw new IllegalArgumentException("Root cannot be null.");
+        }
+        return new ArticleIndex(root.preOrderStream()
+                .filter((x) -> x.getIdentifier() != null && x.getIdentifier().contains("Art."))
+                .collect(Collectors.toList()));
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    public int size() {
+        return articles.size();
+    }
+
+    //First article with the number or the range including it, null if there is none
+    public BillFragment findArticle(String articleNumber) {
+        checkOrdered();
+        ArticleNumber searched = ArticleNumber.parse(articleNumber);
+        if (searched == null) {
+            return null;
+        }
+        int position = findFirstNotLower(searched);
+        //First number of a range sorts just before the range itself
+        if (position < articleNumbers.size()
+                && (articleNumbers.get(position).equals(searched) || articleNumbers.get(position).includes(searched))) {
+            return articles.get(position);
+        }
+        if (position > 0 && articleNumbers.get(position - 1).includes(searched)) {
+            return articles.get(position - 1);
+        }
+        return null;
+    }
+
+    //Articles from rangeStart to rangeEnd inclusive. Numbers without an article of their own
+    //are resolved to the nearest articles inside the range.
+    public List<BillFragment> findArticlesInRange(String rangeStart, String rangeEnd) {
+        checkOrdered();
+        ArticleNumber start = ArticleNumber.parse(rangeStart);
+        ArticleNumber end = ArticleNumber.parse(rangeEnd);
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("Wrong article number: " + (start == null ? rangeStart : rangeEnd));
+        }
+
+        int startPosition = findFirstNotLower(start);
+        if (startPosition > 0 && articleNumbers.get(startPosition - 1).includes(start)) {
+            startPosition--;
+        }
+        int endPosition = findFirstHigher(end) - 1;
+        if (endPosition + 1 < articleNumbers.size() && articleNumbers.get(endPosition + 1).includes(end)) {
+            endPosition++;
+        }
+        //Reversed neighbouring articles give an empty range, like sublists of the articles always did
+        boolean exactEnds = isArticleAt(startPosition, start) && isArticleAt(endPosition, end);
+        if (startPosition > endPosition + 1 || (startPosition == endPosition + 1 && !exactEnds)) {
+            throw new IllegalArgumentException("Couldn't find articles from " + rangeStart + " to " + rangeEnd);
+        }
+        return articles.subList(startPosition, endPosition + 1);
+    }
+
+    private boolean isArticleAt(int position, ArticleNumber articleNumber) {
+        return position >= 0 && position < articleNumbers.size() && articleNumbers.get(position).equals(articleNumber);
+    }
+
+    private void checkOrdered() {
+        if (!ordered) {
+            throw new IllegalStateException("Articles aren't ordered by their numbers.");
+        }
+    }
+
+    private int findFirstNotLower(ArticleNumber articleNumber) {
+        int low = 0;
+        int high = articleNumbers.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (articleNumbers.get(middle).compareTo(articleNumber) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int findFirstHigher(ArticleNumber articleNumber) {
+        int low = 0;
+        int high = articleNumbers.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (articleNumbers.get(middle).compareTo(articleNumber) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,113 @@
+package com.farald.DocumentSystem;
+
+import java.util.Objects;
+
+//Number of an article in a statute: "5", "5a" or a range of articles "103–104".
+//Ordered the way articles follow each other: 5 < 5a < 5b < 5i < 5ia < 5j < 6, an article added between 5i and 5j gets
+//letters after 5i. A range goes after a single article with its first number.
+public class ArticleNumber implements Comparable<ArticleNumber> {
+    private static final char RANGE_DASH = '–';
+
+    public final int number;
+    public final String letters;
+    //Same as number, unless the article is a range
+    public final int lastNumber;
+
+    public ArticleNumber(int number, String letters, int lastNumber) {
+        if (number < 0 || lastNumber < number) {
+            throw new IllegalArgumentException("Wrong article number: " + number + ", " + lastNumber);
+        }
+        if (letters == null || (!letters.isEmpty() && lastNumber != number)) {
+            throw new IllegalArgumentException("Range of articles can't have letters.");
+        }
+        this.number = number;
+        this.letters = letters;
+        this.lastNumber = lastNumber;
+    }
+
+    //Null if text isn't an article number
+    public static ArticleNumber parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        int numberEnd = skipDigits(text, 0);
+        if (numberEnd == 0 || numberEnd > 9) {
+            return null;
+        }
+        int number = Integer.parseInt(text.substring(0, numberEnd));
+        if (numberEnd < text.length() && text.charAt(numberEnd) == RANGE_DASH) {
+            int lastNumberEnd = skipDigits(text, numberEnd + 1);
+            if (lastNumberEnd == numberEnd + 1 || lastNumberEnd - numberEnd - 1 > 9 || lastNumberEnd != text.length()) {
+                return null;
+            }
+            int lastNumber = Integer.parseInt(text.substring(numberEnd + 1));
+            return lastNumber < number ? null : new ArticleNumber(number, "", lastNumber);
+        }
+        for (int i = numberEnd; i < text.length(); i++) {
+            if (text.charAt(i) < 'a' || text.charAt(i) > 'z') {
+                return null;
+            }
+        }
+        return new ArticleNumber(number, text.substring(numberEnd), number);
+    }
+
+    //Null unless the identifier is exactly "Art. <number>."
+    public static ArticleNumber fromIdentifier(String identifier) {
+        if (identifier == null || !identifier.startsWith("Art. ") || !identifier.endsWith(".") || identifier.length() < 7) {
+            return null;
+        }
+        return parse(identifier.substring(5, identifier.length() - 1));
+    }
+
+    private static int skipDigits(String text, int position) {
+        while (position < text.length() && text.charAt(position) >= '0' && text.charAt(position) <= '9') {
+            position++;
+        }
+        return position;
+    }
+
+    public boolean isRange() {
+        return lastNumber != number;
+    }
+
+    //Whether the article is a range including the given article
+    public boolean includes(ArticleNumber articleNumber) {
+        return isRange() && number <= articleNumber.number && articleNumber.lastNumber <= lastNumber;
+    }
+
+    public String toIdentifier() {
+        return "Art. " + this + ".";
+    }
+
+    @Override
+    public int compareTo(ArticleNumber other) {
+        if (number != other.number) {
+            return Integer.compare(number, other.number);
+        }
+        int lettersComparison = letters.compareTo(other.letters);
+        if (lettersComparison != 0) {
+            return lettersComparison;
+        }
+        return Integer.compare(lastNumber, other.lastNumber);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ArticleNumber that = (ArticleNumber) o;
+        return number == that.number &&
+                lastNumber == that.lastNumber &&
+                Objects.equals(letters, that.letters);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(number, letters, lastNumber);
+    }
+
+    @Override
+    public String toString() {
+        return isRange() ? number + String.valueOf(RANGE_DASH) + lastNumber : number + letters;
+    }
+}
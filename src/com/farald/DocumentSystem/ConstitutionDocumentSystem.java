@@ -3,6 +3,14 @@ package com.farald.DocumentSystem;
 import com.farald.Cleaner.CleanerRule;
 import com.farald.Cleaner.CleanerRuleType;
 import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentRepresentation.DocumentType;
+import com.farald.Lexer.ArticleSpec;
+import com.farald.Lexer.EnumerationSpec;
+import com.farald.Lexer.HeadingSpec;
+import com.farald.Lexer.IdentifierSpec;
+import com.farald.Lexer.IdentifierType;
+import com.farald.Lexer.TitleSpec;
 import com.farald.Parser.ParserRule;
 import com.farald.Parser.ParserRuleType;
 import com.martiansoftware.jsap.JSAPResult;
@@ -15,74 +23,94 @@ import java.util.function.Predicate;
 
 public class ConstitutionDocumentSystem extends PolishDocumentSystem {
     public ConstitutionDocumentSystem(String filepath) throws IOException {
-        super();
-        fillCleanerRules();
-        fillConstitutionParser();
-        readDocument(filepath);
-        cleaner.clearDocument(billDocument);
-        cleaner.connectBrokenWords(billDocument);
-        parser.parseDocument(billDocument);
-        fixPreamble();
+        this(readDocumentBuffer(filepath), new DocumentSystemOptions());
     }
 
     public ConstitutionDocumentSystem(List<String> fileLines) {
-        super();
+        this(fileLines, new DocumentSystemOptions());
+    }
+
+    public ConstitutionDocumentSystem(List<String> fileLines, DocumentSystemOptions options) {
+        this(DocumentBuffer.fromLines(fileLines), options);
+    }
+
+    public ConstitutionDocumentSystem(DocumentBuffer documentBuffer, DocumentSystemOptions options) {
+        super(options);
         fillCleanerRules();
         fillConstitutionParser();
-        readDocument(fileLines);
-        cleaner.clearDocument(billDocument);
-        cleaner.connectBrokenWords(billDocument);
-        parser.parseDocument(billDocument);
-        fixPreamble();
+        readDocument(documentBuffer);
+        processDocument(DocumentType.Constitution);
+    }
+
+    private ConstitutionDocumentSystem(ConstitutionDocumentSystem documentSystem) {
+        super(documentSystem);
     }
 
-    public void interpret(JSAPResult parsingResults) {
+    @Override
+    public DocumentType getDocumentType() {
+        return DocumentType.Constitution;
+    }
+
+    @Override
+    protected PolishDocumentSystem copyDocumentSystem() {
+        return new ConstitutionDocumentSystem(this);
+    }
+
+    public void interpret(JSAPResult parsingResults, QueryOutput output) {
         boolean showTableOfContents = parsingResults.getBoolean("showTableOfContents");
-        if (showTableOfContents) {
-            interpretTableOfContents(parsingResults);
+        if (parsingResults.getString("searchQuery") != null) {
+            interpretSearch(parsingResults, output);
+        } else if (showTableOfContents) {
+            interpretTableOfContents(parsingResults, output);
         } else {
-            interpretShowChapter(parsingResults);
+            interpretShowChapter(parsingResults, output);
         }
     }
 
-    private void interpretTableOfContents(JSAPResult parsingResults) {
-        String chapter = parsingResults.getString("chapter");
-        if (chapter == null) {
-            System.out.println(this.getTableOfContents());
+    private void interpretTableOfContents(JSAPResult parsingResults, QueryOutput output) {
+        String chapterNumber = parsingResults.getString("chapter");
+        if (chapterNumber == null) {
+            printTableOfContents(output, billDocument.getBillFragment(), getDocumentTerminalPredicate(), Objects::nonNull);
         } else {
+            BillFragment chapter;
             try {
-                System.out.println(this.getChapterTableOfContents(chapter));
+                chapter = getChapter(chapterNumber);
             } catch (IllegalArgumentException e) {
-                System.err.println("No such chapter.");
+                output.printError("No such chapter.");
+                return;
             }
+            printTableOfContents(output, chapter, getChapterTerminalPredicate(), Objects::nonNull);
         }
     }
 
-    private void interpretShowChapter(JSAPResult parsingResults) {
+    private void interpretShowChapter(JSAPResult parsingResults, QueryOutput output) {
         String chapterNumber = parsingResults.getString("chapter");
         if (chapterNumber == null) {
-            interpretShowArticleRange(parsingResults);
+            interpretShowArticleRange(parsingResults, output);
         } else{
+            BillFragment chapter;
             try {
-                System.out.println(this.getChapterContent(chapterNumber));
+                chapter = getChapter(chapterNumber);
             } catch (IllegalArgumentException e){
-                System.err.println("No such chapter.");
+                output.printError("No such chapter.");
+                return;
             }
+            output.printFragment(chapter);
         }
     }
 
-    protected void showArticleSpecifics(JSAPResult parsingResults) {
+    protected void showArticleSpecifics(JSAPResult parsingResults, QueryOutput output) {
         List<String> specifics = correctSpecifics(Arrays.asList(parsingResults.getStringArray("articleSpecifics")));
         String articleNumber = getArticleSpecific(specifics);
         String paragraphNumber = getParagraphSpecific(specifics);
         String pointNumber = getPointSpecific(specifics);
 
         if (articleNumber == null) {
-            System.err.println("Article number required.");
+            output.printError("Article number required.");
             return;
         }
 
-        showPoint(pointNumber, paragraphNumber, articleNumber);
+        showPoint(pointNumber, paragraphNumber, articleNumber, output);
     }
 
     private void fillCleanerRules() {
@@ -93,16 +121,23 @@ public class ConstitutionDocumentSystem extends PolishDocumentSystem {
     }
 
     private void fillConstitutionParser() {
-        ParserRule punkt = new ParserRule("((?m)^[0-9a-z]{3}\\))|((?m)^[0-9a-z]{2}\\))|((?m)^[0-9a-z]{1}\\))", ParserRuleType.Unlimited);
-        ParserRule punkt2 = new ParserRule("((?m)^[0-9a-z]{3}\\))|((?m)^[0-9a-z]{2}\\))|((?m)^[0-9a-z]{1}\\))", ParserRuleType.NoMatch);
+        //Identifier specs recognize the same identifiers as the patterns, they are used by the Lexer engine
+        IdentifierSpec punktSpec = new EnumerationSpec(IdentifierType.Point, true, true, 3, false, ')');
+        IdentifierSpec ustepSpec = new EnumerationSpec(IdentifierType.Paragraph, true, false, 3, true, '.');
+        IdentifierSpec artykulSpec = new ArticleSpec(new int[]{0, 1, 1, 1}, false);
+        IdentifierSpec tytulSpec = new TitleSpec();
+        IdentifierSpec rozdzialSpec = new HeadingSpec(IdentifierType.Chapter, "Rozdział ", true, 4, false);
+
+        ParserRule punkt = new ParserRule("((?m)^[0-9a-z]{3}\\))|((?m)^[0-9a-z]{2}\\))|((?m)^[0-9a-z]{1}\\))", ParserRuleType.Unlimited, punktSpec);
+        ParserRule punkt2 = new ParserRule("((?m)^[0-9a-z]{3}\\))|((?m)^[0-9a-z]{2}\\))|((?m)^[0-9a-z]{1}\\))", ParserRuleType.NoMatch, punktSpec);
         ParserRule ustep = new ParserRule("((?m)^[0-9]{3}[a-z]{1}\\.)|((?m)^[0-9]{3}\\.)" +
                 "|((?m)^[0-9]{2}[a-z]{1}\\.)|((?m)^[0-9]{2}\\.)" +
-                "|((?m)^[0-9]{1}[a-z]{1}\\.)|((?m)^[0-9]{1}\\.)", ParserRuleType.Unlimited);
+                "|((?m)^[0-9]{1}[a-z]{1}\\.)|((?m)^[0-9]{1}\\.)", ParserRuleType.Unlimited, ustepSpec);
         ParserRule artykul = new ParserRule("(Art.\\s[0-9]{3}[a-z]{1}\\.)|(Art.\\s[0-9]{3}\\.)" +
                 "|(Art.\\s[0-9]{2}[a-z]{1}\\.)|(Art.\\s[0-9]{2}\\.)" +
-                "|(Art.\\s[0-9]{1}[a-z]{1}\\.)|(Art.\\s[0-9]{1}\\.)", ParserRuleType.Unlimited);
-        ParserRule tytul = new ParserRule("(?m)^[A-Z\\W]+$", ParserRuleType.Unlimited);
-        ParserRule rozdzial = new ParserRule("(Rozdział [LCDMIVX]{4})|(Rozdział [LCDMIVX]{3})|(Rozdział [LCDMIVX]{2})|(Rozdział [LCDMIVX])", ParserRuleType.Unlimited);
+                "|(Art.\\s[0-9]{1}[a-z]{1}\\.)|(Art.\\s[0-9]{1}\\.)", ParserRuleType.Unlimited, artykulSpec);
+        ParserRule tytul = new ParserRule("(?m)^[A-Z\\W]+$", ParserRuleType.Unlimited, tytulSpec);
+        ParserRule rozdzial = new ParserRule("(Rozdział [LCDMIVX]{4})|(Rozdział [LCDMIVX]{3})|(Rozdział [LCDMIVX]{2})|(Rozdział [LCDMIVX])", ParserRuleType.Unlimited, rozdzialSpec);
         ParserRule preambula = new ParserRule("(Preambula)|(z dnia 2 kwietnia 1997 r.)", ParserRuleType.Limited, 1);
 
         ustep.addSubRule(punkt);
@@ -114,10 +149,15 @@ public class ConstitutionDocumentSystem extends PolishDocumentSystem {
         parser.addParserRule(rozdzial);
     }
 
+    @Override
+    protected void fixParsedDocument() {
+        fixPreamble();
+    }
+
     private void fixPreamble() {
-        BillFragment preamble = billDocument.getBillFragment().findFirstFragmentWithIdentifier("z dnia 2 kwietnia 1997 r.");
+        BillFragment preamble = findFragmentWithIdentifier(billDocument.getBillFragment(), "z dnia 2 kwietnia 1997 r.");
         if (preamble != null) {
-            preamble.setIdentifier("Preambuła");
+            billDocument.getFragmentIndex().changeIdentifier(preamble, "Preambuła");
         }
     }
 
@@ -128,15 +168,17 @@ public class ConstitutionDocumentSystem extends PolishDocumentSystem {
             throw new IllegalStateException("Document hasn't been parsed, yet.");
         }
 
-        Predicate<BillFragment> terminalPredicate = (BillFragment x) -> (x.getIdentifier() == null || x.getIdentifier().matches("[\\WA-Z]+") || x.getIdentifier().contains("Rozdział"));
-        Predicate<String> contentPredicate = Objects::nonNull;
-        return appendList(fragment.getTableOfContentsWithEndingPredicateAndContentPredicate(2, terminalPredicate, contentPredicate));
+        return getTableOfContentsForPart(fragment, getDocumentTerminalPredicate(), Objects::nonNull);
+    }
+
+    private Predicate<BillFragment> getDocumentTerminalPredicate() {
+        return (BillFragment x) -> (x.getIdentifier() == null || x.getIdentifier().matches("[\\WA-Z]+") || x.getIdentifier().contains("Rozdział"));
     }
 
     private BillFragment getChapter(String chapterNumber) {
         String chapterIdentifier = "Rozdział " + getRomanNumber(chapterNumber);
 
-        BillFragment chapter = billDocument.getBillFragment().findFirstFragmentWithIdentifier(chapterIdentifier);
+        BillFragment chapter = findFragmentWithIdentifier(billDocument.getBillFragment(), chapterIdentifier);
         if (chapter == null) {
             throw new IllegalArgumentException("Couldn't find: " + chapterIdentifier);
         }
@@ -162,8 +204,10 @@ public class ConstitutionDocumentSystem extends PolishDocumentSystem {
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Couldn't get table of contents. " + e);
         }
-        Predicate<BillFragment> terminalPredicate = (BillFragment x) -> (x.getIdentifier() != null && (x.getIdentifier().matches("[A-Z\\W]+") || x.getIdentifier().contains("Rozdział")));
-        Predicate<String> contentPredicate = Objects::nonNull;
-        return appendList(chapter.getTableOfContentsWithEndingPredicateAndContentPredicate(2, terminalPredicate, contentPredicate));
+        return getTableOfContentsForPart(chapter, getChapterTerminalPredicate(), Objects::nonNull);
+    }
+
+    private Predicate<BillFragment> getChapterTerminalPredicate() {
+        return (BillFragment x) -> (x.getIdentifier() != null && (x.getIdentifier().matches("[A-Z\\W]+") || x.getIdentifier().contains("Rozdział")));
     }
 }
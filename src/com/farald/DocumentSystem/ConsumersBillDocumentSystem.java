@@ -3,6 +3,13 @@ package com.farald.DocumentSystem;
 import com.farald.Cleaner.CleanerRule;
 import com.farald.Cleaner.CleanerRuleType;
 import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentRepresentation.DocumentType;
+import com.farald.Lexer.ArticleSpec;
+import com.farald.Lexer.EnumerationSpec;
+import com.farald.Lexer.HeadingSpec;
+import com.farald.Lexer.IdentifierSpec;
+import com.farald.Lexer.IdentifierType;
 import com.farald.Parser.ParserRule;
 import com.farald.Parser.ParserRuleType;
 import com.martiansoftware.jsap.JSAPResult;
@@ -14,72 +21,97 @@ import java.util.function.Predicate;
 
 public class ConsumersBillDocumentSystem extends PolishDocumentSystem {
     public ConsumersBillDocumentSystem(String filepath) throws IOException {
-        super();
-        readDocument(filepath);
-        fillCleanerRules();
-        fillConsumersParser();
-        cleaner.clearDocument(billDocument);
-        cleaner.connectBrokenWords(billDocument);
-        parser.parseDocument(billDocument);
+        this(readDocumentBuffer(filepath), new DocumentSystemOptions());
     }
 
     public ConsumersBillDocumentSystem(List<String> fileLines) {
-        super();
+        this(fileLines, new DocumentSystemOptions());
+    }
+
+    public ConsumersBillDocumentSystem(List<String> fileLines, DocumentSystemOptions options) {
+        this(DocumentBuffer.fromLines(fileLines), options);
+    }
+
+    public ConsumersBillDocumentSystem(DocumentBuffer documentBuffer, DocumentSystemOptions options) {
+        super(options);
         fillCleanerRules();
         fillConsumersParser();
-        readDocument(fileLines);
-        cleaner.clearDocument(billDocument);
-        cleaner.connectBrokenWords(billDocument);
-        parser.parseDocument(billDocument);
+        readDocument(documentBuffer);
+        processDocument(DocumentType.Bill);
+    }
+
+    private ConsumersBillDocumentSystem(ConsumersBillDocumentSystem documentSystem) {
+        super(documentSystem);
+    }
+
+    @Override
+    public DocumentType getDocumentType() {
+        return DocumentType.Bill;
     }
 
-    public void interpret(JSAPResult parsingResults) {
+    @Override
+    protected PolishDocumentSystem copyDocumentSystem() {
+        return new ConsumersBillDocumentSystem(this);
+    }
+
+    public void interpret(JSAPResult parsingResults, QueryOutput output) {
         boolean showTableOfContents = parsingResults.getBoolean("showTableOfContents");
-        if (showTableOfContents) {
-            interpretTableOfContents(parsingResults);
+        if (parsingResults.getString("searchQuery") != null) {
+            interpretSearch(parsingResults, output);
+        } else if (showTableOfContents) {
+            interpretTableOfContents(parsingResults, output);
         } else {
-            interpretShowSection(parsingResults);
+            interpretShowSection(parsingResults, output);
         }
     }
 
-    private void interpretTableOfContents(JSAPResult parsingResults) {
-        String section = parsingResults.getString("section");
-        if (section == null) {
-            System.out.println(this.getTableOfContents());
+    private void interpretTableOfContents(JSAPResult parsingResults, QueryOutput output) {
+        String sectionNumber = parsingResults.getString("section");
+        if (sectionNumber == null) {
+            printTableOfContents(output, billDocument.getBillFragment(), getTerminalPredicate(), getDocumentContentPredicate());
         } else {
+            BillFragment section;
             try {
-                System.out.println(this.getSectionTableOfContents(section));
+                section = getSection(sectionNumber);
             } catch (IllegalArgumentException e) {
-                System.err.println("No such section.");
+                output.printError("No such section.");
+                return;
             }
+            printTableOfContents(output, section, getTerminalPredicate(), (String x) -> true);
         }
     }
 
-    private void interpretShowSection(JSAPResult parsingResults) {
+    private void interpretShowSection(JSAPResult parsingResults, QueryOutput output) {
         String sectionNumber = parsingResults.getString("section");
         String chapterNumber = parsingResults.getString("chapter");
         if (sectionNumber == null) {
             if (chapterNumber == null) {
-                interpretShowArticleRange(parsingResults);
+                interpretShowArticleRange(parsingResults, output);
             } else {
-                System.err.println("Section numer required.");
+                output.printError("Section numer required.");
             }
         } else if (chapterNumber == null) {
+            BillFragment section;
             try {
-                System.out.println(this.getSectionContent(sectionNumber));
+                section = getSection(sectionNumber);
             } catch (IllegalArgumentException e) {
-                System.err.println("No such section.");
+                output.printError("No such section.");
+                return;
             }
+            output.printFragment(section);
         } else {
+            BillFragment chapter;
             try {
-                System.out.println(this.getChapterContent(sectionNumber, chapterNumber));
+                chapter = getChapter(sectionNumber, chapterNumber);
             } catch (IllegalArgumentException e) {
-                System.err.println("No such section or chapter.");
+                output.printError("No such section or chapter.");
+                return;
             }
+            output.printFragment(chapter);
         }
     }
 
-    protected void showArticleSpecifics(JSAPResult parsingResults) {
+    protected void showArticleSpecifics(JSAPResult parsingResults, QueryOutput output) {
         List<String> specifics = correctSpecifics(Arrays.asList(parsingResults.getStringArray("articleSpecifics")));
         String articleNumber = getArticleSpecific(specifics);
         String paragraphNumber = getParagraphSpecific(specifics);
@@ -87,26 +119,29 @@ public class ConsumersBillDocumentSystem extends PolishDocumentSystem {
         String letterNumber = getLetterSpecific(specifics);
 
         if (articleNumber == null) {
-            System.err.println("Article number required.");
+            output.printError("Article number required.");
             return;
         }
 
-        showLetter(letterNumber, pointNumber, paragraphNumber, articleNumber);
+        showLetter(letterNumber, pointNumber, paragraphNumber, articleNumber, output);
     }
 
-    protected void showLetter(String letterNumber, String pointNumber, String paragraphNumber, String articleNumber) {
+    protected void showLetter(String letterNumber, String pointNumber, String paragraphNumber, String articleNumber, QueryOutput output) {
         if (letterNumber != null) {
+            BillFragment letter;
             try {
                 if (paragraphNumber == null) {
-                    System.out.println(getLetterContent(articleNumber, pointNumber, letterNumber));
+                    letter = getLetter(articleNumber, pointNumber, letterNumber);
                 } else {
-                    System.out.println(getLetterContent(articleNumber, paragraphNumber, pointNumber, letterNumber));
+                    letter = getLetter(articleNumber, paragraphNumber, pointNumber, letterNumber);
                 }
             } catch (IllegalArgumentException e) {
-                System.err.println("No such letter.");
+                output.printError("No such letter.");
+                return;
             }
+            output.printFragment(letter);
         } else {
-            showPoint(pointNumber, paragraphNumber, articleNumber);
+            showPoint(pointNumber, paragraphNumber, articleNumber, output);
         }
     }
 
@@ -118,29 +153,39 @@ public class ConsumersBillDocumentSystem extends PolishDocumentSystem {
     }
 
     private void fillConsumersParser() {
-        ParserRule litera = new ParserRule("((?m)^[a-z]{3}\\))|((?m)^[a-z]{2}\\))|((?m)^[a-z]{1}\\))", ParserRuleType.Unlimited);
+        //Identifier specs recognize the same identifiers as the patterns, they are used by the Lexer engine
+        IdentifierSpec literaSpec = new EnumerationSpec(IdentifierType.Letter, false, true, 3, false, ')');
+        IdentifierSpec punktSpec = new EnumerationSpec(IdentifierType.Point, true, false, 3, true, ')');
+        IdentifierSpec ustepSpec = new EnumerationSpec(IdentifierType.Paragraph, true, false, 3, true, '.');
+        IdentifierSpec artykulSpec = new ArticleSpec(new int[]{0, 2, 2, 2}, true);
+        //Alternatives of artykul2 allow two letters only after three digits
+        IdentifierSpec artykul2Spec = new ArticleSpec(new int[]{0, 1, 1, 2}, true);
+        IdentifierSpec rozdzialSpec = new HeadingSpec(IdentifierType.Chapter, "Rozdział ", false, 4, false);
+        IdentifierSpec dzialSpec = new HeadingSpec(IdentifierType.Section, "DZIAŁ ", true, 4, true);
+
+        ParserRule litera = new ParserRule("((?m)^[a-z]{3}\\))|((?m)^[a-z]{2}\\))|((?m)^[a-z]{1}\\))", ParserRuleType.Unlimited, literaSpec);
         ParserRule punkt = new ParserRule("((?m)^[0-9]{3}[a-z]{1}\\))|((?m)^[0-9]{3}\\))" +
                 "|((?m)^[0-9]{2}[a-z]{1}\\))|((?m)^[0-9]{2}\\))" +
-                "|((?m)^[0-9]{1}[a-z]{1}\\))|((?m)^[0-9]{1}\\))", ParserRuleType.Unlimited);
+                "|((?m)^[0-9]{1}[a-z]{1}\\))|((?m)^[0-9]{1}\\))", ParserRuleType.Unlimited, punktSpec);
         ParserRule punkt2 = new ParserRule("((?m)^[0-9]{3}[a-z]{1}\\))|((?m)^[0-9]{3}\\))" +
                 "|((?m)^[0-9]{2}[a-z]{1}\\))|((?m)^[0-9]{2}\\))" +
-                "|((?m)^[0-9]{1}[a-z]{1}\\))|((?m)^[0-9]{1}\\))", ParserRuleType.NoMatch);
+                "|((?m)^[0-9]{1}[a-z]{1}\\))|((?m)^[0-9]{1}\\))", ParserRuleType.NoMatch, punktSpec);
         ParserRule ustep = new ParserRule("((?m)^[0-9]{3}[a-z]{1}\\.)|((?m)^[0-9]{3}\\.)" +
                 "|((?m)^[0-9]{2}[a-z]{1}\\.)|((?m)^[0-9]{2}\\.)" +
-                "|((?m)^[0-9]{1}[a-z]{1}\\.)|((?m)^[0-9]{1}\\.)", ParserRuleType.Unlimited);
+                "|((?m)^[0-9]{1}[a-z]{1}\\.)|((?m)^[0-9]{1}\\.)", ParserRuleType.Unlimited, ustepSpec);
         ParserRule artykul = new ParserRule("(Art.\\s[0-9]{3}–[0-9]{3}\\.)" +
                 "|(Art.\\s[0-9]{3}[a-z]{2}\\.)|(Art.\\s[0-9]{3}[a-z]{1}\\.)|(Art.\\s[0-9]{3}\\.)" +
                 "|(Art.\\s[0-9]{2}[a-z]{2}\\.)|(Art.\\s[0-9]{2}[a-z]{1}\\.)|(Art.\\s[0-9]{2}\\.)" +
-                "|(Art.\\s[0-9]{1}[a-z]{2}\\.)|(Art.\\s[0-9]{1}[a-z]{1}\\.)|(Art.\\s[0-9]{1}\\.)", ParserRuleType.Unlimited);
+                "|(Art.\\s[0-9]{1}[a-z]{2}\\.)|(Art.\\s[0-9]{1}[a-z]{1}\\.)|(Art.\\s[0-9]{1}\\.)", ParserRuleType.Unlimited, artykulSpec);
         ParserRule artykul2 = new ParserRule("(Art.\\s[0-9]{3}–[0-9]{3}\\.)" +
                 "|(Art.\\s[0-9]{3}[a-z]{2}\\.)|(Art.\\s[0-9]{3}[a-z]{1}\\.)|(Art.\\s[0-9]{3}\\.)" +
                 "|(Art.\\s[0-9]{3}[a-z]{2}\\.)|(Art.\\s[0-9]{2}[a-z]{1}\\.)|(Art.\\s[0-9]{2}\\.)" +
-                "|(Art.\\s[0-9]{3}[a-z]{2}\\.)|(Art.\\s[0-9]{1}[a-z]{1}\\.)|(Art.\\s[0-9]{1}\\.)", ParserRuleType.NoMatch);
-        ParserRule rozdzial = new ParserRule("(Rozdział [0-9]{4})|(Rozdział [0-9]{3})|(Rozdział [0-9]{2})|(Rozdział [0-9])", ParserRuleType.Unlimited);
+                "|(Art.\\s[0-9]{3}[a-z]{2}\\.)|(Art.\\s[0-9]{1}[a-z]{1}\\.)|(Art.\\s[0-9]{1}\\.)", ParserRuleType.NoMatch, artykul2Spec);
+        ParserRule rozdzial = new ParserRule("(Rozdział [0-9]{4})|(Rozdział [0-9]{3})|(Rozdział [0-9]{2})|(Rozdział [0-9])", ParserRuleType.Unlimited, rozdzialSpec);
         ParserRule dzial = new ParserRule("(DZIAŁ [LCDMIVX]{4}[A-Z]{1})|(DZIAŁ [LCDMIVX]{4})" +
                 "|(DZIAŁ [LCDMIVX]{3}[A-Z]{1})|(DZIAŁ [LCDMIVX]{3})" +
                 "|(DZIAŁ [LCDMIVX]{2}[A-Z]{1})|(DZIAŁ [LCDMIVX]{2})" +
-                "|(DZIAŁ [LCDMIVX]{1}[A-Z]{1})|(DZIAŁ [LCDMIVX]{1})", ParserRuleType.Unlimited);
+                "|(DZIAŁ [LCDMIVX]{1}[A-Z]{1})|(DZIAŁ [LCDMIVX]{1})", ParserRuleType.Unlimited, dzialSpec);
 
         punkt.addSubRule(litera);
         punkt2.addSubRule(litera);
@@ -162,15 +207,21 @@ public class ConsumersBillDocumentSystem extends PolishDocumentSystem {
             throw new IllegalStateException("Document hasn't been parsed, yet.");
         }
 
-        Predicate<BillFragment> terminalPredicate = (BillFragment x) -> (x.getIdentifier() == null || x.getIdentifier().contains("Rozdział") || x.getIdentifier().contains("DZIAŁ"));
-        Predicate<String> contentPredicate = (String x) -> x != null && x.replaceAll("([A-Z]+)|(\\W)+", "").length() < x.length();
-        return appendList(fragment.getTableOfContentsWithEndingPredicateAndContentPredicate(2, terminalPredicate, contentPredicate));
+        return getTableOfContentsForPart(fragment, getTerminalPredicate(), getDocumentContentPredicate());
+    }
+
+    private Predicate<BillFragment> getTerminalPredicate() {
+        return (BillFragment x) -> (x.getIdentifier() == null || x.getIdentifier().contains("Rozdział") || x.getIdentifier().contains("DZIAŁ"));
+    }
+
+    private Predicate<String> getDocumentContentPredicate() {
+        return (String x) -> x != null && x.replaceAll("([A-Z]+)|(\\W)+", "").length() < x.length();
     }
 
     public BillFragment getSection(String sectionNumber) {
         String sectionIdentifier = "DZIAŁ " + getRomanNumber(sectionNumber).toUpperCase();
 
-        BillFragment section = billDocument.getBillFragment().findFirstFragmentWithIdentifier(sectionIdentifier);
+        BillFragment section = findFragmentWithIdentifier(billDocument.getBillFragment(), sectionIdentifier);
         if (section == null) {
             throw new IllegalArgumentException("Couldn't find: " + sectionIdentifier);
         }
@@ -196,7 +247,7 @@ public class ConsumersBillDocumentSystem extends PolishDocumentSystem {
         }
         String chapterIdentifier = "Rozdział " + chapterNumber;
 
-        BillFragment chapter = section.findFirstFragmentWithIdentifier(chapterIdentifier);
+        BillFragment chapter = findFragmentWithIdentifier(section, chapterIdentifier);
         if (chapter == null) {
             throw new IllegalArgumentException("Couldn't find: " + chapterIdentifier);
         }
@@ -227,7 +278,7 @@ public class ConsumersBillDocumentSystem extends PolishDocumentSystem {
             throw new IllegalArgumentException("Couldn't find point: " + e);
         }
         String letterIdentifier = letterNumber + ")";
-        BillFragment letter = point.findFirstFragmentWithIdentifier(letterIdentifier);
+        BillFragment letter = findFragmentWithIdentifier(point, letterIdentifier);
         if (letter == null) {
             throw new IllegalArgumentException("Couldn't find: " + letterIdentifier);
         }
@@ -242,7 +293,7 @@ public class ConsumersBillDocumentSystem extends PolishDocumentSystem {
             throw new IllegalArgumentException("Couldn't find point: " + e);
         }
         String letterIdentifier = letterNumber + ")";
-        BillFragment letter = point.findFirstFragmentWithIdentifier(letterIdentifier);
+        BillFragment letter = findFragmentWithIdentifier(point, letterIdentifier);
         if (letter == null) {
             throw new IllegalArgumentException("Couldn't find: " + letterIdentifier);
         }
@@ -272,9 +323,7 @@ public class ConsumersBillDocumentSystem extends PolishDocumentSystem {
             throw new IllegalArgumentException("Couldn't get table of contents.");
         }
 
-        Predicate<BillFragment> terminalPredicate = (BillFragment x) -> (x.getIdentifier() == null || x.getIdentifier().contains("Rozdział") || x.getIdentifier().contains("DZIAŁ"));
-        Predicate<String> contentPredicate = (String x) -> true;
-        return appendList(section.getTableOfContentsWithEndingPredicateAndContentPredicate(2, terminalPredicate, contentPredicate));
+        return getTableOfContentsForPart(section, getTerminalPredicate(), (String x) -> true);
     }
 
     public String getSectionContent(String sectionNumber) {
@@ -0,0 +1,84 @@
+package com.farald.DocumentSystem;
+
+import com.farald.Parser.ParserEngineType;
+import com.farald.Parser.ParserProfile;
+import com.farald.Search.TextNormalizer;
+import com.farald.Snapshot.SnapshotCache;
+import com.farald.Statistics.PhaseStatistics;
+
+public class DocumentSystemOptions {
+    private SnapshotCache snapshotCache;
+    private ParserEngineType parserEngineType;
+    private boolean parallelParsing;
+    private PhaseStatistics phaseStatistics;
+    private ParserProfile parserProfile;
+    private TextNormalizer searchNormalizer;
+
+    public DocumentSystemOptions() {
+        snapshotCache = null;
+        parserEngineType = ParserEngineType.Recursive;
+        parallelParsing = false;
+        phaseStatistics = null;
+        parserProfile = null;
+        searchNormalizer = TextNormalizer.polish();
+    }
+
+    public SnapshotCache getSnapshotCache() {
+        return snapshotCache;
+    }
+
+    public void setSnapshotCache(SnapshotCache snapshotCache) {
+        this.snapshotCache = snapshotCache;
+    }
+
+    public ParserEngineType getParserEngineType() {
+        return parserEngineType;
+    }
+
+    public void setParserEngineType(ParserEngineType parserEngineType) {
+        if (parserEngineType == null) {
+            throw new IllegalArgumentException("Parser engine type cannot be null.");
+        }
+        this.parserEngineType = parserEngineType;
+    }
+
+    public boolean isParallelParsing() {
+        return parallelParsing;
+    }
+
+    //Large sibling subtrees are parsed at the same time in the common fork/join pool
+    public void setParallelParsing(boolean parallelParsing) {
+        this.parallelParsing = parallelParsing;
+    }
+
+    public PhaseStatistics getPhaseStatistics() {
+        return phaseStatistics;
+    }
+
+    //Phases of reading, processing and querying the documents are added to the statistics, null turns it off.
+    //Phases are emitted as Flight Recorder events either way.
+    public void setPhaseStatistics(PhaseStatistics phaseStatistics) {
+        this.phaseStatistics = phaseStatistics;
+    }
+
+    public ParserProfile getParserProfile() {
+        return parserProfile;
+    }
+
+    //Rule matching of every parsed document is counted into the profile, null turns profiling off
+    public void setParserProfile(ParserProfile parserProfile) {
+        this.parserProfile = parserProfile;
+    }
+
+    public TextNormalizer getSearchNormalizer() {
+        return searchNormalizer;
+    }
+
+    //Normalizes the words of the full text search index and of the search queries
+    public void setSearchNormalizer(TextNormalizer searchNormalizer) {
+        if (searchNormalizer == null) {
+            throw new IllegalArgumentException("Search normalizer cannot be null.");
+        }
+        this.searchNormalizer = searchNormalizer;
+    }
+}
@@ -1,7 +1,12 @@
 package com.farald.DocumentSystem;
 
 import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.DocumentBuffer;
 import com.farald.DocumentRepresentation.DocumentType;
+import com.farald.Search.FullTextIndex;
+import com.farald.Search.SearchResult;
+import com.farald.Statistics.Phase;
+import com.farald.Statistics.PhaseStatistics;
 import com.martiansoftware.jsap.JSAPResult;
 
 import java.util.ArrayList;
@@ -10,123 +15,235 @@ import java.util.List;
 import java.util.function.Predicate;
 
 public abstract class PolishDocumentSystem extends AbstractDocumentSystem {
+    private ArticleIndex articleIndex;
+    private BillFragment articleIndexRoot;
+    private FullTextIndex searchIndex;
+    private BillFragment searchIndexRoot;
+
     PolishDocumentSystem() {
         super();
     }
 
-    public static DocumentType checkDocumentType(List<String> documentLines) {
-        for (String line : documentLines) {
-            if (line.matches("KONSTYTUCJA")) {
+    PolishDocumentSystem(DocumentSystemOptions options) {
+        super(options);
+    }
+
+    PolishDocumentSystem(PolishDocumentSystem documentSystem) {
+        super(documentSystem);
+    }
+
+    public abstract DocumentType getDocumentType();
+
+    //Document system of the same type sharing the rules and the current document, see AbstractDocumentSystem
+    protected abstract PolishDocumentSystem copyDocumentSystem();
+
+    //New document system with the new edition of the document, which is parsed again only where its text changed.
+    //This document system and its tree aren't changed, so queries running on them can finish. A document of another
+    //type is processed from scratch.
+    public PolishDocumentSystem reload(DocumentBuffer documentBuffer) {
+        if (checkDocumentType(documentBuffer.getLineSequences()) != getDocumentType()) {
+            return create(documentBuffer, options);
+        }
+        PolishDocumentSystem documentSystem = copyDocumentSystem();
+        documentSystem.updateDocument(documentBuffer);
+        return documentSystem;
+    }
+
+    //Builds the indexes which are otherwise built on the first query, before queries share the document system
+    public void buildIndexes() {
+        getArticleIndex();
+        billDocument.getFragmentIndex();
+        getSearchIndex();
+    }
+
+    public static DocumentType checkDocumentType(List<? extends CharSequence> documentLines) {
+        for (CharSequence line : documentLines) {
+            if ("KONSTYTUCJA".contentEquals(line)) {
                 return DocumentType.Constitution;
             }
         }
-        for (String line : documentLines) {
-            if (line.matches("USTAWA")) {
+        for (CharSequence line : documentLines) {
+            if ("USTAWA".contentEquals(line)) {
                 return DocumentType.Bill;
             }
         }
         return DocumentType.Unknown;
     }
 
-    public abstract void interpret(JSAPResult parsingResults);
+    //Document system of the detected type, the document is cleaned and parsed
+    public static PolishDocumentSystem create(DocumentBuffer documentBuffer, DocumentSystemOptions options) {
+        switch (checkDocumentType(documentBuffer.getLineSequences())) {
+            case Constitution:
+                return new ConstitutionDocumentSystem(documentBuffer, options);
+            case Bill:
+                return new ConsumersBillDocumentSystem(documentBuffer, options);
+            default:
+                throw new IllegalArgumentException("Couldn't detect document type.");
+        }
+    }
+
+    //Name from the heading of the act, e.g. "USTAWA z dnia 16 lutego 2007 r. o ochronie konkurencji i konsumentów".
+    //Null if the document type isn't known.
+    public static String findActName(List<? extends CharSequence> documentLines) {
+        DocumentType documentType = checkDocumentType(documentLines);
+        if (documentType == DocumentType.Unknown) {
+            return null;
+        }
+        String typeLine = documentType == DocumentType.Constitution ? "KONSTYTUCJA" : "USTAWA";
+        int lineNumber = 0;
+        while (!typeLine.contentEquals(documentLines.get(lineNumber))) {
+            lineNumber++;
+        }
+
+        //Heading lines up to the date of the act, then the title of a bill, which starts with "o"
+        StringBuilder actName = new StringBuilder(typeLine);
+        int headingEnd = Math.min(documentLines.size(), lineNumber + 4);
+        boolean dateFound = false;
+        for (lineNumber++; lineNumber < headingEnd && !dateFound; lineNumber++) {
+            String line = documentLines.get(lineNumber).toString().trim();
+            actName.append(' ').append(line);
+            dateFound = line.startsWith("z dnia");
+        }
+        if (!dateFound) {
+            return typeLine;
+        }
+        if (lineNumber < documentLines.size() && documentLines.get(lineNumber).toString().startsWith("o ")) {
+            int titleEnd = Math.min(documentLines.size(), lineNumber + 5);
+            for (; lineNumber < titleEnd && !isStructureLine(documentLines.get(lineNumber)); lineNumber++) {
+                actName.append(' ').append(documentLines.get(lineNumber).toString().trim());
+            }
+        }
+        return actName.toString();
+    }
+
+    private static boolean isStructureLine(CharSequence line) {
+        String text = line.toString();
+        return text.startsWith("DZIAŁ") || text.startsWith("Rozdział") || text.startsWith("Art.");
+    }
+
+    public abstract void interpret(JSAPResult parsingResults, QueryOutput output);
+
+    protected void interpretSearch(JSAPResult parsingResults, QueryOutput output) {
+        List<SearchResult> results;
+        try {
+            results = search(parsingResults.getString("searchQuery"), parsingResults.getInt("searchLimit"));
+        } catch (IllegalArgumentException e) {
+            output.printError(e.getMessage());
+            return;
+        }
+        if (results.isEmpty()) {
+            output.printError("No matching fragments.");
+        }
+        for (SearchResult result : results) {
+            output.println(result.toString());
+        }
+    }
 
-    protected void interpretShowArticleRange(JSAPResult parsingResults) {
+    protected void interpretShowArticleRange(JSAPResult parsingResults, QueryOutput output) {
         String[] articlesNumbers = parsingResults.getStringArray("articles");
         if (articlesNumbers == null || articlesNumbers.length == 0) {
-            interpretShowArticle(parsingResults);
-        } else showArticleRange(parsingResults);
+            interpretShowArticle(parsingResults, output);
+        } else showArticleRange(parsingResults, output);
     }
 
-    protected void interpretShowArticle(JSAPResult parsingResults) {
+    protected void interpretShowArticle(JSAPResult parsingResults, QueryOutput output) {
         String articleNumber = parsingResults.getString("articleNumber");
         if (articleNumber == null) {
-            interpretShowArticleSpecifics(parsingResults);
-        } else showArticle(parsingResults);
+            interpretShowArticleSpecifics(parsingResults, output);
+        } else showArticle(parsingResults, output);
     }
 
-    protected void interpretShowArticleSpecifics(JSAPResult parsingResults) {
+    protected void interpretShowArticleSpecifics(JSAPResult parsingResults, QueryOutput output) {
         String[] articleSpecifics = parsingResults.getStringArray("articleSpecifics");
         if (articleSpecifics == null || articleSpecifics.length == 0) {
             //Show full document
-            System.out.println(this.billDocument.getBillFragment().getFragmentContentWithChildren());
+            output.printFragment(this.billDocument.getBillFragment());
         } else {
-            showArticleSpecifics(parsingResults);
+            showArticleSpecifics(parsingResults, output);
         }
     }
 
-    private void showArticleRange(JSAPResult parsingResults) {
+    private void showArticleRange(JSAPResult parsingResults, QueryOutput output) {
         String[] articles = parsingResults.getStringArray("articles");
         if (articles.length < 2) {
-            System.out.println("Not enough arguments to create range.");
+            output.println("Not enough arguments to create range.");
         }
-        List<String> articlesToPrint = new ArrayList<>();
+        List<BillFragment> articlesToPrint = new ArrayList<>();
         int articlesLength = articles.length;
         if (articlesLength % 2 == 1) {
             articlesLength--;
         }
         for (int i = 0; i < articlesLength; i += 2) {
             try {
-                articlesToPrint.addAll(this.getArticlesInRangeContents(articles[i], articles[i + 1]));
+                articlesToPrint.addAll(this.getArticlesInRange(articles[i], articles[i + 1]));
             } catch (IllegalArgumentException e) {
-                System.err.println("Given range is not valid.");
+                output.printError("Given range is not valid.");
                 return;
             }
         }
-        for (String article : articlesToPrint) {
-            System.out.println(article);
+        for (BillFragment article : articlesToPrint) {
+            output.printFragment(article);
         }
     }
 
-    private void showArticle(JSAPResult parsingResults) {
+    private void showArticle(JSAPResult parsingResults, QueryOutput output) {
         String articleNumber = parsingResults.getString("articleNumber");
+        BillFragment article;
         try {
-            System.out.println(getArticleContent(articleNumber));
+            article = getArticle(articleNumber);
         } catch (IllegalArgumentException e) {
-            System.err.println("No such article.");
+            output.printError("No such article.");
+            return;
         }
+        output.printFragment(article);
     }
 
-    protected abstract void showArticleSpecifics(JSAPResult parsingResults);
+    protected abstract void showArticleSpecifics(JSAPResult parsingResults, QueryOutput output);
 
-    protected void showPoint(String pointNumber, String paragraphNumber, String articleNumber) {
+    protected void showPoint(String pointNumber, String paragraphNumber, String articleNumber, QueryOutput output) {
         if (pointNumber != null && articleNumber != null) {
-            if (paragraphNumber != null) {
-                try {
-                    System.out.println(getPointContent(articleNumber, paragraphNumber, pointNumber));
-                } catch (IllegalArgumentException e) {
-                    System.err.println("No such point.");
-                }
-            } else {
-                try {
-                    System.out.println(getPointContent(articleNumber, pointNumber));
-                } catch (IllegalArgumentException e) {
-                    System.err.println("No such point.");
+            BillFragment point;
+            try {
+                if (paragraphNumber != null) {
+                    point = getPoint(articleNumber, paragraphNumber, pointNumber);
+                } else {
+                    point = getPoint(articleNumber, pointNumber);
                 }
+            } catch (IllegalArgumentException e) {
+                output.printError("No such point.");
+                return;
             }
+            output.printFragment(point);
         } else {
-            showParagraph(paragraphNumber, articleNumber);
+            showParagraph(paragraphNumber, articleNumber, output);
         }
     }
 
-    protected void showParagraph(String paragraphNumber, String articleNumber) {
+    protected void showParagraph(String paragraphNumber, String articleNumber, QueryOutput output) {
         if (paragraphNumber != null && articleNumber != null) {
+            BillFragment paragraph;
             try {
-                System.out.println(getParagraphContent(articleNumber, paragraphNumber));
+                paragraph = getParagraph(articleNumber, paragraphNumber);
             } catch (IllegalArgumentException e) {
-                System.err.println("No such paragraph.");
+                output.printError("No such paragraph.");
+                return;
             }
+            output.printFragment(paragraph);
         } else {
-            showArticle(articleNumber);
+            showArticle(articleNumber, output);
         }
     }
 
-    protected void showArticle(String articleNumber) {
+    protected void showArticle(String articleNumber, QueryOutput output) {
         if (articleNumber != null) {
+            BillFragment article;
             try {
-                System.out.println(getArticleContent(articleNumber));
+                article = getArticle(articleNumber);
             } catch (IllegalArgumentException e) {
-                System.err.println("No such article.");
+                output.printError("No such article.");
+                return;
             }
+            output.printFragment(article);
         }
     }
 
@@ -179,7 +296,43 @@ public abstract class PolishDocumentSystem extends AbstractDocumentSystem {
     public abstract String getTableOfContents();
 
     //<editor-fold desc="Document fragment retrievers">
+    //Articles of the current document tree, built on the first call
+    public synchronized ArticleIndex getArticleIndex() {
+        BillFragment root = billDocument.getBillFragment();
+        if (articleIndex == null || articleIndexRoot != root) {
+            articleIndex = ArticleIndex.build(root);
+            articleIndexRoot = root;
+        }
+        return articleIndex;
+    }
+
+    //Full text index of the current document tree, built on the first call
+    public synchronized FullTextIndex getSearchIndex() {
+        BillFragment root = billDocument.getBillFragment();
+        if (searchIndex == null || searchIndexRoot != root) {
+            Phase phase = Phase.start(PhaseStatistics.BUILD_SEARCH_INDEX, options.getPhaseStatistics());
+            searchIndex = FullTextIndex.build(root, options.getSearchNormalizer());
+            searchIndexRoot = root;
+            phase.finish(-1, searchIndex.getFragmentCount());
+        }
+        return searchIndex;
+    }
+
+    //Fragments with all words and phrases (in double quotes) of the query, the best ranked first
+    public List<SearchResult> search(String query, int limit) {
+        return getSearchIndex().search(query, limit);
+    }
+
     public BillFragment getArticle(String articleNumber) {
+        ArticleIndex articleIndex = getArticleIndex();
+        if (articleIndex.isOrdered()) {
+            BillFragment article = articleIndex.findArticle(articleNumber);
+            if (article == null) {
+                throw new IllegalArgumentException("Couldn't retrieve article. Couldn't find: Art. " + articleNumber + ".");
+            }
+            return article;
+        }
+
         List<BillFragment> article;
         try {
             article = getArticlesInRange(articleNumber, articleNumber);
@@ -189,7 +342,13 @@ public abstract class PolishDocumentSystem extends AbstractDocumentSystem {
         return article.get(0);
     }
 
+    //Missing numbers are resolved to the nearest articles inside the range, unless the articles are out of order
     public List<BillFragment> getArticlesInRange(String rangeStart, String rangeEnd) {
+        ArticleIndex articleIndex = getArticleIndex();
+        if (articleIndex.isOrdered()) {
+            return articleIndex.findArticlesInRange(rangeStart, rangeEnd);
+        }
+
         String rangeStartIdentifier = "Art. " + rangeStart + ".";
         String rangeEndIdentifier = "Art. " + rangeEnd + ".";
 
@@ -0,0 +1,76 @@
+package com.farald.DocumentSystem;
+
+import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.FragmentRenderer;
+import com.farald.Statistics.Phase;
+import com.farald.Statistics.PhaseStatistics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+//Destination of query results and error messages. Fragments are rendered straight into the results writer,
+//their text is never built as a whole. Like PrintWriter, writing errors are not thrown, see checkError.
+public class QueryOutput {
+    private final PrintWriter out;
+    private final PrintWriter err;
+    private final FragmentRenderer renderer;
+    private PhaseStatistics phaseStatistics;
+
+    public QueryOutput(Writer out, Writer err) {
+        if (out == null || err == null) {
+            throw new IllegalArgumentException("Output writers cannot be null.");
+        }
+        this.out = out instanceof PrintWriter ? (PrintWriter) out : new PrintWriter(out);
+        this.err = err instanceof PrintWriter ? (PrintWriter) err : new PrintWriter(err);
+        this.renderer = new FragmentRenderer(this.out);
+    }
+
+    //Results are buffered until flush, error messages are written at once
+    public static QueryOutput standardOutput() {
+        return new QueryOutput(new BufferedWriter(new OutputStreamWriter(System.out)), new OutputStreamWriter(System.err));
+    }
+
+    //Every printed fragment is a render phase
+    public void setPhaseStatistics(PhaseStatistics phaseStatistics) {
+        this.phaseStatistics = phaseStatistics;
+    }
+
+    public PrintWriter getOut() {
+        return out;
+    }
+
+    public void println(String line) {
+        out.println(line);
+    }
+
+    //Fragment text followed by an empty line, same as println of getFragmentContentWithChildren
+    public void printFragment(BillFragment fragment) {
+        Phase phase = Phase.start(PhaseStatistics.RENDER, phaseStatistics);
+        try {
+            renderer.render(fragment);
+        } catch (IOException e) {
+            //PrintWriter doesn't throw
+            throw new IllegalStateException(e);
+        }
+        out.println();
+        phase.finish(-1, phase.isRecorded() ? (int) fragment.preOrderStream().count() : -1);
+    }
+
+    public void printError(String message) {
+        out.flush();
+        err.println(message);
+        err.flush();
+    }
+
+    public void flush() {
+        out.flush();
+        err.flush();
+    }
+
+    public boolean checkError() {
+        return out.checkError() || err.checkError();
+    }
+}
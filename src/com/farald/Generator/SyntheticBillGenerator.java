@@ -0,0 +1,329 @@
+package com.farald.Generator;
+
+import com.frequal.romannumerals.Converter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//Writes synthetic bills of any size in the shape of the bundled ones: page headers with dates, act header,
+//DZIAŁ/Rozdział/Art. headings, paragraphs, points and letters, "(uchylony)" parts and words broken with hyphens.
+//The same options always give the same document. Numbers follow each other in the order the article index expects,
+//articles get letter suffixes (Art. 12, 12a, 12aa, ...) and sections get letter suffixes (IIIA) when there are many.
+public class SyntheticBillGenerator {
+    private static final int LINE_WIDTH = 80;
+    private static final int MAX_ARTICLE_NUMBER = 999;
+    //Sorted the same way as article letters are compared: "", a, aa, ..., az, b, ...
+    private static final int ARTICLE_SUFFIXES = 1 + 26 * 27;
+    //Letters which can't be taken for a part of the Roman number
+    private static final String SECTION_SUFFIXES = "ABEFGHJKNOPQRSTUWYZ";
+    private static final String PAGE_DATE = "2020-01-01";
+    private static final String[] WORDS = {
+            "ustawa", "określa", "zasady", "tryb", "organ", "właściwy", "przedsiębiorca", "konsument", "prezes",
+            "urzędu", "decyzja", "wniosek", "postępowanie", "przepis", "stosuje", "się", "do", "w", "na", "z", "oraz",
+            "lub", "albo", "także", "przez", "dla", "jeżeli", "który", "której", "których", "może", "powinien",
+            "zgodnie", "przypadku", "terminie", "dni", "od", "dnia", "doręczenia", "rynku", "właściwym", "ochrony",
+            "interesów", "publicznych", "porozumienia", "praktyki", "ograniczające", "konkurencję", "koncentracji",
+            "zgłoszenia", "kary", "pieniężnej", "wysokości", "obrotu", "roku", "rozliczeniowego", "poprzedzającego",
+            "nałożenia", "kontroli", "przedsiębiorstwa", "uprawnienia", "obowiązki", "stron", "sprawie", "wydaje",
+            "postanowienie", "zażalenie", "sądu", "ochrony", "konkurencji", "konsumentów", "informacji", "dokumentów",
+            "niezbędnych", "wykonania", "zadań", "rozporządzenia", "ministra", "właściwego", "spraw", "gospodarki",
+            "członków", "zarządu", "rady", "nadzorczej", "wspólników", "zgromadzeniu", "głosów", "większości"
+    };
+
+    private final SyntheticBillOptions options;
+
+    public SyntheticBillGenerator(SyntheticBillOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("Options cannot be null.");
+        }
+        this.options = options;
+    }
+
+    public List<String> generateLines() {
+        List<String> lines = new ArrayList<>();
+        try {
+            generate(lines::add);
+        } catch (IOException e) {
+            //Adding to a list doesn't throw
+            throw new UncheckedIOException(e);
+        }
+        return lines;
+    }
+
+    public void write(Writer writer) throws IOException {
+        generate((line) -> {
+            writer.write(line);
+            writer.write('\n');
+        });
+        writer.flush();
+    }
+
+    //The first pass only counts articles and sections, so that their numbers can be spread over the whole document
+    private void generate(LineSink output) throws IOException {
+        DocumentPass countingPass = new DocumentPass(options, (line) -> {
+        }, 1, 1);
+        countingPass.writeDocument();
+
+        int articlesPerNumber = (countingPass.articleCount + MAX_ARTICLE_NUMBER - 1) / MAX_ARTICLE_NUMBER;
+        if (articlesPerNumber > ARTICLE_SUFFIXES) {
+            throw new IllegalArgumentException("Too many articles, raise the depth, the fan-out or lower the target number of lines.");
+        }
+        int sectionsPerNumber = (countingPass.sectionCount + SectionNumbers.COUNT - 1) / SectionNumbers.COUNT;
+        if (sectionsPerNumber > SECTION_SUFFIXES.length() + 1) {
+            throw new IllegalArgumentException("Too many sections, raise chapters per section or articles per chapter.");
+        }
+
+        int pageCount = Math.max(1, (countingPass.bodyLines + options.getLinesPerPage() - 1) / options.getLinesPerPage());
+        LineSink pagedOutput = new LineSink() {
+            private int bodyLines = 0;
+
+            @Override
+            public void accept(String line) throws IOException {
+                if (bodyLines % options.getLinesPerPage() == 0) {
+                    output.accept("©Kancelaria Sejmu s. " + (bodyLines / options.getLinesPerPage() + 1) + "/" + pageCount);
+                    output.accept(PAGE_DATE);
+                }
+                bodyLines++;
+                output.accept(line);
+            }
+        };
+        new DocumentPass(options, pagedOutput, articlesPerNumber, sectionsPerNumber).writeDocument();
+    }
+
+    private interface LineSink {
+        void accept(String line) throws IOException;
+    }
+
+    //<editor-fold desc="Document pass">
+    //Random choices don't depend on the numbers, so passes with different numbering give the same lines
+    private static class DocumentPass {
+        private final SyntheticBillOptions options;
+        private final LineSink output;
+        private final int articlesPerNumber;
+        private final int sectionsPerNumber;
+        private final Random random;
+        private final int bodyTarget;
+        private int bodyLines;
+        private int articleCount;
+        private int sectionCount;
+
+        private DocumentPass(SyntheticBillOptions options, LineSink output, int articlesPerNumber, int sectionsPerNumber) {
+            this.options = options;
+            this.output = output;
+            this.articlesPerNumber = articlesPerNumber;
+            this.sectionsPerNumber = sectionsPerNumber;
+            this.random = new Random(options.getSeed());
+            //Two lines of every page are taken by the header
+            int linesPerPage = options.getLinesPerPage();
+            this.bodyTarget = (int) Math.max(1, ((long) options.getTargetLines() * linesPerPage + linesPerPage + 1) / (linesPerPage + 2));
+        }
+
+        private void writeDocument() throws IOException {
+            writeLine("Dz.U. 2020 poz. " + (1 + random.nextInt(2000)));
+            writeLine("USTAWA");
+            writeLine("z dnia " + (1 + random.nextInt(28)) + " stycznia 2020 r.");
+            writeLine("o " + getPhrase(3, 6));
+
+            while (bodyLines < bodyTarget) {
+                writeLine("DZIAŁ " + getSectionNumber(sectionCount++));
+                writeLine(capitalize(getPhrase(2, 5)));
+                for (int chapter = 1; chapter <= options.getChaptersPerSection() && bodyLines < bodyTarget; chapter++) {
+                    writeLine("Rozdział " + chapter);
+                    writeLine(capitalize(getPhrase(2, 5)));
+                    for (int article = 0; article < options.getArticlesPerChapter() && bodyLines < bodyTarget; article++) {
+                        writeArticle("Art. " + getArticleNumber(articleCount++) + ". ");
+                    }
+                }
+            }
+        }
+
+        private void writeArticle(String prefix) throws IOException {
+            if (isRepealed()) {
+                writeLine(prefix + "(uchylony)");
+                return;
+            }
+            if (options.getDepth() == 0) {
+                writeText(prefix, 6, 40, ".", true);
+                return;
+            }
+            for (int paragraph = 1; paragraph <= options.getFanOut(); paragraph++) {
+                writeParagraph((paragraph == 1 ? prefix : "") + paragraph + ". ");
+            }
+        }
+
+        private void writeParagraph(String prefix) throws IOException {
+            if (options.getDepth() == 1) {
+                writeText(prefix, 6, 40, ".", true);
+                return;
+            }
+            writeText(prefix, 5, 20, ":", true);
+            for (int point = 1; point <= options.getFanOut(); point++) {
+                writePoint(point + ") ", point == options.getFanOut() ? "." : ";");
+            }
+        }
+
+        private void writePoint(String prefix, String ending) throws IOException {
+            if (isRepealed()) {
+                writeLine(prefix + "(uchylony)");
+                return;
+            }
+            if (options.getDepth() == 2) {
+                writeText(prefix, 4, 25, ending, false);
+                return;
+            }
+            writeText(prefix, 4, 15, ":", false);
+            for (int letter = 0; letter < options.getFanOut(); letter++) {
+                writeText((char) ('a' + letter) + ") ", 3, 20, letter + 1 == options.getFanOut() ? ending : ",", false);
+            }
+        }
+
+        private boolean isRepealed() {
+            return random.nextDouble() < options.getRepealedFraction();
+        }
+
+        //Text is wrapped without the prefix, which keeps the lines of both passes the same
+        private void writeText(String prefix, int minWords, int maxWords, String ending, boolean sentence) throws IOException {
+            int wordCount = minWords + random.nextInt(maxWords - minWords + 1);
+            StringBuilder line = new StringBuilder(prefix);
+            int lineLength = 0;
+            for (int i = 0; i < wordCount; i++) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                if (i == 0 && sentence) {
+                    word = capitalize(word);
+                }
+                if (i + 1 == wordCount) {
+                    word += ending;
+                }
+                if (lineLength > 0 && lineLength + 1 + word.length() > LINE_WIDTH) {
+                    if (word.length() >= 6 && random.nextDouble() < options.getHyphenationFraction()) {
+                        int breakPosition = 2 + random.nextInt(word.length() - 3);
+                        line.append(' ').append(word, 0, breakPosition).append('-');
+                        word = word.substring(breakPosition);
+                    }
+                    writeLine(line.toString());
+                    line.setLength(0);
+                    lineLength = 0;
+                }
+                if (lineLength > 0) {
+                    line.append(' ');
+                    lineLength++;
+                }
+                line.append(word);
+                lineLength += word.length();
+            }
+            writeLine(line.toString());
+        }
+
+        private String getPhrase(int minWords, int maxWords) {
+            int wordCount = minWords + random.nextInt(maxWords - minWords + 1);
+            StringBuilder phrase = new StringBuilder();
+            for (int i = 0; i < wordCount; i++) {
+                if (i > 0) {
+                    phrase.append(' ');
+                }
+                phrase.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            return phrase.toString();
+        }
+
+        private static String capitalize(String text) {
+            return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+        }
+
+        private String getArticleNumber(int articleIndex) {
+            int number = articleIndex / articlesPerNumber + 1;
+            int suffix = articleIndex % articlesPerNumber;
+            if (suffix == 0) {
+                return Integer.toString(number);
+            }
+            //Suffix 1 is "a", 2 is "aa", 28 is "b"
+            int firstLetter = (suffix - 1) / 27;
+            int secondLetter = (suffix - 1) % 27;
+            String letters = String.valueOf((char) ('a' + firstLetter));
+            if (secondLetter > 0) {
+                letters += (char) ('a' + secondLetter - 1);
+            }
+            return number + letters;
+        }
+
+        private String getSectionNumber(int sectionIndex) {
+            String romanNumber = SectionNumbers.get(sectionIndex / sectionsPerNumber);
+            int suffix = sectionIndex % sectionsPerNumber;
+            return suffix == 0 ? romanNumber : romanNumber + SECTION_SUFFIXES.charAt(suffix - 1);
+        }
+
+        private void writeLine(String line) throws IOException {
+            bodyLines++;
+            output.accept(line);
+        }
+    }
+    //</editor-fold>
+
+    //Roman numbers the section rule recognizes, at most four characters long
+    private static class SectionNumbers {
+        private static final List<String> NUMBERS = findNumbers();
+        private static final int COUNT = NUMBERS.size();
+
+        private static List<String> findNumbers() {
+            Converter romanConverter = new Converter();
+            List<String> numbers = new ArrayList<>();
+            for (int number = 1; number < 4000; number++) {
+                String romanNumber = romanConverter.toRomanNumerals(number);
+                if (romanNumber.length() <= 4) {
+                    numbers.add(romanNumber);
+                }
+            }
+            return numbers;
+        }
+
+        //Counting pass goes over the numbers, its numbers aren't used
+        private static String get(int index) {
+            return NUMBERS.get(Math.min(index, COUNT - 1));
+        }
+    }
+
+    //Usage: SyntheticBillGenerator <lines> <output file or -> [depth] [fan-out] [seed]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SyntheticBillGenerator <lines> <output file or -> [depth] [fan-out] [seed]");
+            return;
+        }
+        SyntheticBillOptions options = new SyntheticBillOptions();
+        try {
+            options.setTargetLines(Integer.parseInt(args[0]));
+            if (args.length > 2) {
+                options.setDepth(Integer.parseInt(args[2]));
+            }
+            if (args.length > 3) {
+                options.setFanOut(Integer.parseInt(args[3]));
+            }
+            if (args.length > 4) {
+                options.setSeed(Long.parseLong(args[4]));
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Wrong number: " + e.getMessage());
+            return;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        SyntheticBillGenerator generator = new SyntheticBillGenerator(options);
+        try (Writer writer = "-".equals(args[1])
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+            generator.write(writer);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.farald.Generator;
+
+public class SyntheticBillOptions {
+    private int targetLines;
+    private int depth;
+    private int fanOut;
+    private int chaptersPerSection;
+    private int articlesPerChapter;
+    private int linesPerPage;
+    private double repealedFraction;
+    private double hyphenationFraction;
+    private long seed;
+
+    public SyntheticBillOptions() {
+        targetLines = 10_000;
+        depth = 3;
+        fanOut = 3;
+        chaptersPerSection = 8;
+        articlesPerChapter = 10;
+        linesPerPage = 45;
+        repealedFraction = 0.05;
+        hyphenationFraction = 0.15;
+        seed = 1;
+    }
+
+    public int getTargetLines() {
+        return targetLines;
+    }
+
+    //Document is at least this long, the last article can go over it
+    public void setTargetLines(int targetLines) {
+        if (targetLines < 1) {
+            throw new IllegalArgumentException("Target number of lines must be positive.");
+        }
+        this.targetLines = targetLines;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    //Levels below articles: 0 - text only, 1 - paragraphs, 2 - paragraphs with points, 3 - points with letters
+    public void setDepth(int depth) {
+        if (depth < 0 || depth > 3) {
+            throw new IllegalArgumentException("Depth must be between 0 and 3.");
+        }
+        this.depth = depth;
+    }
+
+    public int getFanOut() {
+        return fanOut;
+    }
+
+    //Paragraphs of an article, points of a paragraph and letters of a point
+    public void setFanOut(int fanOut) {
+        if (fanOut < 1 || fanOut > 26) {
+            throw new IllegalArgumentException("Fan-out must be between 1 and 26.");
+        }
+        this.fanOut = fanOut;
+    }
+
+    public int getChaptersPerSection() {
+        return chaptersPerSection;
+    }
+
+    public void setChaptersPerSection(int chaptersPerSection) {
+        if (chaptersPerSection < 1 || chaptersPerSection > 9999) {
+            throw new IllegalArgumentException("Chapters per section must be between 1 and 9999.");
+        }
+        this.chaptersPerSection = chaptersPerSection;
+    }
+
+    public int getArticlesPerChapter() {
+        return articlesPerChapter;
+    }
+
+    public void setArticlesPerChapter(int articlesPerChapter) {
+        if (articlesPerChapter < 1) {
+            throw new IllegalArgumentException("Articles per chapter must be positive.");
+        }
+        this.articlesPerChapter = articlesPerChapter;
+    }
+
+    public int getLinesPerPage() {
+        return linesPerPage;
+    }
+
+    //Lines of text between page headers
+    public void setLinesPerPage(int linesPerPage) {
+        if (linesPerPage < 10) {
+            throw new IllegalArgumentException("Page must have at least 10 lines.");
+        }
+        this.linesPerPage = linesPerPage;
+    }
+
+    public double getRepealedFraction() {
+        return repealedFraction;
+    }
+
+    //Fraction of articles and points replaced by "(uchylony)"
+    public void setRepealedFraction(double repealedFraction) {
+        if (!(repealedFraction >= 0 && repealedFraction <= 1)) {
+            throw new IllegalArgumentException("Repealed fraction must be between 0 and 1.");
+        }
+        this.repealedFraction = repealedFraction;
+    }
+
+    public double getHyphenationFraction() {
+        return hyphenationFraction;
+    }
+
+    //Fraction of line breaks which break a word with a hyphen
+    public void setHyphenationFraction(double hyphenationFraction) {
+        if (!(hyphenationFraction >= 0 && hyphenationFraction <= 1)) {
+            throw new IllegalArgumentException("Hyphenation fraction must be between 0 and 1.");
+        }
+        this.hyphenationFraction = hyphenationFraction;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+}
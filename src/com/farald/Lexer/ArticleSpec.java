@@ -0,0 +1,55 @@
+package com.farald.Lexer;
+
+//Article identifier: "Art. 12.", "Art. 12ab." or a range "Art. 123–125.".
+//Same as "Art.\s" followed by alternatives "[0-9]{n}[a-z]{k}\." for n from 3 down to 1, with k up to the limit for n.
+public class ArticleSpec extends IdentifierSpec {
+    private static final int MAX_DIGITS = 3;
+    private static final char RANGE_DASH = '\u2013';
+
+    //Letters allowed after a number of given length, index 0 is unused
+    private final int[] maxLetters;
+    private final boolean ranges;
+
+    public ArticleSpec(int[] maxLetters, boolean ranges) {
+        super(IdentifierType.Article, false);
+        if (maxLetters.length != MAX_DIGITS + 1) {
+            throw new IllegalArgumentException("Letter limit required for every number length.");
+        }
+        this.maxLetters = maxLetters.clone();
+        this.ranges = ranges;
+    }
+
+    @Override
+    public boolean canStartWith(char character) {
+        return character == 'A';
+    }
+
+    @Override
+    public int match(CharSequence text, int position, int end) {
+        //"Art" followed by any character but a line terminator and a white char
+        if (end - position < 5 || text.charAt(position) != 'A' || text.charAt(position + 1) != 'r' || text.charAt(position + 2) != 't'
+                || isLineTerminator(text.charAt(position + 3)) || !isWhiteChar(text.charAt(position + 4))) {
+            return -1;
+        }
+
+        int numberStart = position + 5;
+        int numberEnd = skipDigits(text, numberStart, end);
+        int numberLength = numberEnd - numberStart;
+        if (numberLength == 0 || numberLength > MAX_DIGITS || numberEnd == end) {
+            return -1;
+        }
+        if (ranges && numberLength == MAX_DIGITS && text.charAt(numberEnd) == RANGE_DASH) {
+            int rangeEnd = skipDigits(text, numberEnd + 1, end);
+            if (rangeEnd - numberEnd - 1 != MAX_DIGITS || rangeEnd == end || text.charAt(rangeEnd) != '.') {
+                return -1;
+            }
+            return rangeEnd + 1;
+        }
+
+        int lettersEnd = skipLowercaseLetters(text, numberEnd, end);
+        if (lettersEnd - numberEnd > maxLetters[numberLength] || lettersEnd == end || text.charAt(lettersEnd) != '.') {
+            return -1;
+        }
+        return lettersEnd + 1;
+    }
+}
@@ -0,0 +1,57 @@
+package com.farald.Lexer;
+
+//Enumeration at a line start: "1)", "2a)", "3.", "b)" and in the constitution also "1a)" or "ab)".
+//Same as alternatives "^[class]{n}[a-z]?terminator" for n from maxLength down to 1.
+public class EnumerationSpec extends IdentifierSpec {
+    private final boolean digits;
+    private final boolean letters;
+    private final int maxLength;
+    private final boolean letterSuffix;
+    private final char terminator;
+
+    //The number is made of digits, lowercase letters or both, the suffix is a single lowercase letter after it
+    public EnumerationSpec(IdentifierType type, boolean digits, boolean letters, int maxLength, boolean letterSuffix, char terminator) {
+        super(type, true);
+        if (!digits && !letters) {
+            throw new IllegalArgumentException("Number has to be made of digits or letters.");
+        }
+        if (maxLength <= 0) {
+            throw new IllegalArgumentException("Max length must be a positive number.");
+        }
+        this.digits = digits;
+        this.letters = letters;
+        this.maxLength = maxLength;
+        this.letterSuffix = letterSuffix;
+        this.terminator = terminator;
+    }
+
+    @Override
+    public boolean canStartWith(char character) {
+        return isNumberCharacter(character);
+    }
+
+    @Override
+    public int match(CharSequence text, int position, int end) {
+        int numberEnd = position;
+        while (numberEnd < end && isNumberCharacter(text.charAt(numberEnd))) {
+            numberEnd++;
+        }
+        //A longer number can't be cut, the character after the cut one isn't a terminator
+        if (numberEnd == position || numberEnd - position > maxLength || numberEnd == end) {
+            return -1;
+        }
+
+        char next = text.charAt(numberEnd);
+        if (next == terminator) {
+            return numberEnd + 1;
+        }
+        if (letterSuffix && isLowercaseLetter(next) && numberEnd + 1 < end && text.charAt(numberEnd + 1) == terminator) {
+            return numberEnd + 2;
+        }
+        return -1;
+    }
+
+    private boolean isNumberCharacter(char character) {
+        return (digits && isDigit(character)) || (letters && isLowercaseLetter(character));
+    }
+}
@@ -0,0 +1,61 @@
+package com.farald.Lexer;
+
+//Heading of a section or chapter: "DZIAŁ IVA", "Rozdział 12", "Rozdział XIII".
+//Same as "prefix" followed by alternatives "[number]{n}[A-Z]?" for n from maxLength down to 1,
+//a longer number is cut to maxLength characters.
+public class HeadingSpec extends IdentifierSpec {
+    private final String prefix;
+    private final boolean romanNumber;
+    private final int maxLength;
+    private final boolean letterSuffix;
+
+    public HeadingSpec(IdentifierType type, String prefix, boolean romanNumber, int maxLength, boolean letterSuffix) {
+        super(type, false);
+        if (prefix == null || prefix.isEmpty()) {
+            throw new IllegalArgumentException("Prefix cannot be empty.");
+        }
+        if (maxLength <= 0) {
+            throw new IllegalArgumentException("Max length must be a positive number.");
+        }
+        this.prefix = prefix;
+        this.romanNumber = romanNumber;
+        this.maxLength = maxLength;
+        this.letterSuffix = letterSuffix;
+    }
+
+    @Override
+    public boolean canStartWith(char character) {
+        return character == prefix.charAt(0);
+    }
+
+    @Override
+    public int match(CharSequence text, int position, int end) {
+        int prefixLength = prefix.length();
+        if (end - position <= prefixLength) {
+            return -1;
+        }
+        for (int i = 0; i < prefixLength; i++) {
+            if (text.charAt(position + i) != prefix.charAt(i)) {
+                return -1;
+            }
+        }
+
+        int numberStart = position + prefixLength;
+        int numberEnd = numberStart;
+        int numberLimit = Math.min(end, numberStart + maxLength);
+        while (numberEnd < numberLimit && isNumberCharacter(text.charAt(numberEnd))) {
+            numberEnd++;
+        }
+        if (numberEnd == numberStart) {
+            return -1;
+        }
+        if (letterSuffix && numberEnd < end && isUppercaseLetter(text.charAt(numberEnd))) {
+            numberEnd++;
+        }
+        return numberEnd;
+    }
+
+    private boolean isNumberCharacter(char character) {
+        return romanNumber ? isRomanDigit(character) : isDigit(character);
+    }
+}
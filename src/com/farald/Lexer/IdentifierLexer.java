@@ -0,0 +1,83 @@
+package com.farald.Lexer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Finds identifiers of all given specs in one walk over the text, without regular expressions.
+//Every spec continues after its own previous identifier, so identifiers of different specs may overlap.
+public class IdentifierLexer {
+    private static final int DISPATCH_TABLE_SIZE = 256;
+
+    private final IdentifierSpec[] specs;
+    //Specs which can start with a character, for the characters below the table size
+    private final int[][] specsByFirstCharacter;
+
+    public IdentifierLexer(List<IdentifierSpec> specs) {
+        this.specs = specs.toArray(new IdentifierSpec[0]);
+        for (IdentifierSpec spec : this.specs) {
+            if (spec == null) {
+                throw new IllegalArgumentException("Spec cannot be null.");
+            }
+        }
+
+        this.specsByFirstCharacter = new int[DISPATCH_TABLE_SIZE][];
+        List<Integer> candidates = new ArrayList<>();
+        for (int character = 0; character < DISPATCH_TABLE_SIZE; character++) {
+            candidates.clear();
+            for (int spec = 0; spec < this.specs.length; spec++) {
+                if (this.specs[spec].canStartWith((char) character)) {
+                    candidates.add(spec);
+                }
+            }
+            specsByFirstCharacter[character] = new int[candidates.size()];
+            for (int i = 0; i < candidates.size(); i++) {
+                specsByFirstCharacter[character][i] = candidates.get(i);
+            }
+        }
+    }
+
+    public int getSpecCount() {
+        return specs.length;
+    }
+
+    //Identifiers in [start, end) ordered by start position, then by spec
+    public List<IdentifierToken> tokenize(CharSequence text, int start, int end) {
+        if (start < 0 || end > text.length() || start > end) {
+            throw new IllegalArgumentException("Invalid text range: " + start + ", " + end);
+        }
+        List<IdentifierToken> tokens = new ArrayList<>();
+        int[] specEnds = new int[specs.length];
+
+        for (int position = start; position < end; position++) {
+            char character = text.charAt(position);
+            if (character < DISPATCH_TABLE_SIZE) {
+                int[] candidates = specsByFirstCharacter[character];
+                for (int spec : candidates) {
+                    tryMatch(spec, text, position, start, end, specEnds, tokens);
+                }
+            } else {
+                for (int spec = 0; spec < specs.length; spec++) {
+                    if (specs[spec].canStartWith(character)) {
+                        tryMatch(spec, text, position, start, end, specEnds, tokens);
+                    }
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private void tryMatch(int spec, CharSequence text, int position, int start, int end, int[] specEnds, List<IdentifierToken> tokens) {
+        IdentifierSpec identifierSpec = specs[spec];
+        if (position < specEnds[spec]) {
+            return;
+        }
+        if (identifierSpec.lineStartOnly && position > start && !IdentifierSpec.isLineStart(text, position)) {
+            return;
+        }
+        int identifierEnd = identifierSpec.match(text, position, end);
+        if (identifierEnd > position) {
+            tokens.add(new IdentifierToken(spec, identifierSpec.type, position, identifierEnd));
+            specEnds[spec] = identifierEnd;
+        }
+    }
+}
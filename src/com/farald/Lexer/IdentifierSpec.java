@@ -0,0 +1,87 @@
+package com.farald.Lexer;
+
+//Hand-written recognizer of one kind of identifier. It must find the same identifiers as the pattern of the rule
+//it is attached to would find in a fragment content, so the content end counts as the end of the text and of a line.
+public abstract class IdentifierSpec {
+    public final IdentifierType type;
+    //Identifiers starting only at line starts, the content start counts as a line start
+    public final boolean lineStartOnly;
+
+    protected IdentifierSpec(IdentifierType type, boolean lineStartOnly) {
+        if (type == null) {
+            throw new IllegalArgumentException("Identifier type cannot be null.");
+        }
+        this.type = type;
+        this.lineStartOnly = lineStartOnly;
+    }
+
+    public abstract boolean canStartWith(char character);
+
+    //End of the identifier starting at position, -1 if there is none
+    public abstract int match(CharSequence text, int position, int end);
+
+    //<editor-fold desc="Character classes">
+    protected static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+
+    protected static boolean isLowercaseLetter(char character) {
+        return character >= 'a' && character <= 'z';
+    }
+
+    protected static boolean isUppercaseLetter(char character) {
+        return character >= 'A' && character <= 'Z';
+    }
+
+    protected static boolean isRomanDigit(char character) {
+        return "LCDMIVX".indexOf(character) >= 0;
+    }
+
+    //Same as "\s"
+    protected static boolean isWhiteChar(char character) {
+        return character == ' ' || character == '\t' || character == '\n' || character == '\u000B'
+                || character == '\f' || character == '\r';
+    }
+
+    //Characters which "." doesn't match
+    protected static boolean isLineTerminator(char character) {
+        return character == '\n' || character == '\r' || character == '\u0085' || character == '\u2028' || character == '\u2029';
+    }
+
+    //Whether "(?m)$" matches at position, given the content end
+    protected static boolean isLineEnd(CharSequence text, int position, int end) {
+        if (position == end) {
+            return true;
+        }
+        char character = text.charAt(position);
+        if (character == '\n') {
+            return position == 0 || text.charAt(position - 1) != '\r';
+        }
+        return character == '\r' || character == '\u0085' || character == '\u2028' || character == '\u2029';
+    }
+
+    //Whether "(?m)^" matches at a position inside the content, after its start
+    protected static boolean isLineStart(CharSequence text, int position) {
+        char previous = text.charAt(position - 1);
+        if (previous == '\r') {
+            return text.charAt(position) != '\n';
+        }
+        return previous == '\n' || previous == '\u0085' || previous == '\u2028' || previous == '\u2029';
+    }
+
+    //End of the run of characters accepted by the class, starting at position
+    protected static int skipDigits(CharSequence text, int position, int end) {
+        while (position < end && isDigit(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    protected static int skipLowercaseLetters(CharSequence text, int position, int end) {
+        while (position < end && isLowercaseLetter(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+    //</editor-fold>
+}
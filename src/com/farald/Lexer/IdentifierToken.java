@@ -0,0 +1,16 @@
+package com.farald.Lexer;
+
+public class IdentifierToken {
+    //Position of the spec which recognized the identifier in the lexer specs
+    public final int spec;
+    public final IdentifierType type;
+    public final int start;
+    public final int end;
+
+    public IdentifierToken(int spec, IdentifierType type, int start, int end) {
+        this.spec = spec;
+        this.type = type;
+        this.start = start;
+        this.end = end;
+    }
+}
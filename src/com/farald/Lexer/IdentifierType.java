@@ -0,0 +1,5 @@
+package com.farald.Lexer;
+
+public enum IdentifierType {
+    Section, Chapter, Title, Article, Paragraph, Point, Letter
+}
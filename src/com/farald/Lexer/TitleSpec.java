@@ -0,0 +1,34 @@
+package com.farald.Lexer;
+
+//Title written in capital letters, taking whole lines. Same as "(?m)^[A-Z\W]+$".
+public class TitleSpec extends IdentifierSpec {
+    public TitleSpec() {
+        super(IdentifierType.Title, true);
+    }
+
+    @Override
+    public boolean canStartWith(char character) {
+        return isTitleCharacter(character);
+    }
+
+    @Override
+    public int match(CharSequence text, int position, int end) {
+        int titleEnd = position;
+        while (titleEnd < end && isTitleCharacter(text.charAt(titleEnd))) {
+            titleEnd++;
+        }
+        //Title characters include line terminators, the longest run is cut back to the last line end
+        while (titleEnd > position) {
+            if (isLineEnd(text, titleEnd, end)) {
+                return titleEnd;
+            }
+            titleEnd--;
+        }
+        return -1;
+    }
+
+    //Capital letters and anything "\W" accepts, which is everything but "[a-z0-9_]" without the capital letters
+    private static boolean isTitleCharacter(char character) {
+        return !isLowercaseLetter(character) && !isDigit(character) && character != '_';
+    }
+}
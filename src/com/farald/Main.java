@@ -1,21 +1,47 @@
 package com.farald;
 
+import com.farald.Batch.BatchQueryRunner;
+import com.farald.Corpus.CorpusFileReport;
+import com.farald.Corpus.CorpusLoader;
+import com.farald.Corpus.DocumentWatcher;
+import com.farald.Corpus.DocumentRegistry;
+import com.farald.DocumentRepresentation.DocumentBuffer;
 import com.farald.DocumentSystem.AbstractDocumentSystem;
-import com.farald.DocumentSystem.ConstitutionDocumentSystem;
-import com.farald.DocumentSystem.ConsumersBillDocumentSystem;
+import com.farald.DocumentSystem.DocumentSystemOptions;
 import com.farald.DocumentSystem.PolishDocumentSystem;
+import com.farald.Parser.ParserEngineType;
+import com.farald.Parser.ParserProfile;
+import com.farald.Search.TextNormalizer;
+import com.farald.Server.QueryServer;
+import com.farald.Snapshot.SnapshotCache;
+import com.farald.Statistics.Phase;
+import com.farald.Statistics.PhaseStatistics;
 import com.martiansoftware.jsap.*;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Main {
 
     public static void main(String[] args) {
-        JSAP jsap = new JSAP();
+        JSAP jsap;
         JSAPResult results;
         try {
-            fillOptionsForJsapParser(jsap);
+            jsap = createJsapParser();
         } catch (JSAPException e) {
             System.err.println("Couldn't add options to parser.");
             return;
@@ -42,24 +68,66 @@ public class Main {
             System.err.println("No file path specified.");
             return;
         }
-        List<String> fileLines;
+        DocumentSystemOptions options;
         try {
-            fileLines = AbstractDocumentSystem.readFile(filePath);
-        } catch (IOException e) {
-            System.err.println("Couldn't read file.");
+            options = createDocumentSystemOptions(results);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        if (results.contains("servePort")) {
+            serve(results, options);
             return;
         }
-        switch (PolishDocumentSystem.checkDocumentType(fileLines)) {
-            case Constitution:
-                interpretConstitution(fileLines, results);
-                break;
-            case Bill:
-                interpretBill(fileLines, results);
-                break;
-            case Unknown:
-                System.err.println("Couldn't detect document type.");
-                break;
+        PolishDocumentSystem documentSystem;
+        if (Files.isDirectory(Paths.get(filePath))) {
+            DocumentRegistry documentRegistry = loadCorpus(filePath, options);
+            if (documentRegistry == null) {
+                return;
+            }
+            String documentName = results.getString("documentName");
+            if (documentName == null) {
+                printDocumentList(documentRegistry);
+                printStatistics(options);
+                return;
+            }
+            String fileName = documentRegistry.resolve(documentName);
+            if (fileName == null) {
+                System.err.println("No such document or it's ambiguous: " + documentName);
+                return;
+            }
+            filePath = Paths.get(filePath, fileName).toString();
+            documentSystem = documentRegistry.get(fileName);
+        } else {
+            DocumentBuffer documentBuffer;
+            try {
+                Phase readPhase = Phase.start(PhaseStatistics.READ_FILE, options.getPhaseStatistics());
+                documentBuffer = AbstractDocumentSystem.readDocumentBuffer(filePath);
+                readPhase.finish(documentBuffer.getLineSequences().size(), -1);
+            } catch (IOException e) {
+                System.err.println("Couldn't read file.");
+                return;
+            }
+            try {
+                documentSystem = PolishDocumentSystem.create(documentBuffer, options);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                return;
+            }
         }
+        if (results.contains("batchFile")) {
+            runBatch(results, filePath, documentSystem);
+        } else {
+            documentSystem.interpret(results);
+        }
+        printStatistics(options);
+    }
+
+    //Parser of the command line, also used for queries sent to the server
+    public static JSAP createJsapParser() throws JSAPException {
+        JSAP jsap = new JSAP();
+        fillOptionsForJsapParser(jsap);
+        return jsap;
     }
 
     private static void fillOptionsForJsapParser(JSAP parser) throws JSAPException {
@@ -73,7 +141,7 @@ public class Main {
                 .setStringParser(JSAP.STRING_PARSER)
                 .setRequired(true);
 
-        fileOption.setHelp("Open file specified by given filepath. The type of document (Constitution|Bill) is detected automatically.");
+        fileOption.setHelp("Open file specified by given filepath. The type of document (Constitution|Bill) is detected automatically. If it's a directory, all of its files are loaded at the same time and the loading report is shown.");
 
         Switch modeOption = new Switch("showTableOfContents")
                 .setShortFlag('T')
@@ -111,6 +179,79 @@ public class Main {
 
         sectionOption.setHelp("Show section with specified number.");
 
+        FlaggedOption searchOption = new FlaggedOption("searchQuery")
+                .setStringParser(JSAP.STRING_PARSER)
+                .setLongFlag("search");
+
+        searchOption.setHelp("Show the fragments (articles, paragraphs, points, letters) containing all words of the query, best matches first, with their paths and snippets. Words in double quotes are a phrase. Words are compared without case and Polish inflectional suffixes.");
+
+        FlaggedOption searchLimitOption = new FlaggedOption("searchLimit")
+                .setStringParser(JSAP.INTEGER_PARSER)
+                .setDefault("10")
+                .setLongFlag("search-limit");
+
+        searchLimitOption.setHelp("Maximal number of search results.");
+
+        Switch foldDiacriticsOption = new Switch("foldDiacritics")
+                .setLongFlag("fold-diacritics");
+
+        foldDiacriticsOption.setHelp("Search ignoring Polish diacritics, e.g. \"konsumentow\" finds \"konsumentów\".");
+
+        Switch noSnapshotOption = new Switch("noSnapshot")
+                .setLongFlag("no-snapshot");
+
+        noSnapshotOption.setHelp("Always parse the document instead of loading its parsed snapshot.");
+
+        FlaggedOption snapshotDirectoryOption = new FlaggedOption("snapshotDirectory")
+                .setStringParser(JSAP.STRING_PARSER)
+                .setLongFlag("snapshot-dir");
+
+        snapshotDirectoryOption.setHelp("Directory for parsed document snapshots, it has to be owned by the current user and not writable by others. $XDG_CACHE_HOME/bills-interpreter or ~/.cache/bills-interpreter is used by default.");
+
+        FlaggedOption parserEngineOption = new FlaggedOption("parserEngine")
+                .setStringParser(JSAP.STRING_PARSER)
+                .setLongFlag("parser-engine");
+
+        parserEngineOption.setHelp("Parser engine (Recursive|CombinedLevels|GlobalMatch|Lexer). All engines give the same document structure, Recursive is used by default.");
+
+        Switch parallelParsingOption = new Switch("parallelParsing")
+                .setLongFlag("parallel-parse");
+
+        parallelParsingOption.setHelp("Parse large sibling parts of the document (sections, chapters) at the same time.");
+
+        Switch statisticsOption = new Switch("showStatistics")
+                .setLongFlag("stats");
+
+        statisticsOption.setHelp("Show wall time, allocated memory, line and fragment counts of every phase (reading, cleaning, parsing, querying, rendering) on the error output. Phases are also emitted as Flight Recorder events (com.farald.DocumentPhase), with or without this option.");
+
+        Switch profileRulesOption = new Switch("profileRules")
+                .setLongFlag("profile-rules");
+
+        profileRulesOption.setHelp("Parse the document (snapshots aren't used) counting find calls, matches, scanned characters, time and NoMatch fallbacks of every parser rule, then show them on the error output, most expensive rules first.");
+
+        FlaggedOption serveOption = new FlaggedOption("servePort")
+                .setStringParser(JSAP.INTEGER_PARSER)
+                .setLongFlag("serve");
+
+        serveOption.setHelp("Load the documents once and answer queries at http://127.0.0.1:<port>/query until stopped. Arguments after the file path are paths of further documents or directories, documents are addressed by file or act name.");
+
+        Switch watchOption = new Switch("watchDocuments")
+                .setLongFlag("watch");
+
+        watchOption.setHelp("With --serve, reload a document in the background when its file changes, only the changed parts are parsed again. Queries already running finish on the previous version, a version which can't be parsed isn't loaded. Reload counts, failures and durations are shown at http://127.0.0.1:<port>/metrics.");
+
+        FlaggedOption batchOption = new FlaggedOption("batchFile")
+                .setStringParser(JSAP.STRING_PARSER)
+                .setLongFlag("batch");
+
+        batchOption.setHelp("Run queries from the file (- for standard input) against one parse of the document, one query per line in the syntax of the options above. Results are written in the input order, each after a \"### <line>: <query>\" header, with errors as \"ERROR: <message>\" lines.");
+
+        FlaggedOption documentOption = new FlaggedOption("documentName")
+                .setStringParser(JSAP.STRING_PARSER)
+                .setLongFlag("document");
+
+        documentOption.setHelp("Query the document of the loaded directory with given file name (extension can be left out) or act name (or its unique part). Without it the loaded documents are listed.");
+
         UnflaggedOption showSpecific = new UnflaggedOption("articleSpecifics")
                 .setGreedy(true);
 
@@ -124,19 +265,238 @@ public class Main {
             parser.registerParameter(articlesOption);
             parser.registerParameter(chapterOption);
             parser.registerParameter(sectionOption);
+            parser.registerParameter(searchOption);
+            parser.registerParameter(searchLimitOption);
+            parser.registerParameter(foldDiacriticsOption);
+            parser.registerParameter(noSnapshotOption);
+            parser.registerParameter(snapshotDirectoryOption);
+            parser.registerParameter(parserEngineOption);
+            parser.registerParameter(parallelParsingOption);
+            parser.registerParameter(statisticsOption);
+            parser.registerParameter(profileRulesOption);
+            parser.registerParameter(serveOption);
+            parser.registerParameter(watchOption);
+            parser.registerParameter(batchOption);
+            parser.registerParameter(documentOption);
             parser.registerParameter(showSpecific);
         } catch (JSAPException e) {
             throw new JSAPException("Couldn't add options.");
         }
     }
 
-    private static void interpretConstitution(List<String> fileLines, JSAPResult parsingResults) {
-        ConstitutionDocumentSystem constitutionDocumentSystem = new ConstitutionDocumentSystem(fileLines);
-        constitutionDocumentSystem.interpret(parsingResults);
+    private static DocumentSystemOptions createDocumentSystemOptions(JSAPResult parsingResults) {
+        DocumentSystemOptions options = new DocumentSystemOptions();
+        //Rules can only be profiled while the document is parsed, snapshots would skip parsing
+        if (parsingResults.getBoolean("profileRules")) {
+            options.setParserProfile(new ParserProfile());
+        } else if (!parsingResults.getBoolean("noSnapshot")) {
+            String snapshotDirectory = parsingResults.getString("snapshotDirectory");
+            if (snapshotDirectory == null) {
+                options.setSnapshotCache(SnapshotCache.inDefaultDirectory());
+            } else {
+                options.setSnapshotCache(new SnapshotCache(Paths.get(snapshotDirectory)));
+            }
+        }
+        String parserEngine = parsingResults.getString("parserEngine");
+        if (parserEngine != null) {
+            options.setParserEngineType(getParserEngineType(parserEngine));
+        }
+        options.setParallelParsing(parsingResults.getBoolean("parallelParsing"));
+        if (parsingResults.getBoolean("showStatistics")) {
+            options.setPhaseStatistics(new PhaseStatistics());
+        }
+        if (parsingResults.getBoolean("foldDiacritics")) {
+            options.setSearchNormalizer(new TextNormalizer(true, true));
+        }
+        return options;
+    }
+
+    private static void printStatistics(DocumentSystemOptions options) {
+        PhaseStatistics statistics = options.getPhaseStatistics();
+        ParserProfile parserProfile = options.getParserProfile();
+        if (statistics == null && parserProfile == null) {
+            return;
+        }
+        //Results are flushed by now, the report comes after them
+        try {
+            StringBuilder report = new StringBuilder();
+            if (statistics != null) {
+                statistics.writeReport(report);
+            }
+            if (parserProfile != null) {
+                parserProfile.writeTable(report);
+            }
+            System.err.print(report);
+            System.err.flush();
+        } catch (IOException e) {
+            //StringBuilder doesn't throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ParserEngineType getParserEngineType(String parserEngine) {
+        for (ParserEngineType engineType : ParserEngineType.values()) {
+            if (engineType.name().equalsIgnoreCase(parserEngine)) {
+                return engineType;
+            }
+        }
+        throw new IllegalArgumentException("Unknown parser engine: " + parserEngine);
+    }
+
+    //<editor-fold desc="Corpus mode">
+    //Null if the directory couldn't be read, files which failed to load are only reported
+    private static DocumentRegistry loadCorpus(String directoryPath, DocumentSystemOptions options) {
+        List<Path> files;
+        try {
+            files = CorpusLoader.listCorpusFiles(Paths.get(directoryPath));
+        } catch (IOException e) {
+            System.err.println("Couldn't read directory.");
+            return null;
+        }
+        DocumentRegistry documentRegistry = new DocumentRegistry();
+        if (loadCorpusFiles(files, options, true, documentRegistry) == null) {
+            return null;
+        }
+        return documentRegistry;
+    }
+
+    //Reports of all the files, null if loading was interrupted
+    private static List<CorpusFileReport> loadCorpusFiles(List<Path> files, DocumentSystemOptions options, boolean mappingFiles,
+                                                          DocumentRegistry documentRegistry) {
+        CorpusLoader corpusLoader = new CorpusLoader(options, Runtime.getRuntime().availableProcessors());
+        corpusLoader.setMappingFiles(mappingFiles);
+        long loadStart = System.nanoTime();
+        List<CorpusFileReport> reports;
+        try {
+            reports = corpusLoader.load(files, documentRegistry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        long loadNanos = System.nanoTime() - loadStart;
+
+        int failedCount = 0;
+        for (CorpusFileReport report : reports) {
+            System.err.println(report);
+            if (!report.isLoaded()) {
+                failedCount++;
+            }
+        }
+        System.err.println(String.format("Loaded %d of %d files in %.1f ms, %d failed.",
+                documentRegistry.size(), reports.size(), loadNanos / 1e6, failedCount));
+        return reports;
+    }
+
+    private static void printDocumentList(DocumentRegistry documentRegistry) {
+        for (String fileName : documentRegistry.getFileNames()) {
+            String actName = documentRegistry.getActName(fileName);
+            System.out.println(actName == null ? fileName : fileName + "\t" + actName.replace('\n', ' '));
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Batch mode">
+    private static void runBatch(JSAPResult parsingResults, String filePath, PolishDocumentSystem documentSystem) {
+        String batchFile = parsingResults.getString("batchFile");
+        BatchQueryRunner batchQueryRunner;
+        try {
+            batchQueryRunner = new BatchQueryRunner(createJsapParser(), filePath, documentSystem, Runtime.getRuntime().availableProcessors());
+        } catch (JSAPException e) {
+            System.err.println("Couldn't add options to parser.");
+            return;
+        }
+
+        Writer output = new BufferedWriter(new OutputStreamWriter(System.out));
+        try (BufferedReader queries = "-".equals(batchFile)
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(batchFile), StandardCharsets.UTF_8)) {
+            batchQueryRunner.run(queries, output);
+        } catch (IOException | InvalidPathException e) {
+            System.err.println("Couldn't read batch queries.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Server mode">
+    private static void serve(JSAPResult parsingResults, DocumentSystemOptions options) {
+        List<String> documentPaths = new ArrayList<>();
+        documentPaths.add(parsingResults.getString("filepath"));
+        String[] furtherPaths = parsingResults.getStringArray("articleSpecifics");
+        if (furtherPaths != null) {
+            documentPaths.addAll(Arrays.asList(furtherPaths));
+        }
+
+        //Directories are replaced by their files
+        List<Path> files = new ArrayList<>();
+        for (String documentPath : documentPaths) {
+            try {
+                Path path = Paths.get(documentPath);
+                if (Files.isDirectory(path)) {
+                    files.addAll(CorpusLoader.listCorpusFiles(path));
+                } else {
+                    files.add(path);
+                }
+            } catch (IOException | InvalidPathException e) {
+                System.err.println("Couldn't read directory: " + documentPath);
+                return;
+            }
+        }
+        DocumentRegistry documentRegistry = new DocumentRegistry();
+        List<CorpusFileReport> reports = loadCorpusFiles(files, options, !parsingResults.getBoolean("watchDocuments"), documentRegistry);
+        if (reports == null || documentRegistry.size() == 0) {
+            return;
+        }
+
+        QueryServer queryServer;
+        try {
+            queryServer = new QueryServer(createJsapParser(), documentRegistry);
+        } catch (JSAPException e) {
+            System.err.println("Couldn't add options to parser.");
+            return;
+        }
+
+        DocumentWatcher documentWatcher = null;
+        if (parsingResults.getBoolean("watchDocuments")) {
+            documentWatcher = watchDocuments(reports, documentRegistry);
+            if (documentWatcher == null) {
+                return;
+            }
+            queryServer.setReloadStatistics(documentWatcher.getStatistics());
+        }
+
+        try {
+            queryServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), parsingResults.getInt("servePort")));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Couldn't start server.");
+            return;
+        }
+        InetSocketAddress address = queryServer.getAddress();
+        System.out.println("Serving " + String.join(", ", queryServer.getDocumentNames()) + " at http://"
+                + address.getHostString() + ":" + address.getPort() + QueryServer.QUERY_PATH);
+        if (documentWatcher != null) {
+            documentWatcher.start();
+            System.out.println("Watching " + documentWatcher.getWatchedFileCount() + " document files, metrics at http://"
+                    + address.getHostString() + ":" + address.getPort() + QueryServer.METRICS_PATH);
+        }
     }
 
-    private static void interpretBill(List<String> fileLines, JSAPResult parsingResults) {
-        ConsumersBillDocumentSystem consumersBillDocumentSystem = new ConsumersBillDocumentSystem(fileLines);
-        consumersBillDocumentSystem.interpret(parsingResults);
+    //Null if a file couldn't be watched
+    private static DocumentWatcher watchDocuments(List<CorpusFileReport> reports, DocumentRegistry documentRegistry) {
+        try {
+            DocumentWatcher documentWatcher = new DocumentWatcher(documentRegistry);
+            for (CorpusFileReport report : reports) {
+                //Files which failed to load aren't served, a file whose name was already registered would replace the other document
+                if (report.isLoaded()) {
+                    documentWatcher.watch(report.fileName, report.file);
+                }
+            }
+            return documentWatcher;
+        } catch (IOException e) {
+            System.err.println("Couldn't watch document files.");
+            return null;
+        }
     }
+    //</editor-fold>
 }
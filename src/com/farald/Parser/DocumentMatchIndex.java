@@ -0,0 +1,34 @@
+package com.farald.Parser;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+//Match positions of every distinct pattern in the document text, each pattern is scanned once when first needed
+public class DocumentMatchIndex {
+    private final CharSequence text;
+    private final Map<String, PatternMatchIndex> patternIndexes;
+
+    public DocumentMatchIndex(CharSequence text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Text cannot be null.");
+        }
+        this.text = text;
+        this.patternIndexes = new HashMap<>();
+    }
+
+    public CharSequence getText() {
+        return text;
+    }
+
+    //Synchronized, subtrees parsed at the same time share the index
+    public synchronized PatternMatchIndex getPatternIndex(Pattern pattern) {
+        String patternKey = pattern.flags() + ":" + pattern.pattern();
+        PatternMatchIndex patternIndex = patternIndexes.get(patternKey);
+        if (patternIndex == null) {
+            patternIndex = PatternMatchIndex.build(pattern, text);
+            patternIndexes.put(patternKey, patternIndex);
+        }
+        return patternIndex;
+    }
+}
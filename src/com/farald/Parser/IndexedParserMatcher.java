@@ -0,0 +1,56 @@
+package com.farald.Parser;
+
+//Walks matches of a rule recorded by a PatternMatchIndex, first and last are match numbers in the index.
+//An optional leading match, found outside the index, comes before the indexed ones.
+public class IndexedParserMatcher extends ParserMatcher {
+    private final PatternMatchIndex matchIndex;
+    private final int firstMatch;
+    private final int lastMatch;
+    private final int leadingStart;
+    private final int leadingEnd;
+    private int currentMatch;
+
+    public IndexedParserMatcher(PatternMatchIndex matchIndex, int firstMatch, int lastMatch, ParserRule rule) {
+        this(matchIndex, firstMatch, lastMatch, -1, -1, rule);
+    }
+
+    public IndexedParserMatcher(PatternMatchIndex matchIndex, int firstMatch, int lastMatch, int leadingStart, int leadingEnd, ParserRule rule) {
+        super(rule);
+        this.matchIndex = matchIndex;
+        this.firstMatch = leadingStart < 0 ? firstMatch : firstMatch - 1;
+        this.lastMatch = lastMatch;
+        this.leadingStart = leadingStart;
+        this.leadingEnd = leadingEnd;
+        this.currentMatch = this.firstMatch - 1;
+    }
+
+    @Override
+    public boolean find() {
+        if (currentMatch < lastMatch) {
+            currentMatch++;
+        }
+        return currentMatch < lastMatch;
+    }
+
+    @Override
+    public int start() {
+        checkCurrentMatch();
+        return isLeadingMatch() ? leadingStart : matchIndex.getMatchStart(currentMatch);
+    }
+
+    @Override
+    public int end() {
+        checkCurrentMatch();
+        return isLeadingMatch() ? leadingEnd : matchIndex.getMatchEnd(currentMatch);
+    }
+
+    private boolean isLeadingMatch() {
+        return leadingStart >= 0 && currentMatch == firstMatch;
+    }
+
+    private void checkCurrentMatch() {
+        if (currentMatch < firstMatch || currentMatch >= lastMatch) {
+            throw new IllegalStateException("No match available.");
+        }
+    }
+}
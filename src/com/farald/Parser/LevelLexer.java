@@ -0,0 +1,70 @@
+package com.farald.Parser;
+
+import com.farald.Lexer.IdentifierLexer;
+import com.farald.Lexer.IdentifierSpec;
+import com.farald.Lexer.IdentifierToken;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Identifier lexer for the rules of a level which have identifier specs, the others keep matching their patterns
+public class LevelLexer {
+    private final List<ParserRule> levelRules;
+    //Position of the rule in the level for every spec of the lexer
+    private final int[] specRules;
+    private final IdentifierLexer lexer;
+
+    private LevelLexer(List<ParserRule> levelRules, int[] specRules, IdentifierLexer lexer) {
+        this.levelRules = new ArrayList<>(levelRules);
+        this.specRules = specRules;
+        this.lexer = lexer;
+    }
+
+    //Null if no rule of the level has an identifier spec
+    public static LevelLexer compile(List<ParserRule> levelRules) {
+        List<IdentifierSpec> specs = new ArrayList<>();
+        List<Integer> specRules = new ArrayList<>();
+        for (int i = 0; i < levelRules.size(); i++) {
+            IdentifierSpec identifierSpec = levelRules.get(i).identifierSpec;
+            if (identifierSpec != null) {
+                specs.add(identifierSpec);
+                specRules.add(i);
+            }
+        }
+        if (specs.isEmpty()) {
+            return null;
+        }
+
+        int[] specRulePositions = new int[specRules.size()];
+        for (int i = 0; i < specRulePositions.length; i++) {
+            specRulePositions[i] = specRules.get(i);
+        }
+        return new LevelLexer(levelRules, specRulePositions, new IdentifierLexer(specs));
+    }
+
+    //Whether the lexer was compiled from the same rules as given
+    public boolean isCompiledFrom(List<ParserRule> levelRules) {
+        if (levelRules.size() != this.levelRules.size()) {
+            return false;
+        }
+        for (int i = 0; i < levelRules.size(); i++) {
+            if (levelRules.get(i) != this.levelRules.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Matchers replaying identifiers found in the content, at positions of their rules in the level.
+    //Rules without identifier specs get null.
+    public RecordedParserMatcher[] lex(CharSequence source, int start, int end) {
+        RecordedParserMatcher[] matchers = new RecordedParserMatcher[levelRules.size()];
+        for (int ruleNumber : specRules) {
+            matchers[ruleNumber] = new RecordedParserMatcher(levelRules.get(ruleNumber));
+        }
+        for (IdentifierToken token : lexer.tokenize(source, start, end)) {
+            matchers[specRules[token.spec]].addMatch(token.start, token.end);
+        }
+        return matchers;
+    }
+}
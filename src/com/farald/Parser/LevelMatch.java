@@ -0,0 +1,23 @@
+package com.farald.Parser;
+
+import java.util.List;
+
+//Matches of one rule level in a fragment content, ready to be turned into children
+public class LevelMatch {
+    public final boolean noMatchRulesUsed;
+    public final List<RecordedParserMatcher> matchers;
+
+    public LevelMatch(boolean noMatchRulesUsed, List<RecordedParserMatcher> matchers) {
+        this.noMatchRulesUsed = noMatchRulesUsed;
+        this.matchers = matchers;
+    }
+
+    public boolean hasMatches() {
+        for (RecordedParserMatcher matcher : matchers) {
+            if (matcher.getMatchCount() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,260 @@
+package com.farald.Parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+//All sibling rules of a level, NoMatch rules included, matched together in one pass over a fragment content.
+//Each position is checked against a first character table, and only rules which can start there are tried.
+//The pass gives the same matches as separate matchers per rule. When the separate matchers would find overlapping
+//matches, for which the parser has no well defined result, it returns null and the rules are matched separately.
+public class LevelMatcher {
+    private static final int DISPATCH_TABLE_SIZE = 256;
+
+    private final List<ParserRule> levelRules;
+    private final ParserRule[] rules;
+    private final boolean[] noMatchRules;
+    private final PatternStarts[] ruleStarts;
+    private final boolean[] anchoredAtEveryStart;
+    private final boolean lineEndRequired;
+    private final int[][] rulesByFirstCharacter;
+    private final int[][] rulesByFirstCharacterAtLineStart;
+    private final Map<Integer, int[]> rulesByOtherCharacters;
+    private final Matcher[] ruleMatchers;
+    private final boolean hasNoMatchRules;
+
+    private LevelMatcher(List<ParserRule> levelRules, List<ParserRule> orderedRules, PatternAnchors[] anchors) {
+        this.levelRules = new ArrayList<>(levelRules);
+        this.rules = orderedRules.toArray(new ParserRule[0]);
+        this.noMatchRules = new boolean[rules.length];
+        this.ruleStarts = new PatternStarts[rules.length];
+        this.anchoredAtEveryStart = new boolean[rules.length];
+        this.ruleMatchers = new Matcher[rules.length];
+
+        boolean hasNoMatchRules = false;
+        boolean lineEndRequired = false;
+        for (int i = 0; i < rules.length; i++) {
+            noMatchRules[i] = rules[i].parserRuleType == ParserRuleType.NoMatch;
+            hasNoMatchRules |= noMatchRules[i];
+            ruleStarts[i] = PatternStarts.analyze(rules[i].pattern);
+
+            //Rules without "^", or with "^" starting every alternative, can be tried with anchoring bounds at
+            //their possible starts. Others see the text before the position, so "$" is exact only at real line ends.
+            boolean caretOnly = ruleStarts[i] != null && ruleStarts[i].lineStarts && ruleStarts[i].firstCharacters.isEmpty();
+            anchoredAtEveryStart[i] = !anchors[i].multilineCaret || caretOnly;
+            lineEndRequired |= !anchoredAtEveryStart[i] && anchors[i].multilineDollar;
+        }
+        this.hasNoMatchRules = hasNoMatchRules;
+        this.lineEndRequired = lineEndRequired;
+
+        this.rulesByFirstCharacter = new int[DISPATCH_TABLE_SIZE][];
+        this.rulesByFirstCharacterAtLineStart = new int[DISPATCH_TABLE_SIZE][];
+        for (int character = 0; character < DISPATCH_TABLE_SIZE; character++) {
+            rulesByFirstCharacter[character] = findCandidateRules((char) character, false);
+            rulesByFirstCharacterAtLineStart[character] = findCandidateRules((char) character, true);
+        }
+        this.rulesByOtherCharacters = new HashMap<>();
+    }
+
+    //Null if the level can't be matched in one pass
+    public static LevelMatcher compile(List<ParserRule> levelRules) {
+        if (levelRules.isEmpty()) {
+            return null;
+        }
+        //Normal rules first, they win over NoMatch rules starting at the same position
+        List<ParserRule> orderedRules = new ArrayList<>();
+        for (ParserRule parserRule : levelRules) {
+            if (parserRule.parserRuleType != ParserRuleType.NoMatch) {
+                orderedRules.add(parserRule);
+            }
+        }
+        for (ParserRule parserRule : levelRules) {
+            if (parserRule.parserRuleType == ParserRuleType.NoMatch) {
+                orderedRules.add(parserRule);
+            }
+        }
+
+        PatternAnchors[] anchors = new PatternAnchors[orderedRules.size()];
+        for (int i = 0; i < anchors.length; i++) {
+            ParserRule parserRule = orderedRules.get(i);
+            anchors[i] = PatternAnchors.analyze(parserRule.pattern);
+            if (anchors[i] == null || PatternMatchIndex.canMatchEmpty(parserRule.pattern)) {
+                return null;
+            }
+        }
+        return new LevelMatcher(levelRules, orderedRules, anchors);
+    }
+
+    //Whether the level was compiled from the same rules as given
+    public boolean isCompiledFrom(List<ParserRule> levelRules) {
+        if (levelRules.size() != this.levelRules.size()) {
+            return false;
+        }
+        for (int i = 0; i < levelRules.size(); i++) {
+            if (levelRules.get(i) != this.levelRules.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //<editor-fold desc="Matching">
+    //Null if the rules have to be matched separately
+    public LevelMatch match(CharSequence source, int start, int end) {
+        if (lineEndRequired && !PatternAnchors.isLineEnd(source, end)) {
+            return null;
+        }
+        for (int i = 0; i < rules.length; i++) {
+            if (ruleMatchers[i] == null) {
+                ruleMatchers[i] = rules[i].pattern.matcher(source);
+            } else {
+                ruleMatchers[i].reset(source);
+            }
+        }
+
+        RuleLevelPass normalPass = new RuleLevelPass(false);
+        RuleLevelPass noMatchPass = new RuleLevelPass(true);
+        boolean noMatchPassActive = hasNoMatchRules;
+        boolean noMatchPassFailed = false;
+
+        for (int position = start; position < end; position++) {
+            boolean lineStart = position == start || PatternAnchors.isLineStart(source, position);
+            int[] candidateRules = getCandidateRules(source.charAt(position), lineStart);
+            if (candidateRules.length == 0) {
+                continue;
+            }
+            if (!normalPass.step(position, start, end, candidateRules)) {
+                return null;
+            }
+            //NoMatch rules are used only if the normal ones match nothing
+            if (noMatchPassActive && normalPass.hasMatches()) {
+                noMatchPassActive = false;
+            }
+            if (noMatchPassActive && !noMatchPass.step(position, start, end, candidateRules)) {
+                noMatchPassActive = false;
+                noMatchPassFailed = true;
+            }
+        }
+
+        if (normalPass.hasMatches()) {
+            return new LevelMatch(false, normalPass.getMatchers());
+        }
+        if (noMatchPassFailed) {
+            return null;
+        }
+        return new LevelMatch(true, noMatchPass.getMatchers());
+    }
+
+    private boolean matchesAt(int ruleNumber, int position, int start, int end) {
+        Matcher matcher = ruleMatchers[ruleNumber];
+        matcher.region(position, end);
+        //Anchoring bounds make "^" match at the region start, which is only right at the content start
+        matcher.useAnchoringBounds(position == start || anchoredAtEveryStart[ruleNumber]);
+        return matcher.lookingAt();
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="First character table">
+    private int[] getCandidateRules(char character, boolean lineStart) {
+        if (character < DISPATCH_TABLE_SIZE) {
+            return lineStart ? rulesByFirstCharacterAtLineStart[character] : rulesByFirstCharacter[character];
+        }
+        Integer key = character * 2 + (lineStart ? 1 : 0);
+        int[] candidateRules = rulesByOtherCharacters.get(key);
+        if (candidateRules == null) {
+            candidateRules = findCandidateRules(character, lineStart);
+            rulesByOtherCharacters.put(key, candidateRules);
+        }
+        return candidateRules;
+    }
+
+    private int[] findCandidateRules(char character, boolean lineStart) {
+        List<Integer> candidateRules = new ArrayList<>();
+        for (int i = 0; i < rules.length; i++) {
+            PatternStarts starts = ruleStarts[i];
+            if (starts == null || starts.firstCharacters.get(character) || (lineStart && starts.lineStarts)) {
+                candidateRules.add(i);
+            }
+        }
+        int[] candidates = new int[candidateRules.size()];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = candidateRules.get(i);
+        }
+        return candidates;
+    }
+    //</editor-fold>
+
+    //Separate matchers of normal or NoMatch rules, followed position by position
+    private class RuleLevelPass {
+        private final RecordedParserMatcher[] matchers;
+        private final boolean[] available;
+        //A rule looks for its next match from the end of its previous one
+        private final int[] ruleMatchEnds;
+        //End of the last match, a match starting at or before it would leave the previous fragment without content
+        private int lastMatchEnd;
+        private boolean matched;
+
+        private RuleLevelPass(boolean noMatchPass) {
+            this.matchers = new RecordedParserMatcher[rules.length];
+            this.available = new boolean[rules.length];
+            this.ruleMatchEnds = new int[rules.length];
+            for (int i = 0; i < rules.length; i++) {
+                if (noMatchRules[i] == noMatchPass) {
+                    matchers[i] = new RecordedParserMatcher(rules[i]);
+                    available[i] = true;
+                }
+            }
+            this.lastMatchEnd = -1;
+            this.matched = false;
+        }
+
+        //False if separate matchers would find overlapping matches
+        private boolean step(int position, int start, int end, int[] candidateRules) {
+            int chosenRule = -1;
+            for (int ruleNumber : candidateRules) {
+                if (!available[ruleNumber] || position < ruleMatchEnds[ruleNumber]
+                        || !matchesAt(ruleNumber, position, start, end)) {
+                    continue;
+                }
+                if (chosenRule >= 0 || position <= lastMatchEnd) {
+                    return false;
+                }
+                chosenRule = ruleNumber;
+            }
+            if (chosenRule < 0) {
+                return true;
+            }
+
+            lastMatchEnd = ruleMatchers[chosenRule].end();
+            ruleMatchEnds[chosenRule] = lastMatchEnd;
+            RecordedParserMatcher matcher = matchers[chosenRule];
+            matcher.addMatch(position, lastMatchEnd);
+            matched = true;
+            ParserRule rule = rules[chosenRule];
+            if (rule.parserRuleType == ParserRuleType.Limited && matcher.getMatchCount() == rule.matchLimit) {
+                available[chosenRule] = false;
+            }
+            return true;
+        }
+
+        private boolean hasMatches() {
+            return matched;
+        }
+
+        //Matchers in the order of the level rules
+        private List<RecordedParserMatcher> getMatchers() {
+            List<RecordedParserMatcher> orderedMatchers = new ArrayList<>();
+            for (ParserRule parserRule : levelRules) {
+                for (int i = 0; i < rules.length; i++) {
+                    if (rules[i] == parserRule && matchers[i] != null && !orderedMatchers.contains(matchers[i])) {
+                        orderedMatchers.add(matchers[i]);
+                        break;
+                    }
+                }
+            }
+            return orderedMatchers;
+        }
+    }
+}
@@ -2,21 +2,133 @@ package com.farald.Parser;
 
 import com.farald.DocumentRepresentation.BillDocument;
 import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.BillFragmentIndex;
+import com.farald.DocumentRepresentation.BillFragmentSpans;
 import com.farald.DocumentRepresentation.BillFragmentWithRules;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.regex.Matcher;
 
 public class Parser {
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 16 * 1024;
+
     private List<ParserRule> billParserRules;
+    private boolean sharedContent;
+    private ParserEngineType engineType;
+    //Only set while a document is parsed with the GlobalMatch engine
+    private DocumentMatchIndex documentMatchIndex;
+    //Only set while a document is parsed, fragments are indexed in the order they are created
+    private BillFragmentIndex fragmentIndex;
+    //Only set while a document is parsed with shared content, spans of the content fragments are parsed from
+    private BillFragmentSpans fragmentSpans;
+    //Children of a fragment are all found before any of them is parsed, so one matcher per rule is enough
+    private Map<ParserRule, Matcher> ruleMatchers;
+    //Levels compiled by the CombinedLevels engine, null for levels which can't be matched in one pass
+    private Map<List<ParserRule>, LevelMatcher> levelMatchers;
+    //Levels lexed by the Lexer engine, null for levels without identifier specs
+    private Map<List<ParserRule>, LevelLexer> levelLexers;
+    //Pool parsing large sibling subtrees at the same time, null if parsing is sequential
+    private ForkJoinPool parsingPool;
+    private int parallelThreshold;
+    //Counters of rule matching, null if profiling is off
+    private ParserProfile profile;
 
     public Parser() {
         billParserRules = new ArrayList<>();
+        sharedContent = true;
+        engineType = ParserEngineType.Recursive;
+        ruleMatchers = new IdentityHashMap<>();
+        levelMatchers = new IdentityHashMap<>();
+        levelLexers = new IdentityHashMap<>();
+        parsingPool = null;
+        parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+        profile = null;
+    }
+
+    public boolean isSharedContent() {
+        return sharedContent;
+    }
+
+    //Shared content makes every fragment a span of the joined document text, otherwise each fragment gets its own copy
+    public void setSharedContent(boolean sharedContent) {
+        this.sharedContent = sharedContent;
+    }
+
+    public ParserEngineType getEngineType() {
+        return engineType;
+    }
+
+    //GlobalMatch scans every pattern once over the whole document and reads matches of each fragment from that scan,
+    //it gives the same fragments as Recursive, which matches every fragment content again. Requires shared content.
+    //CombinedLevels matches all rules of a level, NoMatch rules included, in one pass over the fragment content.
+    //Lexer finds identifiers of rules with identifier specs in one walk over the content, without regular expressions.
+    public void setEngineType(ParserEngineType engineType) {
+        if (engineType == null) {
+            throw new IllegalArgumentException("Engine type cannot be null.");
+        }
+        this.engineType = engineType;
+    }
+
+    public ForkJoinPool getParsingPool() {
+        return parsingPool;
+    }
+
+    //With a pool, children with at least parallelThreshold characters of content are parsed as separate tasks,
+    //smaller ones are parsed by the task of their parent. Children keep their order and parents, the tree is the same.
+    public void setParsingPool(ForkJoinPool parsingPool) {
+        this.parsingPool = parsingPool;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException("Parallel threshold cannot be negative.");
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public ParserProfile getProfile() {
+        return profile;
+    }
+
+    //Every find of every rule is counted and timed into the profile, null turns profiling off
+    public void setProfile(ParserProfile profile) {
+        this.profile = profile;
     }
 
     public void addParserRule(ParserRule parserRule) {
         billParserRules.add(parserRule);
+        levelMatchers.clear();
+        levelLexers.clear();
+    }
+
+    public String getRulesFingerprint() {
+        StringBuilder fingerprint = new StringBuilder();
+        appendRulesFingerprint(fingerprint, billParserRules);
+        return fingerprint.toString();
+    }
+
+    private void appendRulesFingerprint(StringBuilder fingerprint, List<ParserRule> parserRules) {
+        fingerprint.append('[');
+        for (ParserRule parserRule : parserRules) {
+            fingerprint.append(parserRule.parserRuleType).append(':')
+                    .append(parserRule.matchLimit).append(':')
+                    .append(parserRule.pattern.flags()).append(':')
+                    .append(parserRule.pattern.pattern().length()).append(':')
+                    .append(parserRule.pattern.pattern());
+            appendRulesFingerprint(fingerprint, parserRule.subRules);
+        }
+        fingerprint.append(']');
     }
 
     public void parseDocument(BillDocument billDocument) {
@@ -24,15 +136,169 @@ public class Parser {
         BillFragment billFragment = new BillFragment();
 
         billFragment.setParent(null);
-        billFragment.setContent(appendContent(lines));
+        String content = appendContent(lines);
+        billFragment.setContent(content);
+
+        if (engineType == ParserEngineType.GlobalMatch && sharedContent) {
+            documentMatchIndex = new DocumentMatchIndex(content);
+        }
+        BillFragmentSpans documentFragmentSpans = sharedContent ? new BillFragmentSpans(content) : null;
+        BillFragmentIndex documentFragmentIndex;
+        try {
+            fragmentSpans = documentFragmentSpans;
+            if (parsingPool == null) {
+                documentFragmentIndex = new BillFragmentIndex();
+                fragmentIndex = documentFragmentIndex;
+                documentFragmentIndex.enterFragment(billFragment);
+                parseBillFragment(new BillFragmentWithRules(billFragment, billParserRules, 0));
+                documentFragmentIndex.exitFragment(billFragment);
+            } else {
+                //Fragments aren't created in document order, the index is built from the finished tree
+                parseBillFragment(new BillFragmentWithRules(billFragment, billParserRules, 0));
+                documentFragmentIndex = BillFragmentIndex.build(billFragment);
+            }
+        } finally {
+            documentMatchIndex = null;
+            fragmentIndex = null;
+            fragmentSpans = null;
+        }
+
+        billDocument.setBillFragment(billFragment);
+        billDocument.setFragmentIndex(documentFragmentIndex);
+        billDocument.setFragmentSpans(documentFragmentSpans);
+    }
+
+    //<editor-fold desc="Incremental parsing">
+    //Gives the same tree as parseDocument, using the tree of the previous edition of the document. Levels are split again
+    //only on the way from the root to the changed lines, fragments with unchanged content are copied with their subtrees
+    //and the previous tree isn't modified. Without spans of the previous parse (e.g. its tree was loaded from a snapshot)
+    //or without shared content the whole document is parsed.
+    public ReparseReport reparseDocument(BillDocument billDocument, BillDocument previousDocument) {
+        if (billDocument == null || previousDocument == null) {
+            throw new IllegalArgumentException("Documents cannot be null.");
+        }
+        BillFragmentSpans previousSpans = previousDocument.getFragmentSpans();
+        BillFragment previousFragment = previousDocument.getBillFragment();
+        if (!sharedContent || previousSpans == null || previousFragment == null) {
+            parseDocument(billDocument);
+            return ReparseReport.fullParse(countFragments(billDocument.getBillFragment()));
+        }
+
+        BillFragment billFragment = new BillFragment();
+        billFragment.setParent(null);
+        String content = appendContent(billDocument.getBillDocumentLines());
+        billFragment.setContent(content);
 
-        parseBillFragment(new BillFragmentWithRules(billFragment, billParserRules, 0));
+        Reparse reparse = new Reparse(previousSpans, new BillFragmentSpans(content), TextChanges.compute(previousSpans.getText(), content));
+        if (engineType == ParserEngineType.GlobalMatch) {
+            documentMatchIndex = new DocumentMatchIndex(content);
+        }
+        try {
+            fragmentSpans = reparse.spans;
+            reparseSubtree(new BillFragmentWithRules(billFragment, billParserRules, 0), previousFragment, reparse);
+        } finally {
+            documentMatchIndex = null;
+            fragmentSpans = null;
+        }
 
+        //Fragment index is built when it's needed
         billDocument.setBillFragment(billFragment);
+        billDocument.setFragmentSpans(reparse.spans);
+        return new ReparseReport(false, reparse.changes.size(), reparse.splitFragmentCount, reparse.parsedFragmentCount,
+                reparse.copiedFragmentCount);
+    }
+
+    //Previous fragment has the same rules and was parsed from the same place of the previous text
+    private void reparseSubtree(BillFragmentWithRules parent, BillFragment previousFragment, Reparse reparse) {
+        BillFragment parsedFragment = parent.billFragment;
+        reparse.splitFragmentCount++;
+        List<BillFragmentWithRules> children = findChildren(parent);
+        if (children == null) {
+            return;
+        }
+
+        Map<Integer, BillFragment> previousChildren = reparse.getChildrenByContentStart(previousFragment);
+        for (BillFragmentWithRules child : children) {
+            BillFragment childFragment = child.billFragment;
+            childFragment.setParent(parsedFragment);
+            parsedFragment.addChild(childFragment);
+
+            BillFragment previousChild = childFragment.getContentSource() == reparse.spans.getText()
+                    ? previousChildren.get(childFragment.getContentStart()) : null;
+            BillFragmentSpans.Span previousSpan = previousChild == null ? null : reparse.previousSpans.get(previousChild);
+            if (previousSpan == null || previousSpan.parserRules != child.parserRules) {
+                parseBillFragment(child);
+                reparse.parsedFragmentCount += countFragments(childFragment);
+            } else if (previousSpan.end - previousSpan.start == childFragment.getContentEnd() - childFragment.getContentStart()
+                    && reparse.changes.isUnchanged(previousSpan.start, previousSpan.end)) {
+                copySubtree(previousChild, childFragment, childFragment.getContentStart() - previousSpan.start, reparse);
+            } else {
+                reparseSubtree(child, previousChild, reparse);
+            }
+        }
+    }
+
+    //Fragment already has its identifier, content and children are the previous ones moved by the shift
+    private void copySubtree(BillFragment previousFragment, BillFragment fragment, int shift, Reparse reparse) {
+        BillFragmentSpans.Span previousSpan = reparse.previousSpans.get(previousFragment);
+        if (previousSpan != null) {
+            reparse.spans.add(fragment, previousSpan.start + shift, previousSpan.end + shift, previousSpan.parserRules);
+        }
+        if (previousFragment.getContentSource() == reparse.previousSpans.getText()) {
+            fragment.setContentSpan(reparse.spans.getText(), previousFragment.getContentStart() + shift, previousFragment.getContentEnd() + shift);
+        } else {
+            fragment.setContent(previousFragment.getContent());
+        }
+        reparse.copiedFragmentCount++;
+
+        for (BillFragment previousChild : previousFragment.getChildren()) {
+            BillFragment child = new BillFragment();
+            child.setIdentifier(previousChild.getIdentifier());
+            child.setParent(fragment);
+            fragment.addChild(child);
+            copySubtree(previousChild, child, shift, reparse);
+        }
+    }
+
+    private static int countFragments(BillFragment billFragment) {
+        return (int) billFragment.preOrderStream().count();
+    }
+
+    private static class Reparse {
+        private final BillFragmentSpans previousSpans;
+        private final BillFragmentSpans spans;
+        private final TextChanges changes;
+        private int splitFragmentCount;
+        private int parsedFragmentCount;
+        private int copiedFragmentCount;
+
+        private Reparse(BillFragmentSpans previousSpans, BillFragmentSpans spans, TextChanges changes) {
+            this.previousSpans = previousSpans;
+            this.spans = spans;
+            this.changes = changes;
+        }
+
+        //Children of the previous fragment by the position their content starts at in the new text, changed ones are left out
+        private Map<Integer, BillFragment> getChildrenByContentStart(BillFragment previousFragment) {
+            Map<Integer, BillFragment> children = new HashMap<>();
+            for (BillFragment previousChild : previousFragment.getChildren()) {
+                BillFragmentSpans.Span previousSpan = previousSpans.get(previousChild);
+                int start = previousSpan == null ? -1 : changes.map(previousSpan.start);
+                if (start >= 0) {
+                    children.put(start, previousChild);
+                }
+            }
+            return children;
+        }
     }
+    //</editor-fold>
 
     private String appendContent(List<String> lines) {
-        StringBuilder builder = new StringBuilder("");
+        int length = 0;
+        for (String billLine : lines) {
+            length += billLine.length() + 1;
+        }
+        StringBuilder builder = new StringBuilder(length);
         for (String billLine : lines) {
             builder.append(billLine).append("\n");
         }
@@ -43,32 +309,210 @@ public class Parser {
         if (parent == null) {
             throw new IllegalArgumentException("Parent fields cannot be null.");
         }
+        if (parsingPool != null && ForkJoinTask.getPool() != parsingPool) {
+            parsingPool.invoke(new SubtreeParsingAction(this, parent));
+            return;
+        }
+        parseSubtree(parent);
+    }
 
+    private void parseSubtree(BillFragmentWithRules parent) {
         BillFragment parsedFragment = parent.billFragment;
-        List<ParserRule> parsingRules = getNormalRules(parent.parserRules);
-
-        List<BillFragmentWithRules> children = getChildrenFromParentContent(new BillFragmentWithRules(parsedFragment, parsingRules, 0));
-        //If no children were found, try using noMatch rules
+        List<BillFragmentWithRules> children = findChildren(parent);
         if (children == null) {
-            parsingRules = getNoMatchRules(parent.parserRules);
-            if (parsingRules.size() == 0) {
-                return;
-            }
+            return;
+        }
 
-            children = getChildrenFromParentContent(new BillFragmentWithRules(parsedFragment, parsingRules, 0));
-            if (children == null) {
-                return;
-            }
+        if (parsingPool != null) {
+            parseChildrenInParallel(parsedFragment, children);
+            return;
         }
 
         //Bind children to parent and parse their content recursively
         for (BillFragmentWithRules child : children) {
             child.billFragment.setParent(parsedFragment);
             parsedFragment.addChild(child.billFragment);
+            if (fragmentIndex != null) {
+                fragmentIndex.enterFragment(child.billFragment);
+            }
             parseBillFragment(child);
+            if (fragmentIndex != null) {
+                fragmentIndex.exitFragment(child.billFragment);
+            }
         }
     }
 
+    //Children of one level with the content of the parent cut before them, null if there are none
+    private List<BillFragmentWithRules> findChildren(BillFragmentWithRules parent) {
+        if (fragmentSpans != null) {
+            addFragmentSpan(parent);
+        }
+        LevelMatch levelMatch = matchLevel(parent);
+        if (levelMatch != null) {
+            if (levelMatch.noMatchRulesUsed) {
+                countNoMatchFallback(parent.parserRules);
+            }
+            return levelMatch.hasMatches() ? getChildrenFromMatchers(parent.billFragment, levelMatch.matchers) : null;
+        }
+        return getChildrenWithRuleMatchers(parent);
+    }
+
+    private void addFragmentSpan(BillFragmentWithRules fragment) {
+        BillFragment billFragment = fragment.billFragment;
+        if (billFragment.getContentSource() == fragmentSpans.getText()) {
+            fragmentSpans.add(billFragment, billFragment.getContentStart(), billFragment.getContentEnd(), fragment.parserRules);
+        }
+    }
+
+    //<editor-fold desc="Parallel parsing">
+    //Children are bound before any of them is parsed, so their order doesn't depend on the order tasks finish in
+    private void parseChildrenInParallel(BillFragment parsedFragment, List<BillFragmentWithRules> children) {
+        List<SubtreeParsingAction> subtreeActions = new ArrayList<>();
+        List<BillFragmentWithRules> smallChildren = new ArrayList<>();
+        for (BillFragmentWithRules child : children) {
+            BillFragment childFragment = child.billFragment;
+            childFragment.setParent(parsedFragment);
+            parsedFragment.addChild(childFragment);
+            //Size is checked before the child is forked, a parsed child keeps only the content before its own children
+            if (childFragment.getContentEnd() - childFragment.getContentStart() >= parallelThreshold) {
+                SubtreeParsingAction subtreeAction = new SubtreeParsingAction(createSubtreeParser(), child);
+                subtreeAction.fork();
+                subtreeActions.add(subtreeAction);
+            } else {
+                smallChildren.add(child);
+            }
+        }
+
+        //Small children are parsed by this task while the forked ones run
+        for (BillFragmentWithRules child : smallChildren) {
+            parseSubtree(child);
+        }
+        for (int i = subtreeActions.size() - 1; i >= 0; i--) {
+            subtreeActions.get(i).join();
+        }
+    }
+
+    //Matchers and compiled levels keep state while a level is matched, so every task gets a parser of its own
+    private Parser createSubtreeParser() {
+        Parser subtreeParser = new Parser();
+        subtreeParser.billParserRules = billParserRules;
+        subtreeParser.sharedContent = sharedContent;
+        subtreeParser.engineType = engineType;
+        subtreeParser.documentMatchIndex = documentMatchIndex;
+        subtreeParser.fragmentSpans = fragmentSpans;
+        subtreeParser.parsingPool = parsingPool;
+        subtreeParser.parallelThreshold = parallelThreshold;
+        subtreeParser.profile = profile;
+        return subtreeParser;
+    }
+
+    private static class SubtreeParsingAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Parser parser;
+        private final BillFragmentWithRules subtree;
+
+        private SubtreeParsingAction(Parser parser, BillFragmentWithRules subtree) {
+            this.parser = parser;
+            this.subtree = subtree;
+        }
+
+        @Override
+        protected void compute() {
+            parser.parseSubtree(subtree);
+        }
+    }
+    //</editor-fold>
+
+    private List<BillFragmentWithRules> getChildrenWithRuleMatchers(BillFragmentWithRules parent) {
+        BillFragment parsedFragment = parent.billFragment;
+        RecordedParserMatcher[] lexedMatchers = lexLevel(parent);
+        List<BillFragmentWithRules> children = getChildrenFromRules(parsedFragment, parent.parserRules, false, lexedMatchers);
+        //If no children were found, try using noMatch rules
+        if (children == null) {
+            countNoMatchFallback(parent.parserRules);
+            children = getChildrenFromRules(parsedFragment, parent.parserRules, true, lexedMatchers);
+        }
+        return children;
+    }
+
+    private void countNoMatchFallback(List<ParserRule> levelRules) {
+        if (profile == null) {
+            return;
+        }
+        for (ParserRule parserRule : getNoMatchRules(levelRules)) {
+            profile.getRuleProfile(parserRule).addNoMatchFallback();
+        }
+    }
+
+    private List<BillFragmentWithRules> getChildrenFromRules(BillFragment parsedFragment, List<ParserRule> levelRules, boolean noMatchRules,
+                                                             RecordedParserMatcher[] lexedMatchers) {
+        List<ParserRule> parsingRules = noMatchRules ? getNoMatchRules(levelRules) : getNormalRules(levelRules);
+        if (parsingRules.size() == 0) {
+            return null;
+        }
+        if (lexedMatchers == null) {
+            return getChildrenFromParentContent(new BillFragmentWithRules(parsedFragment, parsingRules, 0));
+        }
+
+        //Identifiers found by the lexer replace the matches of their rules, other rules still match their patterns
+        CharSequence source = parsedFragment.getContentSource();
+        int start = parsedFragment.getContentStart();
+        int end = parsedFragment.getContentEnd();
+        List<ParserMatcher> matchers = new ArrayList<>();
+        for (int i = 0; i < levelRules.size(); i++) {
+            ParserRule parserRule = levelRules.get(i);
+            if ((parserRule.parserRuleType == ParserRuleType.NoMatch) != noMatchRules) {
+                continue;
+            }
+            if (lexedMatchers[i] != null) {
+                matchers.add(lexedMatchers[i]);
+            } else {
+                matchers.add(new RegexParserMatcher(getRegionMatcher(parserRule, source, start, end), parserRule));
+            }
+        }
+        return getChildrenFromMatchers(parsedFragment, matchers);
+    }
+
+    //Null if the level has no identifier specs or the engine doesn't use them
+    private RecordedParserMatcher[] lexLevel(BillFragmentWithRules parent) {
+        if (engineType != ParserEngineType.Lexer) {
+            return null;
+        }
+        LevelLexer levelLexer = levelLexers.get(parent.parserRules);
+        if (levelLexer == null && !levelLexers.containsKey(parent.parserRules)
+                || levelLexer != null && !levelLexer.isCompiledFrom(parent.parserRules)) {
+            levelLexer = LevelLexer.compile(parent.parserRules);
+            levelLexers.put(parent.parserRules, levelLexer);
+        }
+        if (levelLexer == null) {
+            return null;
+        }
+
+        BillFragment parentFragment = parent.billFragment;
+        return levelLexer.lex(parentFragment.getContentSource(), parentFragment.getContentStart(), parentFragment.getContentEnd());
+    }
+
+    //Null if the level isn't matched in one pass and its rules have to be matched separately
+    private LevelMatch matchLevel(BillFragmentWithRules parent) {
+        if (engineType != ParserEngineType.CombinedLevels) {
+            return null;
+        }
+        LevelMatcher levelMatcher = levelMatchers.get(parent.parserRules);
+        if (levelMatcher == null && !levelMatchers.containsKey(parent.parserRules)
+                || levelMatcher != null && !levelMatcher.isCompiledFrom(parent.parserRules)) {
+            //Sub rule lists can change after they were compiled, they are compiled again then
+            levelMatcher = LevelMatcher.compile(parent.parserRules);
+            levelMatchers.put(parent.parserRules, levelMatcher);
+        }
+        if (levelMatcher == null) {
+            return null;
+        }
+
+        BillFragment parentFragment = parent.billFragment;
+        return levelMatcher.match(parentFragment.getContentSource(), parentFragment.getContentStart(), parentFragment.getContentEnd());
+    }
+
     private List<ParserRule> getNormalRules(List<ParserRule> parserRules) {
         List<ParserRule> noMatchRules = new ArrayList<>();
 
@@ -92,38 +536,53 @@ public class Parser {
     }
 
     public List<BillFragmentWithRules> getChildrenFromParentContent(BillFragmentWithRules parent) {
-        //Create matcher for given parentContent using patterns from rules
-        String parentContent = parent.billFragment.getContent();
-        List<ParserMatcher> matchers = createMatcherList(parent.parserRules, parentContent);
+        //Create matcher for given parent content using patterns from rules, matchers work on the content span only
+        BillFragment parentFragment = parent.billFragment;
+        CharSequence source = parentFragment.getContentSource();
+        int parentStart = parentFragment.getContentStart();
+        int parentEnd = parentFragment.getContentEnd();
+        return getChildrenFromMatchers(parentFragment, createMatcherList(parent.parserRules, source, parentStart, parentEnd));
+    }
+
+    private List<BillFragmentWithRules> getChildrenFromMatchers(BillFragment parentFragment, List<? extends ParserMatcher> matchers) {
+        CharSequence source = parentFragment.getContentSource();
+        int parentStart = parentFragment.getContentStart();
+        int parentEnd = parentFragment.getContentEnd();
+        if (profile != null) {
+            matchers = profile.profileMatchers(matchers, parentStart, parentEnd);
+        }
 
         //Find first pattern match
         for (ParserMatcher matcher : matchers) {
-            matcher.availability = matcher.matcher.find();
+            matcher.availability = matcher.find();
         }
 
-        //Find first fragment and separate parent parentContent from parsable children, no match - no parentContent to parse
-        BillFragmentWithRules nextBillFragment = getNextFragment(parentContent, matchers);
+        //Find first fragment and separate parent content from parsable children, no match - no content to parse
+        BillFragmentWithRules nextBillFragment = getNextFragment(source, parentEnd, matchers);
         if (nextBillFragment == null) {
             return null;
         }
         int fragmentContentEnd = nextBillFragment.startPosition - 1;
-        if (fragmentContentEnd < 0) {
-            parent.billFragment.setContent(""); //All is parsable
+        if (fragmentContentEnd < parentStart) {
+            fragmentContentEnd = parentStart; //All is parsable
+        }
+        if (sharedContent) {
+            parentFragment.setContentSpan(source, parentStart, fragmentContentEnd);
         } else {
-            parent.billFragment.setContent(parentContent.substring(0, fragmentContentEnd));
+            parentFragment.setContent(source.subSequence(parentStart, fragmentContentEnd).toString());
         }
 
         //Parse all children according to rules
         List<BillFragmentWithRules> fragmentList = new ArrayList<>();
         while (nextBillFragment != null) {
             fragmentList.add(nextBillFragment);
-            nextBillFragment = getNextFragment(parentContent, matchers);
+            nextBillFragment = getNextFragment(source, parentEnd, matchers);
         }
 
         return fragmentList;
     }
 
-    private BillFragmentWithRules getNextFragment(String content, List<ParserMatcher> matchers) {
+    private BillFragmentWithRules getNextFragment(CharSequence source, int contentLimit, List<? extends ParserMatcher> matchers) {
         //Find the lowest starting position of the new fragment
         ParserMatcher chosenMatcher = getLowestMatcher(matchers);
 
@@ -133,41 +592,91 @@ public class Parser {
         }
         chosenMatcher.timesMatched++;
 
-        int identifierStartPosition = chosenMatcher.matcher.start();
-        int identifierEndPosition = chosenMatcher.matcher.end();
+        int identifierStartPosition = chosenMatcher.start();
+        int identifierEndPosition = chosenMatcher.end();
 
         //Check whether the rule still applies
         checkIfStillAvailable(chosenMatcher);
 
         int contentStartPosition = identifierEndPosition + 1;
-        int contentEndPosition = getEndOfContentPosition(content, matchers);
+        int contentEndPosition = getEndOfContentPosition(contentLimit, matchers);
+        if (contentStartPosition > contentEndPosition) {
+            //Identifier reaching the next fragment or the end of content, substring used to fail here as well
+            throw new StringIndexOutOfBoundsException("begin " + contentStartPosition + ", end " + contentEndPosition);
+        }
 
         //Separate fragment identifier and content from the rest
-        String newBillFragmentIdentifier = deleteWhiteCharsFromBeginningAndEnd(content.substring(identifierStartPosition, identifierEndPosition));
-        String newBillFragmentContent = deleteWhiteCharsFromBeginningAndEnd(content.substring(contentStartPosition, contentEndPosition));
+        BillFragment newBillFragment = new BillFragment();
+        newBillFragment.setIdentifier(deleteWhiteCharsFromBeginningAndEnd(source, identifierStartPosition, identifierEndPosition).toString());
+        setTrimmedContent(newBillFragment, source, contentStartPosition, contentEndPosition);
 
-        //Creating new fragment and binding parsing rules to it
+        //Binding parsing rules to new fragment
         List<ParserRule> newBillRules = chosenMatcher.rule.subRules;
-        BillFragment newBillFragment = new BillFragment(newBillFragmentIdentifier, newBillFragmentContent);
-
         return new BillFragmentWithRules(newBillFragment, newBillRules, identifierStartPosition);
     }
 
-    private List<ParserMatcher> createMatcherList(List<ParserRule> parserRules, String content) {
+    private List<ParserMatcher> createMatcherList(List<ParserRule> parserRules, CharSequence source, int start, int end) {
         List<ParserMatcher> matchers = new ArrayList<>();
         for (ParserRule parserRule : parserRules) {
-            Matcher matcher = parserRule.pattern.matcher(content);
-            matchers.add(new ParserMatcher(matcher, parserRule));
+            ParserMatcher indexedMatcher = createIndexedMatcher(parserRule, source, start, end);
+            if (indexedMatcher != null) {
+                matchers.add(indexedMatcher);
+            } else {
+                matchers.add(new RegexParserMatcher(getRegionMatcher(parserRule, source, start, end), parserRule));
+            }
         }
         return matchers;
     }
 
-    private ParserMatcher getLowestMatcher(List<ParserMatcher> matchers) {
+    private Matcher getRegionMatcher(ParserRule parserRule, CharSequence source, int start, int end) {
+        Matcher matcher = ruleMatchers.get(parserRule);
+        if (matcher == null) {
+            matcher = parserRule.pattern.matcher(source);
+            ruleMatchers.put(parserRule, matcher);
+        }
+        //Default anchoring and opaque bounds make the region behave like a substring
+        return matcher.reset(source).region(start, end);
+    }
+
+    //Null if the matches can't be taken from the document match index
+    private ParserMatcher createIndexedMatcher(ParserRule parserRule, CharSequence source, int start, int end) {
+        if (documentMatchIndex == null || documentMatchIndex.getText() != source) {
+            return null;
+        }
+        PatternMatchIndex patternIndex = documentMatchIndex.getPatternIndex(parserRule.pattern);
+        if (!patternIndex.hasMultilineCaret() || patternIndex.isLineStart(start)) {
+            int[] matchRange = patternIndex.getMatchRange(start, end);
+            if (matchRange == null) {
+                return null;
+            }
+            return new IndexedParserMatcher(patternIndex, matchRange[0], matchRange[1], parserRule);
+        }
+
+        //"^" matches at the beginning of the content even if it isn't a line start in the document,
+        //a match found there comes first and the indexed matches follow it
+        Matcher regionMatcher = getRegionMatcher(parserRule, source, start, end);
+        if (!regionMatcher.lookingAt()) {
+            int[] matchRange = patternIndex.getMatchRange(start, end);
+            if (matchRange == null) {
+                return null;
+            }
+            return new IndexedParserMatcher(patternIndex, matchRange[0], matchRange[1], parserRule);
+        }
+        int leadingStart = regionMatcher.start();
+        int leadingEnd = regionMatcher.end();
+        int[] matchRange = patternIndex.getMatchRange(leadingEnd, end);
+        if (matchRange == null || leadingEnd == leadingStart) {
+            return null;
+        }
+        return new IndexedParserMatcher(patternIndex, matchRange[0], matchRange[1], leadingStart, leadingEnd, parserRule);
+    }
+
+    private ParserMatcher getLowestMatcher(List<? extends ParserMatcher> matchers) {
         ParserMatcher chosenMatcher = null;
         int identifierStartPosition = Integer.MAX_VALUE;
         for (ParserMatcher parserMatcher : matchers) {
             if (parserMatcher.availability) {
-                int parserEndPosition = parserMatcher.matcher.start();
+                int parserEndPosition = parserMatcher.start();
                 if (parserEndPosition < identifierStartPosition) {
                     identifierStartPosition = parserEndPosition;
                     chosenMatcher = parserMatcher;
@@ -179,7 +688,7 @@ public class Parser {
 
     private void checkIfStillAvailable(ParserMatcher chosenMatcher) {
         //Check if next match exists and move to it
-        chosenMatcher.availability = chosenMatcher.matcher.find();
+        chosenMatcher.availability = chosenMatcher.find();
         //Check whether the limit is not exhausted
         if (chosenMatcher.rule.parserRuleType == ParserRuleType.Limited
                 && chosenMatcher.timesMatched == chosenMatcher.rule.matchLimit) {
@@ -187,19 +696,71 @@ public class Parser {
         }
     }
 
-    private Integer getEndOfContentPosition(String content, List<ParserMatcher> matchers) {
+    private int getEndOfContentPosition(int contentLimit, List<? extends ParserMatcher> matchers) {
         //End of content - next rule match position or end of document
         ParserMatcher chosenMatcher = getLowestMatcher(matchers);
         if (chosenMatcher == null) {
-            return content.length();
+            return contentLimit;
         } else {
-            return chosenMatcher.matcher.start();
+            return chosenMatcher.start();
+        }
+    }
+
+    private void setTrimmedContent(BillFragment billFragment, CharSequence source, int start, int end) {
+        if (!sharedContent) {
+            billFragment.setContent(deleteWhiteCharsFromBeginningAndEnd(source, start, end).toString());
+            return;
+        }
+
+        int trimmedStart = skipWhiteCharsForward(source, start, end);
+        int trimmedEnd = skipWhiteCharsBackward(source, trimmedStart, end);
+        if (trimmedEnd == end && endsWithTrimmableTerminator(source, trimmedStart, end)) {
+            //Trimmed content isn't a single span of the source
+            billFragment.setContent(deleteWhiteCharsFromBeginningAndEnd(source, start, end).toString());
+        } else {
+            billFragment.setContentSpan(source, trimmedStart, trimmedEnd);
+        }
+    }
+
+    //Same result as removing "^[ \t\n\r]+" and "[ \t\n\r]+$", which also strips white chars before a final line terminator
+    private CharSequence deleteWhiteCharsFromBeginningAndEnd(CharSequence source, int start, int end) {
+        int trimmedStart = skipWhiteCharsForward(source, start, end);
+        int trimmedEnd = skipWhiteCharsBackward(source, trimmedStart, end);
+        if (trimmedEnd == end && endsWithTrimmableTerminator(source, trimmedStart, end)) {
+            int terminatorPosition = end - 1;
+            int whiteCharsStart = skipWhiteCharsBackward(source, trimmedStart, terminatorPosition);
+            return new StringBuilder(whiteCharsStart - trimmedStart + 1)
+                    .append(source, trimmedStart, whiteCharsStart)
+                    .append(source.charAt(terminatorPosition));
+        }
+        return source.subSequence(trimmedStart, trimmedEnd);
+    }
+
+    private int skipWhiteCharsForward(CharSequence source, int start, int end) {
+        while (start < end && isWhiteChar(source.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private int skipWhiteCharsBackward(CharSequence source, int start, int end) {
+        while (end > start && isWhiteChar(source.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    //Line terminators which "$" matches before, but which aren't white chars themselves
+    private boolean endsWithTrimmableTerminator(CharSequence source, int start, int end) {
+        if (end - start < 2) {
+            return false;
         }
+        char last = source.charAt(end - 1);
+        boolean terminator = last == '\u0085' || last == '\u2028' || last == '\u2029';
+        return terminator && isWhiteChar(source.charAt(end - 2));
     }
 
-    private String deleteWhiteCharsFromBeginningAndEnd(String content) {
-        content = content.replaceAll("^[ \\t\\n\\r]+", "");
-        content = content.replaceAll("[ \\t\\n\\r]+$", "");
-        return content;
+    private boolean isWhiteChar(char character) {
+        return character == ' ' || character == '\t' || character == '\n' || character == '\r';
     }
-}
\ No newline at end of file
+}
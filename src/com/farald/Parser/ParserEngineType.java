@@ -0,0 +1,5 @@
+package com.farald.Parser;
+
+public enum ParserEngineType {
+    Recursive, CombinedLevels, GlobalMatch, Lexer
+}
@@ -1,17 +1,21 @@
 package com.farald.Parser;
 
-import java.util.regex.Matcher;
-
-public class ParserMatcher {
-    public final Matcher matcher;
+//Cursor over the successive matches of a rule in the parsed content
+public abstract class ParserMatcher {
     public final ParserRule rule;
     public boolean availability;
     public int timesMatched;
 
-    public ParserMatcher(Matcher matcher, ParserRule rule) {
-        this.matcher = matcher;
+    public ParserMatcher(ParserRule rule) {
         this.rule = rule;
         this.availability = true;
         timesMatched = 0;
     }
+
+    //Moves to the next match, false if there are no more matches
+    public abstract boolean find();
+
+    public abstract int start();
+
+    public abstract int end();
 }
@@ -0,0 +1,58 @@
+package com.farald.Parser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Cost of every rule while parsing with profiling on, collected over all documents parsed with the profile.
+//Level passes of the CombinedLevels and Lexer engines find all identifiers of a level at once, their matchers
+//only replay the found matches, so with those engines the time of a rule doesn't include the pass.
+public class ParserProfile {
+    private static final int PATTERN_WIDTH = 48;
+
+    private final Map<ParserRule, ParserRuleProfile> ruleProfiles;
+
+    public ParserProfile() {
+        ruleProfiles = new IdentityHashMap<>();
+    }
+
+    public synchronized ParserRuleProfile getRuleProfile(ParserRule rule) {
+        return ruleProfiles.computeIfAbsent(rule, ParserRuleProfile::new);
+    }
+
+    public synchronized List<ParserRuleProfile> getRuleProfiles() {
+        return new ArrayList<>(ruleProfiles.values());
+    }
+
+    List<ParserMatcher> profileMatchers(List<? extends ParserMatcher> matchers, int regionStart, int regionEnd) {
+        List<ParserMatcher> profiledMatchers = new ArrayList<>(matchers.size());
+        for (ParserMatcher matcher : matchers) {
+            profiledMatchers.add(new ProfiledParserMatcher(matcher, getRuleProfile(matcher.rule), regionStart, regionEnd));
+        }
+        return profiledMatchers;
+    }
+
+    //Most expensive rules first
+    public void writeTable(Appendable output) throws IOException {
+        List<ParserRuleProfile> profiles = getRuleProfiles();
+        profiles.sort(Comparator.comparingLong(ParserRuleProfile::getFindNanos).reversed());
+
+        output.append(String.format("%-10s %-" + PATTERN_WIDTH + "s %10s %10s %14s %10s %10s%n",
+                "Type", "Pattern", "Finds", "Matches", "Scanned chars", "Time ms", "NoMatch"));
+        for (ParserRuleProfile profile : profiles) {
+            output.append(String.format("%-10s %-" + PATTERN_WIDTH + "s %,10d %,10d %,14d %10.2f %,10d%n",
+                    profile.rule.parserRuleType, shorten(profile.rule.pattern.pattern()), profile.getFindCalls(), profile.getMatches(),
+                    profile.getScannedCharacters(), profile.getFindNanos() / 1e6, profile.getNoMatchFallbacks()));
+        }
+    }
+
+    private static String shorten(String pattern) {
+        if (pattern.length() <= PATTERN_WIDTH) {
+            return pattern;
+        }
+        return pattern.substring(0, PATTERN_WIDTH - 3) + "...";
+    }
+}
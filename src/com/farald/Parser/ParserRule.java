@@ -1,5 +1,7 @@
 package com.farald.Parser;
 
+import com.farald.Lexer.IdentifierSpec;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -10,8 +12,14 @@ public class ParserRule {
     public final ParserRuleType parserRuleType;
     public final List<ParserRule> subRules;
     public final int matchLimit;
+    //Recognizes the same identifiers as the pattern without a regex, used by the Lexer engine. Can be null.
+    public final IdentifierSpec identifierSpec;
 
     public ParserRule(String pattern, ParserRuleType parserRuleType, int matchLimit) {
+        this(pattern, parserRuleType, matchLimit, null);
+    }
+
+    public ParserRule(String pattern, ParserRuleType parserRuleType, int matchLimit, IdentifierSpec identifierSpec) {
         if (matchLimit <= 0) {
             throw new IllegalArgumentException("Match limit must be a positive number.");
         }
@@ -19,9 +27,14 @@ public class ParserRule {
         this.parserRuleType = parserRuleType;
         this.subRules = new ArrayList<>();
         this.matchLimit = matchLimit;
+        this.identifierSpec = identifierSpec;
     }
 
     public ParserRule(String pattern, ParserRuleType parserRuleType) {
+        this(pattern, parserRuleType, (IdentifierSpec) null);
+    }
+
+    public ParserRule(String pattern, ParserRuleType parserRuleType, IdentifierSpec identifierSpec) {
         if (parserRuleType == ParserRuleType.Limited) {
             throw new IllegalArgumentException("Match limit required.");
         }
@@ -29,6 +42,7 @@ public class ParserRule {
         this.parserRuleType = parserRuleType;
         this.subRules = new ArrayList<>();
         this.matchLimit = -1;
+        this.identifierSpec = identifierSpec;
     }
 
     public void addSubRule(ParserRule parserRule) {
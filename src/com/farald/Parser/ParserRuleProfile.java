@@ -0,0 +1,58 @@
+package com.farald.Parser;
+
+import java.util.concurrent.atomic.LongAdder;
+
+//Counters of one rule, updated by all parsing threads
+public class ParserRuleProfile {
+    public final ParserRule rule;
+    private final LongAdder findCalls;
+    private final LongAdder matches;
+    private final LongAdder scannedCharacters;
+    private final LongAdder findNanos;
+    private final LongAdder noMatchFallbacks;
+
+    public ParserRuleProfile(ParserRule rule) {
+        if (rule == null) {
+            throw new IllegalArgumentException("Rule cannot be null.");
+        }
+        this.rule = rule;
+        findCalls = new LongAdder();
+        matches = new LongAdder();
+        scannedCharacters = new LongAdder();
+        findNanos = new LongAdder();
+        noMatchFallbacks = new LongAdder();
+    }
+
+    public void addFind(boolean matched, long scanned, long nanos) {
+        findCalls.increment();
+        if (matched) {
+            matches.increment();
+        }
+        scannedCharacters.add(scanned);
+        findNanos.add(nanos);
+    }
+
+    public void addNoMatchFallback() {
+        noMatchFallbacks.increment();
+    }
+
+    public long getFindCalls() {
+        return findCalls.sum();
+    }
+
+    public long getMatches() {
+        return matches.sum();
+    }
+
+    public long getScannedCharacters() {
+        return scannedCharacters.sum();
+    }
+
+    public long getFindNanos() {
+        return findNanos.sum();
+    }
+
+    public long getNoMatchFallbacks() {
+        return noMatchFallbacks.sum();
+    }
+}
@@ -0,0 +1,200 @@
+package com.farald.Parser;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Pattern;
+
+//Conservative check of the constructs which make a match depend on the text around it.
+//Accepted patterns can only look outside a match with "(?m)^" at the start of the match and with "(?m)$".
+public class PatternAnchors {
+    public final boolean multilineCaret;
+    public final boolean multilineDollar;
+
+    private PatternAnchors(boolean multilineCaret, boolean multilineDollar) {
+        this.multilineCaret = multilineCaret;
+        this.multilineDollar = multilineDollar;
+    }
+
+    //Null for patterns using boundaries, lookaround, non-multiline anchors, "^" which isn't at the start of a match
+    //or flags changing line terminators
+    public static PatternAnchors analyze(Pattern pattern) {
+        if ((pattern.flags() & (Pattern.COMMENTS | Pattern.LITERAL | Pattern.UNIX_LINES | Pattern.CANON_EQ)) != 0) {
+            return null;
+        }
+
+        String regex = pattern.pattern();
+        boolean multiline = (pattern.flags() & Pattern.MULTILINE) != 0;
+        Deque<Boolean> enclosingMultiline = new ArrayDeque<>();
+        //Whether nothing has to be matched before the current position, for every enclosing group
+        Deque<Boolean> enclosingAtMatchStart = new ArrayDeque<>();
+        boolean atMatchStart = true;
+        boolean multilineCaret = false;
+        boolean multilineDollar = false;
+
+        int position = 0;
+        while (position < regex.length()) {
+            char current = regex.charAt(position);
+            if (current == '\\') {
+                if (position + 1 >= regex.length()) {
+                    return null;
+                }
+                char escaped = regex.charAt(position + 1);
+                if ("bBAGZz".indexOf(escaped) >= 0) {
+                    return null;
+                }
+                atMatchStart = false;
+                if (escaped == 'Q') {
+                    int quoteEnd = regex.indexOf("\\E", position + 2);
+                    if (quoteEnd < 0) {
+                        return null;
+                    }
+                    position = quoteEnd + 2;
+                } else {
+                    position += 2;
+                }
+            } else if (current == '[') {
+                atMatchStart = false;
+                position = skipCharacterClass(regex, position);
+                if (position < 0) {
+                    return null;
+                }
+            } else if (current == '(') {
+                if (!regex.startsWith("(?", position)) {
+                    enclosingMultiline.push(multiline);
+                    enclosingAtMatchStart.push(atMatchStart);
+                    position++;
+                    continue;
+                }
+                int flagsEnd = position + 2;
+                while (flagsEnd < regex.length() && Character.isLetter(regex.charAt(flagsEnd))) {
+                    flagsEnd++;
+                }
+                String flags = regex.substring(position + 2, flagsEnd);
+                if (flagsEnd >= regex.length() || !flags.matches("[misu]*")) {
+                    return null;
+                }
+                char flagsTerminator = regex.charAt(flagsEnd);
+                if (flagsTerminator == ')' && flags.length() > 0) {
+                    //Inline flags apply until the end of the enclosing group
+                    multiline = multiline || flags.indexOf('m') >= 0;
+                    position = flagsEnd + 1;
+                } else if (flagsTerminator == ':') {
+                    enclosingMultiline.push(multiline);
+                    enclosingAtMatchStart.push(atMatchStart);
+                    multiline = multiline || flags.indexOf('m') >= 0;
+                    position = flagsEnd + 1;
+                } else if (flagsTerminator == '>' && flags.length() == 0) {
+                    enclosingMultiline.push(multiline);
+                    enclosingAtMatchStart.push(atMatchStart);
+                    position = flagsEnd + 1;
+                } else if (flagsTerminator == '<' && flags.length() == 0 && flagsEnd + 1 < regex.length()
+                        && Character.isLetter(regex.charAt(flagsEnd + 1))) {
+                    //Named group
+                    enclosingMultiline.push(multiline);
+                    enclosingAtMatchStart.push(atMatchStart);
+                    position = flagsEnd + 1;
+                } else {
+                    //Lookaround, negative flags and other constructs
+                    return null;
+                }
+            } else if (current == ')') {
+                if (enclosingMultiline.isEmpty()) {
+                    return null;
+                }
+                multiline = enclosingMultiline.pop();
+                enclosingAtMatchStart.pop();
+                atMatchStart = false;
+                position++;
+            } else if (current == '|') {
+                atMatchStart = enclosingAtMatchStart.isEmpty() || enclosingAtMatchStart.peek();
+                position++;
+            } else if (current == '^' || current == '$') {
+                if (!multiline) {
+                    return null;
+                }
+                if (current == '^') {
+                    if (!atMatchStart) {
+                        return null;
+                    }
+                    multilineCaret = true;
+                } else {
+                    multilineDollar = true;
+                    atMatchStart = false;
+                }
+                position++;
+            } else {
+                atMatchStart = false;
+                position++;
+            }
+        }
+        return new PatternAnchors(multilineCaret, multilineDollar);
+    }
+
+    //Whether "(?m)^" matches at position of the whole text
+    public static boolean isLineStart(CharSequence text, int position) {
+        if (position == text.length()) {
+            return false;
+        }
+        if (position == 0) {
+            return true;
+        }
+        char previous = text.charAt(position - 1);
+        if (previous == '\r') {
+            return text.charAt(position) != '\n';
+        }
+        return previous == '\n' || previous == '\u0085' || previous == '\u2028' || previous == '\u2029';
+    }
+
+    //Whether "(?m)$" matches at position of the whole text
+    public static boolean isLineEnd(CharSequence text, int position) {
+        if (position == text.length()) {
+            return true;
+        }
+        char character = text.charAt(position);
+        if (character == '\n') {
+            return position == 0 || text.charAt(position - 1) != '\r';
+        }
+        return character == '\r' || character == '\u0085' || character == '\u2028' || character == '\u2029';
+    }
+
+    //Position after the class, nested classes are skipped as a whole
+    private static int skipCharacterClass(String regex, int classStart) {
+        int depth = 0;
+        int position = classStart;
+        while (position < regex.length()) {
+            char current = regex.charAt(position);
+            if (current == '\\') {
+                if (regex.startsWith("\\Q", position)) {
+                    int quoteEnd = regex.indexOf("\\E", position + 2);
+                    if (quoteEnd < 0) {
+                        return -1;
+                    }
+                    position = quoteEnd + 2;
+                    continue;
+                }
+                position += 2;
+                continue;
+            }
+            if (current == '[') {
+                depth++;
+                position++;
+                //"]" right after the opening bracket (or "^") is a literal
+                if (position < regex.length() && regex.charAt(position) == '^') {
+                    position++;
+                }
+                if (position < regex.length() && regex.charAt(position) == ']') {
+                    position++;
+                }
+                continue;
+            }
+            if (current == ']') {
+                depth--;
+                if (depth == 0) {
+                    return position + 1;
+                }
+            }
+            position++;
+        }
+        return -1;
+    }
+}
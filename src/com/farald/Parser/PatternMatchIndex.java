@@ -0,0 +1,167 @@
+package com.farald.Parser;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//All matches of one pattern found by a single scan of the whole document text.
+//Matches inside a content span are the same as found by a matcher limited to that span, as long as no match crosses
+//the span bounds and the pattern doesn't look at the text around the span (anchors, boundaries, lookaround).
+public class PatternMatchIndex {
+    private final Pattern pattern;
+    private final CharSequence text;
+    private final boolean indexable;
+    private final boolean multilineCaret;
+    private final boolean multilineDollar;
+    private int[] matchStarts;
+    private int[] matchEnds;
+    private int matchCount;
+
+    private PatternMatchIndex(Pattern pattern, CharSequence text) {
+        this.pattern = pattern;
+        this.text = text;
+
+        PatternAnchors anchors = PatternAnchors.analyze(pattern);
+        this.indexable = anchors != null && !canMatchEmpty(pattern);
+        this.multilineCaret = anchors != null && anchors.multilineCaret;
+        this.multilineDollar = anchors != null && anchors.multilineDollar;
+
+        this.matchStarts = new int[16];
+        this.matchEnds = new int[16];
+        this.matchCount = 0;
+        if (indexable) {
+            findAllMatches();
+        }
+    }
+
+    public static PatternMatchIndex build(Pattern pattern, CharSequence text) {
+        if (pattern == null || text == null) {
+            throw new IllegalArgumentException("Pattern and text cannot be null.");
+        }
+        return new PatternMatchIndex(pattern, text);
+    }
+
+    private void findAllMatches() {
+        Matcher matcher = pattern.matcher(text);
+        PatternStarts patternStarts = PatternStarts.analyze(pattern);
+        if (patternStarts == null) {
+            while (matcher.find()) {
+                addMatch(matcher.start(), matcher.end());
+            }
+            return;
+        }
+
+        //Same matches as find(), which tries every position, but only positions where a match can start are tried.
+        //Transparent and non-anchoring bounds make the match at a position independent of the region start.
+        matcher.useTransparentBounds(true).useAnchoringBounds(false);
+        int textLength = text.length();
+        int position = 0;
+        while (position < textLength) {
+            char character = text.charAt(position);
+            boolean possibleStart = patternStarts.firstCharacters.get(character)
+                    || (patternStarts.lineStarts && isLineStart(position));
+            if (possibleStart && matcher.region(position, textLength).lookingAt()) {
+                addMatch(matcher.start(), matcher.end());
+                position = matcher.end();
+            } else {
+                position++;
+            }
+        }
+    }
+
+    private void addMatch(int start, int end) {
+        if (matchCount == matchStarts.length) {
+            matchStarts = Arrays.copyOf(matchStarts, matchCount * 2);
+            matchEnds = Arrays.copyOf(matchEnds, matchCount * 2);
+        }
+        matchStarts[matchCount] = start;
+        matchEnds[matchCount] = end;
+        matchCount++;
+    }
+
+    //<editor-fold desc="Getters">
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    public CharSequence getText() {
+        return text;
+    }
+
+    public boolean isIndexable() {
+        return indexable;
+    }
+
+    public boolean hasMultilineCaret() {
+        return multilineCaret;
+    }
+
+    public int getMatchCount() {
+        return matchCount;
+    }
+
+    public int getMatchStart(int matchNumber) {
+        return matchStarts[matchNumber];
+    }
+
+    public int getMatchEnd(int matchNumber) {
+        return matchEnds[matchNumber];
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Span lookup">
+    //Number of the first match starting at or after position
+    public int findFirstMatchFrom(int position) {
+        int low = 0;
+        int high = matchCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (matchStarts[middle] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    //Null if the matches of [start, end) can't be taken from the index. With multiline caret the caller has to
+    //make sure the pattern doesn't match at start, because "^" always matches at the beginning of a span.
+    public int[] getMatchRange(int start, int end) {
+        if (!indexable) {
+            return null;
+        }
+        if (multilineDollar && !PatternAnchors.isLineEnd(text, end)) {
+            return null;
+        }
+
+        int firstMatch = findFirstMatchFrom(start);
+        if (firstMatch > 0 && matchEnds[firstMatch - 1] > start) {
+            return null;
+        }
+        int lastMatch = findFirstMatchFrom(end);
+        if (lastMatch > firstMatch && matchEnds[lastMatch - 1] > end) {
+            return null;
+        }
+        return new int[]{firstMatch, lastMatch};
+    }
+
+    public boolean isLineStart(int position) {
+        return PatternAnchors.isLineStart(text, position);
+    }
+
+    //Empty matches depend on the span end in ways the index can't follow
+    public static boolean canMatchEmpty(Pattern pattern) {
+        String[] samples = {"", "\n", "\n\n", "a"};
+        for (String sample : samples) {
+            Matcher matcher = pattern.matcher(sample);
+            while (matcher.find()) {
+                if (matcher.start() == matcher.end()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    //</editor-fold>
+}
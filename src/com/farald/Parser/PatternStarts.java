@@ -0,0 +1,276 @@
+package com.farald.Parser;
+
+import java.util.BitSet;
+import java.util.regex.Pattern;
+
+//Positions at which a match of the pattern can start: characters which can begin a match and, for alternatives
+//starting with "(?m)^", line starts. Matching is then tried only at those positions instead of at every character.
+public class PatternStarts {
+    public final BitSet firstCharacters;
+    public final boolean lineStarts;
+
+    private PatternStarts(BitSet firstCharacters, boolean lineStarts) {
+        this.firstCharacters = firstCharacters;
+        this.lineStarts = lineStarts;
+    }
+
+    //Null if the first characters can't be determined, analyzed pattern must be accepted by PatternAnchors
+    public static PatternStarts analyze(Pattern pattern) {
+        if ((pattern.flags() & (Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CHARACTER_CLASS)) != 0) {
+            return null;
+        }
+        Analysis analysis = new Analysis(pattern.pattern());
+        if (!analysis.analyzeAlternatives() || analysis.position != analysis.regex.length()) {
+            return null;
+        }
+        return new PatternStarts(analysis.firstCharacters, analysis.lineStarts);
+    }
+
+    private static class Analysis {
+        private final String regex;
+        private final BitSet firstCharacters;
+        private boolean lineStarts;
+        private int position;
+
+        private Analysis(String regex) {
+            this.regex = regex;
+            this.firstCharacters = new BitSet();
+            this.lineStarts = false;
+            this.position = 0;
+        }
+
+        //Alternatives up to the closing bracket of the current group, position is left on that bracket
+        private boolean analyzeAlternatives() {
+            while (true) {
+                if (!analyzeFirstElement()) {
+                    return false;
+                }
+                skipToAlternativeEnd();
+                if (position >= regex.length() || regex.charAt(position) == ')') {
+                    return true;
+                }
+                position++; //'|'
+            }
+        }
+
+        private boolean analyzeFirstElement() {
+            if (position >= regex.length()) {
+                return false;
+            }
+            char current = regex.charAt(position);
+            switch (current) {
+                case '(':
+                    return analyzeGroup();
+                case '^':
+                    lineStarts = true;
+                    position++;
+                    return true;
+                case '[':
+                    return addCharacterClass() && checkRequiredElement();
+                case '\\':
+                    return addEscape() && checkRequiredElement();
+                case '.':
+                case '$':
+                case '|':
+                case ')':
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    return false;
+                default:
+                    if (Character.isSurrogate(current)) {
+                        return false;
+                    }
+                    firstCharacters.set(current);
+                    position++;
+                    return checkRequiredElement();
+            }
+        }
+
+        private boolean analyzeGroup() {
+            if (regex.startsWith("(?", position)) {
+                int flagsEnd = position + 2;
+                while (flagsEnd < regex.length() && Character.isLetter(regex.charAt(flagsEnd))) {
+                    flagsEnd++;
+                }
+                if (flagsEnd >= regex.length() || regex.substring(position + 2, flagsEnd).indexOf('i') >= 0) {
+                    return false;
+                }
+                char flagsTerminator = regex.charAt(flagsEnd);
+                if (flagsTerminator == ')') {
+                    //Inline flags don't match anything, first element follows them
+                    position = flagsEnd + 1;
+                    return analyzeFirstElement();
+                }
+                if (flagsTerminator == ':' || flagsTerminator == '>') {
+                    position = flagsEnd + 1;
+                } else if (flagsTerminator == '<' && flagsEnd == position + 2) {
+                    int nameEnd = regex.indexOf('>', flagsEnd);
+                    if (nameEnd < 0) {
+                        return false;
+                    }
+                    position = nameEnd + 1;
+                } else {
+                    return false;
+                }
+            } else {
+                position++;
+            }
+
+            if (!analyzeAlternatives() || position >= regex.length()) {
+                return false;
+            }
+            position++; //')'
+            return checkRequiredElement();
+        }
+
+        //Element which may be skipped by its quantifier doesn't determine the first character
+        private boolean checkRequiredElement() {
+            if (position >= regex.length()) {
+                return true;
+            }
+            char quantifier = regex.charAt(position);
+            if (quantifier == '?' || quantifier == '*') {
+                return false;
+            }
+            return !regex.startsWith("{0", position) && !regex.startsWith("{,", position);
+        }
+
+        private boolean addEscape() {
+            if (position + 1 >= regex.length()) {
+                return false;
+            }
+            char escaped = regex.charAt(position + 1);
+            position += 2;
+            switch (escaped) {
+                case 'd':
+                    firstCharacters.set('0', '9' + 1);
+                    return true;
+                case 's':
+                    firstCharacters.set(' ');
+                    firstCharacters.set('\t', '\r' + 1);
+                    return true;
+                case 't':
+                    firstCharacters.set('\t');
+                    return true;
+                case 'n':
+                    firstCharacters.set('\n');
+                    return true;
+                case 'r':
+                    firstCharacters.set('\r');
+                    return true;
+                default:
+                    if (Character.isLetterOrDigit(escaped) || Character.isSurrogate(escaped)) {
+                        return false;
+                    }
+                    firstCharacters.set(escaped);
+                    return true;
+            }
+        }
+
+        //Simple classes of characters and ranges only
+        private boolean addCharacterClass() {
+            int classPosition = position + 1;
+            if (classPosition < regex.length() && regex.charAt(classPosition) == '^') {
+                return false;
+            }
+            BitSet classCharacters = new BitSet();
+            boolean first = true;
+            while (classPosition < regex.length()) {
+                char low = regex.charAt(classPosition);
+                if (low == ']' && !first) {
+                    position = classPosition + 1;
+                    firstCharacters.or(classCharacters);
+                    return true;
+                }
+                first = false;
+                if (low == '[' || regex.startsWith("&&", classPosition)) {
+                    return false;
+                }
+                if (low == '\\') {
+                    if (classPosition + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(classPosition + 1))) {
+                        return false;
+                    }
+                    low = regex.charAt(classPosition + 1);
+                    classPosition += 2;
+                } else {
+                    classPosition++;
+                }
+                if (Character.isSurrogate(low)) {
+                    return false;
+                }
+                char high = low;
+                if (classPosition + 1 < regex.length() && regex.charAt(classPosition) == '-' && regex.charAt(classPosition + 1) != ']') {
+                    high = regex.charAt(classPosition + 1);
+                    if (high == '\\' || high == '[' || high < low || Character.isSurrogate(high)) {
+                        return false;
+                    }
+                    classPosition += 2;
+                }
+                classCharacters.set(low, high + 1);
+            }
+            return false;
+        }
+
+        //Skips the rest of the alternative, position is left on '|', ')' closing the group or the end of the pattern
+        private void skipToAlternativeEnd() {
+            int depth = 0;
+            while (position < regex.length()) {
+                char current = regex.charAt(position);
+                if (current == '\\') {
+                    if (regex.startsWith("\\Q", position)) {
+                        int quoteEnd = regex.indexOf("\\E", position + 2);
+                        position = quoteEnd < 0 ? regex.length() : quoteEnd + 2;
+                    } else {
+                        position += 2;
+                    }
+                    continue;
+                }
+                if (current == '[') {
+                    position = skipCharacterClass(position);
+                    continue;
+                }
+                if (current == '(') {
+                    depth++;
+                } else if (current == ')') {
+                    if (depth == 0) {
+                        return;
+                    }
+                    depth--;
+                } else if (current == '|' && depth == 0) {
+                    return;
+                }
+                position++;
+            }
+        }
+
+        private int skipCharacterClass(int classStart) {
+            int depth = 0;
+            int classPosition = classStart;
+            while (classPosition < regex.length()) {
+                char current = regex.charAt(classPosition);
+                if (current == '\\') {
+                    classPosition += 2;
+                    continue;
+                }
+                if (current == '[') {
+                    depth++;
+                    classPosition++;
+                    if (classPosition < regex.length() && regex.charAt(classPosition) == '^') {
+                        classPosition++;
+                    }
+                    if (classPosition < regex.length() && regex.charAt(classPosition) == ']') {
+                        classPosition++;
+                    }
+                    continue;
+                }
+                if (current == ']' && --depth == 0) {
+                    return classPosition + 1;
+                }
+                classPosition++;
+            }
+            return regex.length();
+        }
+    }
+}
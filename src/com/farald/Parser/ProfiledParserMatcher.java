@@ -0,0 +1,46 @@
+package com.farald.Parser;
+
+//Counts and times the finds of another matcher. Characters are counted as scanned only for regex matchers,
+//from the end of the previous match (or the region start) to the end of the match (or the region end).
+public class ProfiledParserMatcher extends ParserMatcher {
+    private final ParserMatcher matcher;
+    private final ParserRuleProfile profile;
+    private final boolean scanning;
+    private final int regionEnd;
+    private int scanPosition;
+
+    public ProfiledParserMatcher(ParserMatcher matcher, ParserRuleProfile profile, int regionStart, int regionEnd) {
+        super(matcher.rule);
+        this.matcher = matcher;
+        this.profile = profile;
+        this.scanning = matcher instanceof RegexParserMatcher;
+        this.regionEnd = regionEnd;
+        this.scanPosition = regionStart;
+    }
+
+    @Override
+    public boolean find() {
+        long findStart = System.nanoTime();
+        boolean matched = matcher.find();
+        long nanos = System.nanoTime() - findStart;
+
+        long scanned = 0;
+        if (scanning) {
+            int scanEnd = matched ? matcher.end() : regionEnd;
+            scanned = Math.max(0, scanEnd - scanPosition);
+            scanPosition = scanEnd;
+        }
+        profile.addFind(matched, scanned, nanos);
+        return matched;
+    }
+
+    @Override
+    public int start() {
+        return matcher.start();
+    }
+
+    @Override
+    public int end() {
+        return matcher.end();
+    }
+}
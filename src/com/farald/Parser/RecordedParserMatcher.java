@@ -0,0 +1,59 @@
+package com.farald.Parser;
+
+import java.util.Arrays;
+
+//Replays matches of a rule found beforehand
+public class RecordedParserMatcher extends ParserMatcher {
+    private int[] matchStarts;
+    private int[] matchEnds;
+    private int matchCount;
+    private int currentMatch;
+
+    public RecordedParserMatcher(ParserRule rule) {
+        super(rule);
+        this.matchStarts = new int[4];
+        this.matchEnds = new int[4];
+        this.matchCount = 0;
+        this.currentMatch = -1;
+    }
+
+    public void addMatch(int start, int end) {
+        if (matchCount == matchStarts.length) {
+            matchStarts = Arrays.copyOf(matchStarts, matchCount * 2);
+            matchEnds = Arrays.copyOf(matchEnds, matchCount * 2);
+        }
+        matchStarts[matchCount] = start;
+        matchEnds[matchCount] = end;
+        matchCount++;
+    }
+
+    public int getMatchCount() {
+        return matchCount;
+    }
+
+    @Override
+    public boolean find() {
+        if (currentMatch < matchCount) {
+            currentMatch++;
+        }
+        return currentMatch < matchCount;
+    }
+
+    @Override
+    public int start() {
+        checkCurrentMatch();
+        return matchStarts[currentMatch];
+    }
+
+    @Override
+    public int end() {
+        checkCurrentMatch();
+        return matchEnds[currentMatch];
+    }
+
+    private void checkCurrentMatch() {
+        if (currentMatch < 0 || currentMatch >= matchCount) {
+            throw new IllegalStateException("No match available.");
+        }
+    }
+}
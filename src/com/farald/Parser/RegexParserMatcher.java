@@ -0,0 +1,27 @@
+package com.farald.Parser;
+
+import java.util.regex.Matcher;
+
+public class RegexParserMatcher extends ParserMatcher {
+    public final Matcher matcher;
+
+    public RegexParserMatcher(Matcher matcher, ParserRule rule) {
+        super(rule);
+        this.matcher = matcher;
+    }
+
+    @Override
+    public boolean find() {
+        return matcher.find();
+    }
+
+    @Override
+    public int start() {
+        return matcher.start();
+    }
+
+    @Override
+    public int end() {
+        return matcher.end();
+    }
+}
@@ -0,0 +1,38 @@
+package com.farald.Parser;
+
+public class ReparseReport {
+    //True if the whole document was parsed, e.g. the previous tree was loaded from a snapshot
+    public final boolean fullParse;
+    public final int changeCount;
+    //Fragments whose level was matched again on the way from the root to the changes
+    public final int splitFragmentCount;
+    //Fragments of new subtrees parsed from scratch
+    public final int parsedFragmentCount;
+    //Fragments with unchanged content copied from the previous tree
+    public final int copiedFragmentCount;
+
+    public ReparseReport(boolean fullParse, int changeCount, int splitFragmentCount, int parsedFragmentCount, int copiedFragmentCount) {
+        this.fullParse = fullParse;
+        this.changeCount = changeCount;
+        this.splitFragmentCount = splitFragmentCount;
+        this.parsedFragmentCount = parsedFragmentCount;
+        this.copiedFragmentCount = copiedFragmentCount;
+    }
+
+    public static ReparseReport fullParse(int fragmentCount) {
+        return new ReparseReport(true, 1, 0, fragmentCount, 0);
+    }
+
+    public int getFragmentCount() {
+        return splitFragmentCount + parsedFragmentCount + copiedFragmentCount;
+    }
+
+    @Override
+    public String toString() {
+        if (fullParse) {
+            return String.format("Full parse: %d fragments", parsedFragmentCount);
+        }
+        return String.format("Changes: %d, fragments split again: %d, parsed: %d, copied: %d",
+                changeCount, splitFragmentCount, parsedFragmentCount, copiedFragmentCount);
+    }
+}
@@ -0,0 +1,248 @@
+package com.farald.Parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Differences between two texts found line by line. Every change replaces [previousStart, previousEnd) of the previous
+//text with [start, end) of the new one, changes are ordered and one of the ranges can be empty. Lines are compared
+//with the shortest edit script when it has at most MAX_EDITS lines, larger differences are a single change.
+public class TextChanges {
+    private static final int MAX_EDITS = 1000;
+
+    private final int[] previousStarts;
+    private final int[] previousEnds;
+    private final int[] starts;
+    private final int[] ends;
+
+    private TextChanges(int[] previousStarts, int[] previousEnds, int[] starts, int[] ends) {
+        this.previousStarts = previousStarts;
+        this.previousEnds = previousEnds;
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    public static TextChanges compute(String previousText, String text) {
+        if (previousText == null || text == null) {
+            throw new IllegalArgumentException("Texts cannot be null.");
+        }
+        return new Diff(new Lines(previousText), new Lines(text)).compute();
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    public int getPreviousStart(int change) {
+        return previousStarts[change];
+    }
+
+    public int getPreviousEnd(int change) {
+        return previousEnds[change];
+    }
+
+    public int getStart(int change) {
+        return starts[change];
+    }
+
+    public int getEnd(int change) {
+        return ends[change];
+    }
+
+    //Position in the new text of the character at the position of the previous text, -1 if the character was changed.
+    //Text inserted at the position is before it.
+    public int map(int previousPosition) {
+        //Changes ending at or before the position, previous ends are ordered
+        int unchanged = upperBound(previousEnds, previousPosition);
+        if (unchanged < previousStarts.length && previousStarts[unchanged] < previousPosition) {
+            return -1;
+        }
+        return unchanged == 0 ? previousPosition : previousPosition - previousEnds[unchanged - 1] + ends[unchanged - 1];
+    }
+
+    //True if no character of [previousStart, previousEnd) of the previous text was changed and nothing was inserted inside it
+    public boolean isUnchanged(int previousStart, int previousEnd) {
+        for (int change = upperBound(previousEnds, previousStart - 1); change < previousStarts.length; change++) {
+            if (previousStarts[change] >= previousEnd) {
+                return true;
+            }
+            if (previousEnds[change] > previousStart || previousStarts[change] > previousStart) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Number of values not greater than the value
+    private static int upperBound(int[] values, int value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    //<editor-fold desc="Line diff">
+    //Lines of a text with their "\n", the last line may have none
+    private static class Lines {
+        private final String text;
+        //Start of every line and the length of the text
+        private final int[] starts;
+        private final int[] hashes;
+
+        private Lines(String text) {
+            this.text = text;
+            int count = 0;
+            for (int position = 0; position < text.length(); count++) {
+                int lineEnd = text.indexOf('\n', position);
+                position = lineEnd < 0 ? text.length() : lineEnd + 1;
+            }
+            starts = new int[count + 1];
+            hashes = new int[count];
+            int position = 0;
+            for (int line = 0; line < count; line++) {
+                starts[line] = position;
+                int hash = 0;
+                char character = 0;
+                while (position < text.length() && character != '\n') {
+                    character = text.charAt(position++);
+                    hash = 31 * hash + character;
+                }
+                hashes[line] = hash;
+            }
+            starts[count] = text.length();
+        }
+
+        private int size() {
+            return hashes.length;
+        }
+
+        private int length(int line) {
+            return starts[line + 1] - starts[line];
+        }
+    }
+
+    private static class Diff {
+        private final Lines previousLines;
+        private final Lines lines;
+        private final List<int[]> changes;
+
+        private Diff(Lines previousLines, Lines lines) {
+            this.previousLines = previousLines;
+            this.lines = lines;
+            this.changes = new ArrayList<>();
+        }
+
+        private TextChanges compute() {
+            int previousEnd = previousLines.size();
+            int end = lines.size();
+            int prefix = 0;
+            while (prefix < previousEnd && prefix < end && isSameLine(prefix, prefix)) {
+                prefix++;
+            }
+            while (previousEnd > prefix && end > prefix && isSameLine(previousEnd - 1, end - 1)) {
+                previousEnd--;
+                end--;
+            }
+            if (prefix < previousEnd || prefix < end) {
+                if (prefix == previousEnd || prefix == end || !addShortestEdits(prefix, previousEnd, prefix, end)) {
+                    addChange(prefix, previousEnd, prefix, end);
+                }
+            }
+
+            int count = changes.size();
+            int[] previousStarts = new int[count];
+            int[] previousEnds = new int[count];
+            int[] starts = new int[count];
+            int[] ends = new int[count];
+            for (int change = 0; change < count; change++) {
+                int[] lineRanges = changes.get(change);
+                previousStarts[change] = previousLines.starts[lineRanges[0]];
+                previousEnds[change] = previousLines.starts[lineRanges[1]];
+                starts[change] = lines.starts[lineRanges[2]];
+                ends[change] = lines.starts[lineRanges[3]];
+            }
+            return new TextChanges(previousStarts, previousEnds, starts, ends);
+        }
+
+        //Myers' algorithm on the lines [previousStart, previousEnd) and [start, end), false if there are too many edits
+        private boolean addShortestEdits(int previousStart, int previousEnd, int start, int end) {
+            int previousCount = previousEnd - previousStart;
+            int count = end - start;
+            int maxEdits = Math.min(MAX_EDITS, previousCount + count);
+            //Furthest previous line reached on every diagonal k = x - y, diagonals are shifted by maxEdits + 1
+            int[] furthest = new int[2 * maxEdits + 3];
+            List<int[]> trace = new ArrayList<>();
+            int edits = -1;
+            for (int d = 0; d <= maxEdits && edits < 0; d++) {
+                for (int k = -d; k <= d; k += 2) {
+                    boolean down = k == -d || (k != d && furthest[k - 1 + maxEdits + 1] < furthest[k + 1 + maxEdits + 1]);
+                    int x = down ? furthest[k + 1 + maxEdits + 1] : furthest[k - 1 + maxEdits + 1] + 1;
+                    int y = x - k;
+                    while (x < previousCount && y < count && isSameLine(previousStart + x, start + y)) {
+                        x++;
+                        y++;
+                    }
+                    furthest[k + maxEdits + 1] = x;
+                    if (x >= previousCount && y >= count) {
+                        edits = d;
+                    }
+                }
+                trace.add(Arrays.copyOfRange(furthest, maxEdits + 1 - d, maxEdits + 2 + d));
+            }
+            if (edits < 0) {
+                return false;
+            }
+
+            //Edits from the end, a change is extended while edits follow each other without common lines
+            List<int[]> reversedChanges = new ArrayList<>();
+            int x = previousCount;
+            int y = count;
+            for (int d = edits; d > 0; d--) {
+                int[] previousFurthest = trace.get(d - 1);
+                int k = x - y;
+                boolean down = k == -d || (k != d && previousFurthest[k - 1 + d - 1] < previousFurthest[k + 1 + d - 1]);
+                int previousK = down ? k + 1 : k - 1;
+                int previousX = previousFurthest[previousK + d - 1];
+                int previousY = previousX - previousK;
+                int editX = down ? previousX : previousX + 1;
+                int editY = down ? previousY + 1 : previousY;
+                int[] last = reversedChanges.isEmpty() ? null : reversedChanges.get(reversedChanges.size() - 1);
+                if (last != null && last[0] == editX && last[2] == editY) {
+                    last[0] = previousX;
+                    last[2] = previousY;
+                } else {
+                    reversedChanges.add(new int[]{previousX, editX, previousY, editY});
+                }
+                x = previousX;
+                y = previousY;
+            }
+            for (int change = reversedChanges.size() - 1; change >= 0; change--) {
+                int[] lineRanges = reversedChanges.get(change);
+                addChange(previousStart + lineRanges[0], previousStart + lineRanges[1], start + lineRanges[2], start + lineRanges[3]);
+            }
+            return true;
+        }
+
+        private void addChange(int previousStart, int previousEnd, int start, int end) {
+            changes.add(new int[]{previousStart, previousEnd, start, end});
+        }
+
+        private boolean isSameLine(int previousLine, int line) {
+            int length = previousLines.length(previousLine);
+            return previousLines.hashes[previousLine] == lines.hashes[line] && length == lines.length(line)
+                    && previousLines.text.regionMatches(previousLines.starts[previousLine], lines.text, lines.starts[line], length);
+        }
+    }
+    //</editor-fold>
+}
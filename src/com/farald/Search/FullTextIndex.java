@@ -0,0 +1,411 @@
+package com.farald.Search;
+
+import com.farald.DocumentRepresentation.BillFragment;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+//Inverted index of the words of a fragment tree. Fragments are numbered in pre-order, every term has a posting list:
+//ascending numbers of the fragments with the term and the positions of the term in each of them. Words of a fragment
+//are the words of its identifier followed by the words of its own content, children aren't included.
+//A query only reads the posting lists of its terms, so its time depends on how often the terms occur, not on the
+//size of the document. The index isn't changed after it's built, many queries can read it at the same time.
+public class FullTextIndex {
+    //BM25 ranking parameters
+    private static final double TERM_SATURATION = 1.2;
+    private static final double LENGTH_NORMALIZATION = 0.75;
+    private static final int SNIPPET_CONTEXT = 60;
+    //Worse matches first, so the head of a queue of the best matches is the one to drop
+    private static final Comparator<Match> WORSE_MATCH_FIRST = Comparator.<Match>comparingDouble((x) -> x.score)
+            .thenComparing((x) -> x.fragmentNumber, Comparator.reverseOrder());
+
+    private final TextNormalizer normalizer;
+    private final BillFragment[] fragments;
+    private final int[] fragmentLengths;
+    private final double averageFragmentLength;
+    private final Map<String, PostingList> postingLists;
+
+    private FullTextIndex(TextNormalizer normalizer, BillFragment[] fragments, int[] fragmentLengths, Map<String, PostingList> postingLists) {
+        this.normalizer = normalizer;
+        this.fragments = fragments;
+        this.fragmentLengths = fragmentLengths;
+        long totalLength = 0;
+        for (int length : fragmentLengths) {
+            totalLength += length;
+        }
+        this.averageFragmentLength = Math.max(1.0, (double) totalLength / fragments.length);
+        this.postingLists = postingLists;
+    }
+
+    public static FullTextIndex build(BillFragment root, TextNormalizer normalizer) {
+        if (root == null || normalizer == null) {
+            throw new IllegalArgumentException("Root and normalizer cannot be null.");
+        }
+        IndexBuilder builder = new IndexBuilder();
+        Iterator<BillFragment> fragments = root.preOrderIterator();
+        while (fragments.hasNext()) {
+            BillFragment fragment = fragments.next();
+            builder.startFragment(fragment);
+            if (fragment.getIdentifier() != null) {
+                normalizer.forEachWord(fragment.getIdentifier(), builder);
+            }
+            if (fragment.getContentSource() != null) {
+                normalizer.forEachWord(fragment.getContentSource(), fragment.getContentStart(), fragment.getContentEnd(), builder);
+            }
+        }
+        builder.finishFragment();
+
+        Map<String, PostingList> postingLists = new HashMap<>(builder.postingLists.size() * 4 / 3 + 1);
+        for (Map.Entry<String, PostingListBuilder> entry : builder.postingLists.entrySet()) {
+            postingLists.put(entry.getKey(), entry.getValue().build());
+        }
+        return new FullTextIndex(normalizer, builder.fragments.toArray(new BillFragment[0]),
+                Arrays.copyOf(builder.fragmentLengths, builder.fragments.size()), postingLists);
+    }
+
+    public TextNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    public int getFragmentCount() {
+        return fragments.length;
+    }
+
+    public int getTermCount() {
+        return postingLists.size();
+    }
+
+    //<editor-fold desc="Search">
+    public List<SearchResult> search(String query, int limit) {
+        return search(SearchQuery.parse(query, normalizer), limit);
+    }
+
+    //Fragments with all terms and phrases of the query, the best ranked first
+    public List<SearchResult> search(SearchQuery query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        List<String> terms = query.getTerms();
+        PostingList[] lists = new PostingList[terms.size()];
+        int shortest = 0;
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postingLists.get(terms.get(i));
+            if (lists[i] == null) {
+                return new ArrayList<>();
+            }
+            if (lists[i].size() < lists[shortest].size()) {
+                shortest = i;
+            }
+        }
+        double[] termWeights = new double[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            int fragmentFrequency = lists[i].size();
+            termWeights[i] = Math.log(1 + (fragments.length - fragmentFrequency + 0.5) / (fragmentFrequency + 0.5));
+        }
+
+        //Candidates come from the shortest list, other lists are searched after their last found entry
+        int[] entries = new int[lists.length];
+        int[] searchStarts = new int[lists.length];
+        PriorityQueue<Match> bestMatches = new PriorityQueue<>(limit + 1, WORSE_MATCH_FIRST);
+        PostingList candidates = lists[shortest];
+        for (int candidate = 0; candidate < candidates.size(); candidate++) {
+            int fragmentNumber = candidates.fragmentNumbers[candidate];
+            if (!findEntries(lists, shortest, candidate, fragmentNumber, entries, searchStarts)) {
+                continue;
+            }
+            int snippetPosition = findPhrases(query.getPhrases(), lists, entries);
+            if (snippetPosition < 0) {
+                continue;
+            }
+            double score = score(fragmentNumber, lists, entries, termWeights);
+            //Fragments come in ascending order, so a later fragment with the same score is worse
+            if (bestMatches.size() == limit && score <= bestMatches.peek().score) {
+                continue;
+            }
+            bestMatches.add(new Match(fragmentNumber, score, snippetPosition));
+            if (bestMatches.size() > limit) {
+                bestMatches.poll();
+            }
+        }
+
+        Deque<SearchResult> results = new ArrayDeque<>();
+        while (!bestMatches.isEmpty()) {
+            Match match = bestMatches.poll();
+            BillFragment fragment = fragments[match.fragmentNumber];
+            results.addFirst(new SearchResult(fragment, getPath(fragment), getSnippet(fragment, match.snippetPosition), match.score));
+        }
+        return new ArrayList<>(results);
+    }
+
+    private static boolean findEntries(PostingList[] lists, int shortest, int candidate, int fragmentNumber, int[] entries, int[] searchStarts) {
+        for (int i = 0; i < lists.length; i++) {
+            if (i == shortest) {
+                entries[i] = candidate;
+                continue;
+            }
+            int entry = lists[i].findEntry(fragmentNumber, searchStarts[i]);
+            if (entry < 0) {
+                searchStarts[i] = -entry - 1;
+                return false;
+            }
+            entries[i] = entry;
+            searchStarts[i] = entry + 1;
+        }
+        return true;
+    }
+
+    //Start of the first phrase, or the first position of a term if there are no phrases. -1 if a phrase is missing.
+    private static int findPhrases(List<int[]> phrases, PostingList[] lists, int[] entries) {
+        if (phrases.isEmpty()) {
+            int firstPosition = Integer.MAX_VALUE;
+            for (int i = 0; i < lists.length; i++) {
+                firstPosition = Math.min(firstPosition, lists[i].positions[lists[i].positionStarts[entries[i]]]);
+            }
+            return firstPosition;
+        }
+        int firstPhraseStart = -1;
+        for (int[] phrase : phrases) {
+            int phraseStart = findPhrase(phrase, lists, entries);
+            if (phraseStart < 0) {
+                return -1;
+            }
+            if (firstPhraseStart < 0) {
+                firstPhraseStart = phraseStart;
+            }
+        }
+        return firstPhraseStart;
+    }
+
+    private static int findPhrase(int[] phrase, PostingList[] lists, int[] entries) {
+        PostingList first = lists[phrase[0]];
+        int firstEntry = entries[phrase[0]];
+        for (int i = first.positionStarts[firstEntry]; i < first.positionStarts[firstEntry + 1]; i++) {
+            int start = first.positions[i];
+            boolean found = true;
+            for (int word = 1; word < phrase.length && found; word++) {
+                found = lists[phrase[word]].containsPosition(entries[phrase[word]], start + word);
+            }
+            if (found) {
+                return start;
+            }
+        }
+        return -1;
+    }
+
+    private double score(int fragmentNumber, PostingList[] lists, int[] entries, double[] termWeights) {
+        double lengthRatio = fragmentLengths[fragmentNumber] / averageFragmentLength;
+        double score = 0;
+        for (int i = 0; i < lists.length; i++) {
+            int termFrequency = lists[i].termFrequency(entries[i]);
+            score += termWeights[i] * termFrequency * (TERM_SATURATION + 1)
+                    / (termFrequency + TERM_SATURATION * (1 - LENGTH_NORMALIZATION + LENGTH_NORMALIZATION * lengthRatio));
+        }
+        return score;
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Result description">
+    //Paragraphs, points and letters are named like in the queries, e.g. "DZIAŁ II, Rozdział 1, Art. 6, ust. 1, pkt 2"
+    public static String getPath(BillFragment fragment) {
+        List<String> parts = new ArrayList<>();
+        for (BillFragment part = fragment; part != null; part = part.getParent()) {
+            if (part.getIdentifier() != null) {
+                parts.add(0, getPathPart(part.getIdentifier()));
+            }
+        }
+        return parts.isEmpty() ? "(header)" : String.join(", ", parts);
+    }
+
+    private static String getPathPart(String identifier) {
+        int lineEnd = identifier.indexOf('\n');
+        String part = (lineEnd < 0 ? identifier : identifier.substring(0, lineEnd)).trim();
+        if (part.length() < 2) {
+            return part;
+        }
+        String number = part.substring(0, part.length() - 1);
+        char last = part.charAt(part.length() - 1);
+        //"1." and "1a." are paragraphs, "1)" points, "a)" letters
+        if (isEnumeration(number, true)) {
+            if (last == '.') {
+                return "ust. " + number;
+            } else if (last == ')') {
+                return "pkt " + number;
+            }
+        } else if (last == ')' && isEnumeration(number, false)) {
+            return "lit. " + number;
+        }
+        return last == '.' ? number : part;
+    }
+
+    private static boolean isEnumeration(String number, boolean startsWithDigit) {
+        if (startsWithDigit != Character.isDigit(number.charAt(0))) {
+            return false;
+        }
+        boolean letters = !startsWithDigit;
+        for (int i = 0; i < number.length(); i++) {
+            char character = number.charAt(i);
+            if (character >= 'a' && character <= 'z') {
+                letters = true;
+            } else if (letters || character < '0' || character > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Own text of the fragment around the word at the position, cut at white space, in one line
+    private static String getSnippet(BillFragment fragment, int wordPosition) {
+        String identifier = fragment.getIdentifier();
+        String content = fragment.getContent();
+        String text = (identifier == null ? "" : identifier) + "\n" + (content == null ? "" : content);
+        int[] word = TextNormalizer.findWord(text, wordPosition);
+        if (word == null) {
+            throw new IllegalStateException("Fragment text doesn't match the index.");
+        }
+
+        int snippetStart = Math.max(0, word[0] - SNIPPET_CONTEXT);
+        while (snippetStart > 0 && snippetStart < word[0] && !Character.isWhitespace(text.charAt(snippetStart - 1))) {
+            snippetStart++;
+        }
+        int snippetEnd = Math.min(text.length(), word[1] + SNIPPET_CONTEXT);
+        while (snippetEnd < text.length() && snippetEnd > word[1] && !Character.isWhitespace(text.charAt(snippetEnd))) {
+            snippetEnd--;
+        }
+
+        //White space is joined into single spaces
+        StringBuilder snippet = new StringBuilder(snippetEnd - snippetStart + 6);
+        if (snippetStart > 0) {
+            snippet.append("...");
+        }
+        boolean whitespace = false;
+        for (int i = snippetStart; i < snippetEnd; i++) {
+            char character = text.charAt(i);
+            if (Character.isWhitespace(character)) {
+                whitespace = true;
+                continue;
+            }
+            if (whitespace && snippet.length() > (snippetStart > 0 ? 3 : 0)) {
+                snippet.append(' ');
+            }
+            whitespace = false;
+            snippet.append(character);
+        }
+        if (snippetEnd < text.length()) {
+            snippet.append("...");
+        }
+        return snippet.toString();
+    }
+    //</editor-fold>
+
+    private static class Match {
+        private final int fragmentNumber;
+        private final double score;
+        private final int snippetPosition;
+
+        private Match(int fragmentNumber, double score, int snippetPosition) {
+            this.fragmentNumber = fragmentNumber;
+            this.score = score;
+            this.snippetPosition = snippetPosition;
+        }
+    }
+
+    //Positions of the term in the entry-th fragment are positions[positionStarts[entry], positionStarts[entry + 1])
+    private static class PostingList {
+        private final int[] fragmentNumbers;
+        private final int[] positionStarts;
+        private final int[] positions;
+
+        private PostingList(int[] fragmentNumbers, int[] positionStarts, int[] positions) {
+            this.fragmentNumbers = fragmentNumbers;
+            this.positionStarts = positionStarts;
+            this.positions = positions;
+        }
+
+        private int size() {
+            return fragmentNumbers.length;
+        }
+
+        //Entry of the fragment at or after the start, -(insertion point) - 1 if the fragment hasn't the term
+        private int findEntry(int fragmentNumber, int start) {
+            return Arrays.binarySearch(fragmentNumbers, Math.min(start, fragmentNumbers.length), fragmentNumbers.length, fragmentNumber);
+        }
+
+        private int termFrequency(int entry) {
+            return positionStarts[entry + 1] - positionStarts[entry];
+        }
+
+        private boolean containsPosition(int entry, int position) {
+            return Arrays.binarySearch(positions, positionStarts[entry], positionStarts[entry + 1], position) >= 0;
+        }
+    }
+
+    //<editor-fold desc="Building">
+    private static class PostingListBuilder {
+        private int[] fragmentNumbers = new int[1];
+        private int[] positionStarts = new int[2];
+        private int[] positions = new int[2];
+        private int fragmentCount = 0;
+        private int positionCount = 0;
+
+        //Fragments are added in ascending order, positions of a fragment too
+        private void add(int fragmentNumber, int position) {
+            if (fragmentCount == 0 || fragmentNumbers[fragmentCount - 1] != fragmentNumber) {
+                if (fragmentCount == fragmentNumbers.length) {
+                    fragmentNumbers = Arrays.copyOf(fragmentNumbers, fragmentCount * 2);
+                    positionStarts = Arrays.copyOf(positionStarts, fragmentCount * 2 + 1);
+                }
+                fragmentNumbers[fragmentCount] = fragmentNumber;
+                positionStarts[fragmentCount] = positionCount;
+                fragmentCount++;
+            }
+            if (positionCount == positions.length) {
+                positions = Arrays.copyOf(positions, positionCount * 2);
+            }
+            positions[positionCount++] = position;
+        }
+
+        private PostingList build() {
+            int[] builtPositionStarts = Arrays.copyOf(positionStarts, fragmentCount + 1);
+            builtPositionStarts[fragmentCount] = positionCount;
+            return new PostingList(Arrays.copyOf(fragmentNumbers, fragmentCount), builtPositionStarts, Arrays.copyOf(positions, positionCount));
+        }
+    }
+
+    private static class IndexBuilder implements TextNormalizer.WordConsumer {
+        private final List<BillFragment> fragments = new ArrayList<>();
+        private final Map<String, PostingListBuilder> postingLists = new HashMap<>();
+        private int[] fragmentLengths = new int[16];
+        private int position = 0;
+
+        private void startFragment(BillFragment fragment) {
+            finishFragment();
+            fragments.add(fragment);
+            position = 0;
+        }
+
+        private void finishFragment() {
+            int fragmentNumber = fragments.size() - 1;
+            if (fragmentNumber < 0) {
+                return;
+            }
+            if (fragmentNumber == fragmentLengths.length) {
+                fragmentLengths = Arrays.copyOf(fragmentLengths, fragmentNumber * 2);
+            }
+            fragmentLengths[fragmentNumber] = position;
+        }
+
+        @Override
+        public void accept(String term, int start, int end) {
+            postingLists.computeIfAbsent(term, (x) -> new PostingListBuilder()).add(fragments.size() - 1, position++);
+        }
+    }
+    //</editor-fold>
+}
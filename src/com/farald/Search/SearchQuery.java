@@ -0,0 +1,61 @@
+package com.farald.Search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//Words a fragment must all contain, e.g. praktyki "ograniczające konkurencję". Words in double quotes are a phrase,
+//they have to follow each other in the fragment. Terms are normalized like the indexed text.
+public class SearchQuery {
+    private final List<String> terms;
+    //Phrases as indexes of their terms, only phrases of two or more words
+    private final List<int[]> phrases;
+
+    private SearchQuery(List<String> terms, List<int[]> phrases) {
+        this.terms = terms;
+        this.phrases = phrases;
+    }
+
+    public static SearchQuery parse(String query, TextNormalizer normalizer) {
+        if (query == null || normalizer == null) {
+            throw new IllegalArgumentException("Query and normalizer cannot be null.");
+        }
+        List<String> terms = new ArrayList<>();
+        List<int[]> phrases = new ArrayList<>();
+        //Quotes split the query into parts, odd parts are phrases. An unclosed quote ends with the query.
+        String[] parts = query.split("\"", -1);
+        for (int part = 0; part < parts.length; part++) {
+            List<Integer> partTerms = new ArrayList<>();
+            normalizer.forEachWord(parts[part], (term, start, end) -> partTerms.add(addTerm(terms, term)));
+            if (part % 2 == 1 && partTerms.size() > 1) {
+                int[] phrase = new int[partTerms.size()];
+                for (int i = 0; i < phrase.length; i++) {
+                    phrase[i] = partTerms.get(i);
+                }
+                phrases.add(phrase);
+            }
+        }
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Query has no words.");
+        }
+        return new SearchQuery(Collections.unmodifiableList(terms), Collections.unmodifiableList(phrases));
+    }
+
+    private static int addTerm(List<String> terms, String term) {
+        int index = terms.indexOf(term);
+        if (index < 0) {
+            terms.add(term);
+            index = terms.size() - 1;
+        }
+        return index;
+    }
+
+    //Distinct terms in the query order
+    public List<String> getTerms() {
+        return terms;
+    }
+
+    public List<int[]> getPhrases() {
+        return phrases;
+    }
+}
@@ -0,0 +1,23 @@
+package com.farald.Search;
+
+import com.farald.DocumentRepresentation.BillFragment;
+
+public class SearchResult {
+    public final BillFragment fragment;
+    //Identifiers from the top of the document, e.g. "DZIAŁ II, Rozdział 1, Art. 6, ust. 1, pkt 2"
+    public final String path;
+    public final String snippet;
+    public final double score;
+
+    public SearchResult(BillFragment fragment, String path, String snippet, double score) {
+        this.fragment = fragment;
+        this.path = path;
+        this.snippet = snippet;
+        this.score = score;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%.2f)%n  %s", path, score, snippet);
+    }
+}
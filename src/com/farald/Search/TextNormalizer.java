@@ -0,0 +1,142 @@
+package com.farald.Search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+//Splits text into words (runs of letters and digits) and normalizes them into index terms: words are lower-cased,
+//diacritics are optionally folded and the longest matching Polish inflectional suffix is stripped (leaving at least
+//three letters), so "praktyki", "praktykom" and "praktyka" share one term. Words with digits aren't stripped.
+public class TextNormalizer {
+    private static final int MIN_STEM_LENGTH = 3;
+    private static final String[] SUFFIXES = sortedByLength(
+            "ającymi", "ających", "ającego", "ającemu", "ającej", "ającym", "ająca", "ające", "ający", "ającą",
+            "ościami", "ościach", "ością", "ości", "ość",
+            "owaniem", "owania", "owanie", "owaniu", "owań", "ować",
+            "iami", "iach", "jami", "jach", "ami", "ach", "owi", "ego", "emu", "ymi", "imi", "ych", "ich", "iej",
+            "ej", "ym", "im", "om", "ów", "ie", "ia", "ią", "ię", "iu", "ii", "ji", "ja", "ją", "ję", "je", "ju",
+            "a", "e", "i", "y", "u", "o", "ą", "ę");
+    private static final String DIACRITICS = "ąćęłńóśźż";
+    private static final String FOLDED_DIACRITICS = "acelnoszz";
+    private static final String[] FOLDED_SUFFIXES = foldSuffixes(SUFFIXES);
+
+    private final boolean foldDiacritics;
+    private final boolean stripSuffixes;
+
+    public TextNormalizer(boolean foldDiacritics, boolean stripSuffixes) {
+        this.foldDiacritics = foldDiacritics;
+        this.stripSuffixes = stripSuffixes;
+    }
+
+    //Suffixes are stripped, diacritics are kept
+    public static TextNormalizer polish() {
+        return new TextNormalizer(false, true);
+    }
+
+    public boolean isFoldingDiacritics() {
+        return foldDiacritics;
+    }
+
+    public boolean isStrippingSuffixes() {
+        return stripSuffixes;
+    }
+
+    public interface WordConsumer {
+        //Term of the word found at [start, end) of the text
+        void accept(String term, int start, int end);
+    }
+
+    public void forEachWord(CharSequence text, WordConsumer consumer) {
+        forEachWord(text, 0, text.length(), consumer);
+    }
+
+    public void forEachWord(CharSequence text, int start, int end, WordConsumer consumer) {
+        int position = start;
+        while ((position = findWordStart(text, position, end)) < end) {
+            int wordEnd = findWordEnd(text, position, end);
+            consumer.accept(normalize(text, position, wordEnd), position, wordEnd);
+            position = wordEnd;
+        }
+    }
+
+    //[start, end) of the word with the given number, words are counted from 0. Null if the text has fewer words.
+    public static int[] findWord(CharSequence text, int wordNumber) {
+        int position = 0;
+        for (int word = 0; (position = findWordStart(text, position, text.length())) < text.length(); word++) {
+            int wordEnd = findWordEnd(text, position, text.length());
+            if (word == wordNumber) {
+                return new int[]{position, wordEnd};
+            }
+            position = wordEnd;
+        }
+        return null;
+    }
+
+    private static int findWordStart(CharSequence text, int position, int end) {
+        while (position < end && !Character.isLetterOrDigit(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int findWordEnd(CharSequence text, int position, int end) {
+        while (position < end && Character.isLetterOrDigit(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    public String normalize(CharSequence word, int start, int end) {
+        StringBuilder term = new StringBuilder(end - start);
+        boolean hasDigit = false;
+        for (int i = start; i < end; i++) {
+            char character = word.charAt(i);
+            hasDigit |= Character.isDigit(character);
+            term.append(Character.toLowerCase(character));
+        }
+        if (foldDiacritics) {
+            foldDiacritics(term);
+        }
+        if (stripSuffixes && !hasDigit) {
+            stripSuffix(term, foldDiacritics ? FOLDED_SUFFIXES : SUFFIXES);
+        }
+        return term.toString();
+    }
+
+    private static void foldDiacritics(StringBuilder term) {
+        for (int i = 0; i < term.length(); i++) {
+            int diacritic = DIACRITICS.indexOf(term.charAt(i));
+            if (diacritic >= 0) {
+                term.setCharAt(i, FOLDED_DIACRITICS.charAt(diacritic));
+            }
+        }
+    }
+
+    private static void stripSuffix(StringBuilder term, String[] suffixes) {
+        for (String suffix : suffixes) {
+            int stemLength = term.length() - suffix.length();
+            if (stemLength >= MIN_STEM_LENGTH && term.indexOf(suffix, stemLength) == stemLength) {
+                term.setLength(stemLength);
+                return;
+            }
+        }
+    }
+
+    private static String[] sortedByLength(String... suffixes) {
+        String[] sorted = suffixes.clone();
+        Arrays.sort(sorted, Comparator.comparingInt(String::length).reversed());
+        return sorted;
+    }
+
+    //Still sorted by length, suffixes which became the same are left once
+    private static String[] foldSuffixes(String[] suffixes) {
+        Set<String> folded = new LinkedHashSet<>();
+        for (String suffix : suffixes) {
+            StringBuilder foldedSuffix = new StringBuilder(suffix);
+            foldDiacritics(foldedSuffix);
+            folded.add(foldedSuffix.toString());
+        }
+        return folded.toArray(new String[0]);
+    }
+}
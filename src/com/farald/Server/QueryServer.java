@@ -0,0 +1,259 @@
+package com.farald.Server;
+
+import com.farald.Corpus.DocumentRegistry;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+import com.farald.DocumentSystem.QueryOutput;
+import com.farald.Statistics.ReloadStatistics;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//Answers queries about documents parsed once, over HTTP. GET /query takes the same queries as the command line:
+//document (file or act name), toc, section, chapter, article, articles (range list), q (article specifics, e.g. "art. 4, pkt 1"),
+//search (full text query) and limit (of search results).
+//Queries run at the same time against the shared fragment trees, which are only read. A query uses the document
+//system it got from the registry until it finishes, a reloaded document is only seen by later queries.
+//GET /metrics gives the reload statistics, if documents are reloaded.
+public class QueryServer {
+    public static final String QUERY_PATH = "/query";
+    public static final String METRICS_PATH = "/metrics";
+
+    private final JSAP queryParser;
+    private final DocumentRegistry documentRegistry;
+    //Null if documents aren't reloaded
+    private ReloadStatistics reloadStatistics;
+    private HttpServer httpServer;
+    private ExecutorService executor;
+
+    public QueryServer(JSAP queryParser, DocumentRegistry documentRegistry) {
+        if (queryParser == null || documentRegistry == null) {
+            throw new IllegalArgumentException("Query parser and document registry cannot be null.");
+        }
+        this.queryParser = queryParser;
+        this.documentRegistry = documentRegistry;
+    }
+
+    public void setReloadStatistics(ReloadStatistics reloadStatistics) {
+        if (httpServer != null) {
+            throw new IllegalStateException("Server is already running.");
+        }
+        this.reloadStatistics = reloadStatistics;
+    }
+
+    public List<String> getDocumentNames() {
+        return documentRegistry.getFileNames();
+    }
+
+    public void start(InetSocketAddress address) throws IOException {
+        if (httpServer != null) {
+            throw new IllegalStateException("Server is already running.");
+        }
+        if (documentRegistry.size() == 0) {
+            throw new IllegalStateException("No documents to serve.");
+        }
+        //Lazily built indexes are built before queries share the documents
+        for (String fileName : documentRegistry.getFileNames()) {
+            documentRegistry.get(fileName).buildIndexes();
+        }
+        httpServer = HttpServer.create(address, 0);
+        executor = createExecutor();
+        httpServer.setExecutor(executor);
+        httpServer.createContext(QUERY_PATH, this::handleQuery);
+        if (reloadStatistics != null) {
+            httpServer.createContext(METRICS_PATH, this::handleMetrics);
+        }
+        httpServer.start();
+    }
+
+    public void stop() {
+        if (httpServer == null) {
+            return;
+        }
+        httpServer.stop(0);
+        executor.shutdown();
+        httpServer = null;
+        executor = null;
+    }
+
+    public InetSocketAddress getAddress() {
+        if (httpServer == null) {
+            throw new IllegalStateException("Server is not running.");
+        }
+        return httpServer.getAddress();
+    }
+
+    //Virtual thread for every request if the runtime has them (Java 21), cached platform threads otherwise
+    private static ExecutorService createExecutor() {
+        try {
+            Method virtualThreadExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtualThreadExecutor.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    //<editor-fold desc="Query handling">
+    private void handleQuery(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendText(exchange, 405, "Only GET queries are supported.\n");
+                return;
+            }
+
+            Map<String, String> parameters;
+            try {
+                parameters = parseParameters(exchange.getRequestURI().getRawQuery());
+            } catch (IllegalArgumentException e) {
+                sendText(exchange, 400, "Wrong query parameters.\n");
+                return;
+            }
+            List<String> fileNames = documentRegistry.getFileNames();
+            String documentName = parameters.get("document");
+            if (documentName == null && fileNames.size() == 1) {
+                documentName = fileNames.get(0);
+            }
+            documentName = documentRegistry.resolve(documentName);
+            if (documentName == null) {
+                sendText(exchange, 404, "No such document. Documents: " + String.join(", ", fileNames) + "\n");
+                return;
+            }
+            PolishDocumentSystem documentSystem = documentRegistry.get(documentName);
+
+            JSAPResult queryResults = parseQuery(documentName, parameters);
+            if (queryResults == null) {
+                sendText(exchange, 400, "Couldn't parse given options.\n");
+                return;
+            }
+            answerQuery(exchange, documentSystem, queryResults);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendText(exchange, 405, "Only GET queries are supported.\n");
+                return;
+            }
+            StringBuilder metrics = new StringBuilder();
+            reloadStatistics.writeReport(metrics);
+            sendText(exchange, 200, metrics.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    //Results are streamed into the response, which is started by the first written character.
+    //A query which only reports errors is answered with 404 and the error messages.
+    private void answerQuery(HttpExchange exchange, PolishDocumentSystem documentSystem, JSAPResult queryResults) throws IOException {
+        ResponseBodyWriter body = new ResponseBodyWriter(exchange, 200);
+        StringWriter errors = new StringWriter();
+        QueryOutput output = new QueryOutput(new BufferedWriter(body), errors);
+        documentSystem.interpret(queryResults, output);
+        output.flush();
+
+        if (body.isStarted()) {
+            //Errors reported after the results were started are appended to them
+            output.getOut().write(errors.toString());
+            output.flush();
+        } else if (errors.getBuffer().length() > 0) {
+            sendText(exchange, 404, errors.toString());
+        } else {
+            sendText(exchange, 200, "");
+        }
+    }
+
+    private JSAPResult parseQuery(String documentName, Map<String, String> parameters) {
+        List<String> arguments = new ArrayList<>();
+        arguments.add(documentName);
+        if (parameters.containsKey("toc") && !"false".equalsIgnoreCase(parameters.get("toc"))) {
+            arguments.add("-T");
+        }
+        addOption(arguments, "-s", parameters.get("section"));
+        addOption(arguments, "-c", parameters.get("chapter"));
+        addOption(arguments, "-a", parameters.get("article"));
+        addOption(arguments, "-A", parameters.get("articles"));
+        addOption(arguments, "--search", parameters.get("search"));
+        addOption(arguments, "--search-limit", parameters.get("limit"));
+        //Article specifics are split into words, like by the shell
+        String specifics = parameters.get("q");
+        if (specifics != null) {
+            for (String word : specifics.trim().split("\\s+")) {
+                if (!word.isEmpty()) {
+                    arguments.add(word);
+                }
+            }
+        }
+
+        JSAPResult queryResults;
+        synchronized (queryParser) {
+            queryResults = queryParser.parse(arguments.toArray(new String[0]));
+        }
+        return queryResults.success() ? queryResults : null;
+    }
+
+    private void addOption(List<String> arguments, String flag, String value) {
+        if (value != null) {
+            arguments.add(flag);
+            arguments.add(value);
+        }
+    }
+
+    //First value of every parameter is kept
+    private static Map<String, String> parseParameters(String rawQuery) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            if (parameter.isEmpty()) {
+                continue;
+            }
+            int separator = parameter.indexOf('=');
+            String name = separator < 0 ? parameter : parameter.substring(0, separator);
+            String value = separator < 0 ? "" : parameter.substring(separator + 1);
+            parameters.putIfAbsent(decode(name), decode(value));
+        }
+        return parameters;
+    }
+
+    private static String decode(String text) {
+        try {
+            return URLDecoder.decode(text, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", ResponseBodyWriter.CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            OutputStream responseBody = exchange.getResponseBody();
+            responseBody.write(bytes);
+            responseBody.flush();
+        }
+    }
+    //</editor-fold>
+}
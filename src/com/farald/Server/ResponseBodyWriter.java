@@ -0,0 +1,69 @@
+package com.farald.Server;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+//Writer of a chunked response body. Response headers are sent with the first written character,
+//so the status can still be chosen while nothing was written.
+public class ResponseBodyWriter extends Writer {
+    public static final String CONTENT_TYPE = "text/plain; charset=utf-8";
+
+    private final HttpExchange exchange;
+    private final int status;
+    private Writer body;
+
+    public ResponseBodyWriter(HttpExchange exchange, int status) {
+        if (exchange == null) {
+            throw new IllegalArgumentException("Exchange cannot be null.");
+        }
+        this.exchange = exchange;
+        this.status = status;
+    }
+
+    public boolean isStarted() {
+        return body != null;
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        start().write(buffer, offset, length);
+    }
+
+    @Override
+    public void write(String text, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        start().write(text, offset, length);
+    }
+
+    private Writer start() throws IOException {
+        if (body == null) {
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(status, 0);
+            body = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8);
+        }
+        return body;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (body != null) {
+            body.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (body != null) {
+            body.close();
+        }
+    }
+}
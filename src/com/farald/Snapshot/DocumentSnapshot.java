@@ -0,0 +1,14 @@
+package com.farald.Snapshot;
+
+import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.DocumentType;
+
+public class DocumentSnapshot {
+    public final DocumentType documentType;
+    public final BillFragment billFragment;
+
+    public DocumentSnapshot(DocumentType documentType, BillFragment billFragment) {
+        this.documentType = documentType;
+        this.billFragment = billFragment;
+    }
+}
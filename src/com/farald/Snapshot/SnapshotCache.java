@@ -0,0 +1,382 @@
+package com.farald.Snapshot;
+
+import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.DocumentType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class SnapshotCache {
+    private static final int SNAPSHOT_MAGIC = 0x42494C4C;
+    //Has to be bumped whenever the snapshot format or the tree built by the cleaner, the parser or fixParsedDocument
+    //changes and the classes aren't loaded from a directory or a JAR, e.g. in a custom class loader
+    private static final int SNAPSHOT_VERSION = 1;
+    //Packages whose code shapes the parsed tree
+    private static final String[] FINGERPRINTED_PACKAGES = {"Cleaner", "DocumentRepresentation", "DocumentSystem", "Lexer", "Parser", "Snapshot"};
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+    //Real documents are a few levels deep, a deeper snapshot is broken
+    private static final int MAX_DEPTH = 256;
+    //Identifier and content lengths and the children count
+    private static final int MIN_FRAGMENT_BYTES = 12;
+
+    private static String codeFingerprint;
+
+    private final Path cacheDirectory;
+
+    public SnapshotCache(Path cacheDirectory) {
+        if (cacheDirectory == null) {
+            throw new IllegalArgumentException("Cache directory cannot be null.");
+        }
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    //Cache of the current user, "$XDG_CACHE_HOME/bills-interpreter" or "~/.cache/bills-interpreter"
+    public static SnapshotCache inDefaultDirectory() {
+        String cacheHome = System.getenv("XDG_CACHE_HOME");
+        Path cacheRoot = cacheHome == null || cacheHome.isEmpty() || !Paths.get(cacheHome).isAbsolute()
+                ? Paths.get(System.getProperty("user.home"), ".cache")
+                : Paths.get(cacheHome);
+        return new SnapshotCache(cacheRoot.resolve("bills-interpreter"));
+    }
+
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    //<editor-fold desc="Snapshot key">
+    //Key changes whenever the source text, the document type, any cleaner/parser rule or the code building the tree changes
+    public String computeKey(CharSequence sourceText, DocumentType documentType, String rulesFingerprint) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+
+        digest.update(Integer.toString(SNAPSHOT_VERSION).getBytes(StandardCharsets.UTF_8));
+        digest.update(documentType.name().getBytes(StandardCharsets.UTF_8));
+        digest.update(rulesFingerprint.getBytes(StandardCharsets.UTF_8));
+        digest.update(getCodeFingerprint().getBytes(StandardCharsets.UTF_8));
+        try {
+            digest.update(StandardCharsets.UTF_8.newEncoder().encode(CharBuffer.wrap(sourceText)));
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException("Source text cannot be encoded.", e);
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    //Hash of the class files of the packages which shape the tree, computed once. Empty if they can't be read,
+    //then only SNAPSHOT_VERSION tells snapshots of different builds apart.
+    private static synchronized String getCodeFingerprint() {
+        if (codeFingerprint == null) {
+            try {
+                codeFingerprint = computeCodeFingerprint();
+            } catch (IOException | RuntimeException e) {
+                codeFingerprint = "";
+            }
+        }
+        return codeFingerprint;
+    }
+
+    private static String computeCodeFingerprint() throws IOException {
+        CodeSource codeSource = SnapshotCache.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null) {
+            return "";
+        }
+        Path location;
+        try {
+            location = Paths.get(codeSource.getLocation().toURI());
+        } catch (Exception e) {
+            return "";
+        }
+        if (Files.isDirectory(location)) {
+            return hashClassFiles(location);
+        }
+        try (FileSystem jarFileSystem = FileSystems.newFileSystem(location, (ClassLoader) null)) {
+            return hashClassFiles(jarFileSystem.getPath("/"));
+        }
+    }
+
+    private static String hashClassFiles(Path root) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+
+        String packagePath = SnapshotCache.class.getPackage().getName().replace('.', '/');
+        Path basePath = root.resolve(packagePath).getParent();
+        for (String packageName : FINGERPRINTED_PACKAGES) {
+            Path packageDirectory = basePath.resolve(packageName);
+            if (!Files.isDirectory(packageDirectory)) {
+                continue;
+            }
+            List<Path> classFiles;
+            try (Stream<Path> files = Files.list(packageDirectory)) {
+                classFiles = files.filter(file -> file.getFileName().toString().endsWith(".class"))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            for (Path classFile : classFiles) {
+                digest.update(root.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+                digest.update(Files.readAllBytes(classFile));
+            }
+        }
+
+        StringBuilder fingerprint = new StringBuilder();
+        for (byte b : digest.digest()) {
+            fingerprint.append(String.format("%02x", b));
+        }
+        return fingerprint.toString();
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Load and store">
+    public DocumentSnapshot load(String key, DocumentType documentType) {
+        Path snapshotPath = getSnapshotPath(key);
+        if (!Files.isRegularFile(snapshotPath)) {
+            return null;
+        }
+
+        try {
+            checkCacheDirectory();
+        } catch (IOException e) {
+            //Snapshots of a directory others can write to aren't trusted, the document is parsed
+            return null;
+        }
+        try (SnapshotInputStream input = new SnapshotInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)),
+                Files.size(snapshotPath))) {
+            if (input.readInt() != SNAPSHOT_MAGIC || input.readInt() != SNAPSHOT_VERSION) {
+                return null;
+            }
+            if (!key.equals(input.readUTF()) || !documentType.name().equals(input.readUTF())) {
+                return null;
+            }
+            BillFragment billFragment = readTree(input);
+            return new DocumentSnapshot(documentType, billFragment);
+        } catch (IOException | RuntimeException e) {
+            //Broken or outdated snapshot - document will be parsed again
+            return null;
+        }
+    }
+
+    public void store(String key, DocumentSnapshot snapshot) throws IOException {
+        createCacheDirectory();
+        checkCacheDirectory();
+        Path temporaryPath = Files.createTempFile(cacheDirectory, key, ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+                output.writeInt(SNAPSHOT_MAGIC);
+                output.writeInt(SNAPSHOT_VERSION);
+                output.writeUTF(key);
+                output.writeUTF(snapshot.documentType.name());
+                writeFragment(output, snapshot.billFragment);
+            }
+            //Concurrent runs may store the same snapshot, the move makes the last one win without partial files
+            Files.move(temporaryPath, getSnapshotPath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporaryPath);
+            throw new IOException("Snapshot could not be stored.", e);
+        }
+    }
+
+    private Path getSnapshotPath(String key) {
+        return cacheDirectory.resolve(key + SNAPSHOT_EXTENSION);
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Cache directory">
+    //Missing directories are created readable and writable only by the current user
+    private void createCacheDirectory() throws IOException {
+        if (Files.isDirectory(cacheDirectory)) {
+            return;
+        }
+        if (isPosix()) {
+            Files.createDirectories(cacheDirectory,
+                    PosixFilePermissions.asFileAttribute(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE,
+                            PosixFilePermission.OWNER_EXECUTE)));
+        } else {
+            Files.createDirectories(cacheDirectory);
+        }
+    }
+
+    //Snapshots are printed as the document, so only a directory of the current user which others can't write to is
+    //used. Otherwise another user could create the directory first and plant a tree for a predictable key.
+    private void checkCacheDirectory() throws IOException {
+        UserPrincipal currentUser = cacheDirectory.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!currentUser.equals(Files.getOwner(cacheDirectory))) {
+            throw new IOException("Snapshot directory isn't owned by the current user: " + cacheDirectory);
+        }
+        if (isPosix()) {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(cacheDirectory);
+            if (permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+                throw new IOException("Snapshot directory can be written by other users: " + cacheDirectory);
+            }
+        }
+    }
+
+    private boolean isPosix() {
+        return cacheDirectory.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Fragment serialization">
+    private void writeFragment(DataOutputStream output, BillFragment billFragment) throws IOException {
+        writeString(output, billFragment.getIdentifier());
+        writeString(output, billFragment.getContent());
+
+        List<BillFragment> children = billFragment.getChildren();
+        output.writeInt(children.size());
+        for (BillFragment child : children) {
+            writeFragment(output, child);
+        }
+    }
+
+    //Fragments are read without recursion and every count is checked against the bytes left in the file,
+    //so a broken or planted snapshot fails with an IOException instead of exhausting the stack or the heap
+    private BillFragment readTree(SnapshotInputStream input) throws IOException {
+        BillFragment root = new BillFragment(readString(input), readString(input));
+        Deque<BillFragment> parents = new ArrayDeque<>();
+        Deque<int[]> childrenLeft = new ArrayDeque<>();
+        pushParent(parents, childrenLeft, root, readChildrenCount(input));
+
+        while (!parents.isEmpty()) {
+            int[] left = childrenLeft.peek();
+            if (left[0] == 0) {
+                parents.pop();
+                childrenLeft.pop();
+                continue;
+            }
+            left[0]--;
+            BillFragment parent = parents.peek();
+            BillFragment billFragment = new BillFragment(readString(input), readString(input));
+            billFragment.setParent(parent);
+            parent.addChild(billFragment);
+            pushParent(parents, childrenLeft, billFragment, readChildrenCount(input));
+        }
+        return root;
+    }
+
+    private void pushParent(Deque<BillFragment> parents, Deque<int[]> childrenLeft, BillFragment billFragment, int childrenCount)
+            throws IOException {
+        if (childrenCount == 0) {
+            return;
+        }
+        if (parents.size() >= MAX_DEPTH) {
+            throw new IOException("Snapshot is too deep.");
+        }
+        parents.push(billFragment);
+        childrenLeft.push(new int[]{childrenCount});
+    }
+
+    private int readChildrenCount(SnapshotInputStream input) throws IOException {
+        int childrenCount = input.readInt();
+        if (childrenCount < 0 || childrenCount > input.getRemaining() / MIN_FRAGMENT_BYTES) {
+            throw new IOException("Wrong children count: " + childrenCount);
+        }
+        return childrenCount;
+    }
+
+    private void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private String readString(SnapshotInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > input.getRemaining()) {
+            throw new IOException("Wrong string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class SnapshotInputStream extends DataInputStream {
+        private SnapshotInputStream(InputStream input, long size) {
+            super(new CountingInputStream(input, size));
+        }
+
+        private long getRemaining() {
+            return ((CountingInputStream) in).remaining;
+        }
+    }
+
+    //Counts the bytes of the file which weren't read yet
+    private static class CountingInputStream extends FilterInputStream {
+        private long remaining;
+
+        private CountingInputStream(InputStream input, long size) {
+            super(input);
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                remaining--;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int count = super.read(bytes, offset, length);
+            if (count > 0) {
+                remaining -= count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            long skipped = super.skip(count);
+            remaining -= skipped;
+            return skipped;
+        }
+    }
+    //</editor-fold>
+}
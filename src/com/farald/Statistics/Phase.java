@@ -0,0 +1,69 @@
+package com.farald.Statistics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+//Measures a phase on the current thread from start to finish. Every phase is emitted as a Flight Recorder event
+//(costing almost nothing when no recording is running) and added to the statistics, if there are any.
+//Allocation is only measured on the current thread, work handed to other threads isn't included.
+public class Phase {
+    private final String name;
+    private final PhaseStatistics statistics;
+    private final PhaseEvent event;
+    private final long startNanos;
+    private final long startAllocatedBytes;
+
+    private Phase(String name, PhaseStatistics statistics) {
+        this.name = name;
+        this.statistics = statistics;
+        this.event = new PhaseEvent();
+        this.startAllocatedBytes = getAllocatedBytes();
+        this.startNanos = System.nanoTime();
+        event.begin();
+    }
+
+    //Statistics can be null, the phase is then only emitted as an event
+    public static Phase start(String name, PhaseStatistics statistics) {
+        if (name == null) {
+            throw new IllegalArgumentException("Phase name cannot be null.");
+        }
+        return new Phase(name, statistics);
+    }
+
+    //Whether the counts passed to finish are used, they don't have to be computed otherwise
+    public boolean isRecorded() {
+        return statistics != null || event.isEnabled();
+    }
+
+    public PhaseRecord finish(int lineCount, int fragmentCount) {
+        event.end();
+        long wallNanos = System.nanoTime() - startNanos;
+        long endAllocatedBytes = getAllocatedBytes();
+        long allocatedBytes = startAllocatedBytes < 0 || endAllocatedBytes < 0 ? -1 : endAllocatedBytes - startAllocatedBytes;
+
+        if (event.shouldCommit()) {
+            event.phase = name;
+            event.allocatedBytes = allocatedBytes;
+            event.lineCount = lineCount;
+            event.fragmentCount = fragmentCount;
+            event.commit();
+        }
+        PhaseRecord record = new PhaseRecord(name, wallNanos, allocatedBytes, lineCount, fragmentCount);
+        if (statistics != null) {
+            statistics.add(record);
+        }
+        return record;
+    }
+
+    //Negative if the virtual machine doesn't measure allocation of threads
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
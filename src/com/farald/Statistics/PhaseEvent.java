@@ -0,0 +1,28 @@
+package com.farald.Statistics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+//Flight Recorder event of one phase, its duration is the wall time of the phase.
+//Negative counts mean the phase doesn't count them.
+@Name("com.farald.DocumentPhase")
+@Label("Document Phase")
+@Category("Bills Interpreter")
+@Description("Reading, cleaning, parsing, querying or rendering of a document.")
+public class PhaseEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    public String phase;
+
+    @Label("Allocated")
+    @DataAmount
+    public long allocatedBytes;
+
+    @Label("Lines")
+    public int lineCount;
+
+    @Label("Fragments")
+    public int fragmentCount;
+}
@@ -0,0 +1,18 @@
+package com.farald.Statistics;
+
+//Measurements of one finished phase, negative values weren't measured
+public class PhaseRecord {
+    public final String phase;
+    public final long wallNanos;
+    public final long allocatedBytes;
+    public final int lineCount;
+    public final int fragmentCount;
+
+    public PhaseRecord(String phase, long wallNanos, long allocatedBytes, int lineCount, int fragmentCount) {
+        this.phase = phase;
+        this.wallNanos = wallNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.lineCount = lineCount;
+        this.fragmentCount = fragmentCount;
+    }
+}
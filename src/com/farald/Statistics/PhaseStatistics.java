@@ -0,0 +1,86 @@
+package com.farald.Statistics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Finished phases of one or many documents, phases can be added from many threads.
+//The report sums the phases with the same name, rendering is a part of interpreting a query.
+public class PhaseStatistics {
+    public static final String READ_FILE = "readFile";
+    public static final String LOAD_SNAPSHOT = "loadSnapshot";
+    public static final String CLEAR_DOCUMENT = "clearDocument";
+    public static final String CONNECT_BROKEN_WORDS = "connectBrokenWords";
+    public static final String CLEAR_AND_CONNECT_DOCUMENT = "clearAndConnectDocument";
+    public static final String PARSE_DOCUMENT = "parseDocument";
+    public static final String REPARSE_DOCUMENT = "reparseDocument";
+    public static final String RELOAD_DOCUMENT = "reloadDocument";
+    public static final String STORE_SNAPSHOT = "storeSnapshot";
+    public static final String BUILD_SEARCH_INDEX = "buildSearchIndex";
+    public static final String INTERPRET = "interpret";
+    public static final String RENDER = "render";
+
+    private final List<PhaseRecord> records;
+
+    public PhaseStatistics() {
+        records = new ArrayList<>();
+    }
+
+    public Phase start(String phase) {
+        return Phase.start(phase, this);
+    }
+
+    public synchronized void add(PhaseRecord record) {
+        if (record == null) {
+            throw new IllegalArgumentException("Record cannot be null.");
+        }
+        records.add(record);
+    }
+
+    public synchronized List<PhaseRecord> getRecords() {
+        return Collections.unmodifiableList(new ArrayList<>(records));
+    }
+
+    //One row for every phase name in the order of their first records. Querying without rendering is
+    //shown as a separate row, it's interpreting with the rendering taken out.
+    public void writeReport(Appendable output) throws IOException {
+        Map<String, PhaseRecord> totals = new LinkedHashMap<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (PhaseRecord record : getRecords()) {
+            PhaseRecord total = totals.get(record.phase);
+            totals.put(record.phase, total == null ? record : sum(total, record));
+            counts.merge(record.phase, 1, Integer::sum);
+        }
+
+        output.append(String.format("%-24s %6s %12s %14s %10s %10s%n", "Phase", "Count", "Wall ms", "Allocated KB", "Lines", "Fragments"));
+        for (PhaseRecord total : totals.values()) {
+            writeRow(output, total.phase, counts.get(total.phase), total);
+        }
+        PhaseRecord interpret = totals.get(INTERPRET);
+        PhaseRecord render = totals.get(RENDER);
+        if (interpret != null && render != null) {
+            long allocatedBytes = interpret.allocatedBytes < 0 || render.allocatedBytes < 0 ? -1 : interpret.allocatedBytes - render.allocatedBytes;
+            writeRow(output, "query (without render)", counts.get(INTERPRET),
+                    new PhaseRecord(INTERPRET, interpret.wallNanos - render.wallNanos, allocatedBytes, -1, -1));
+        }
+    }
+
+    private static PhaseRecord sum(PhaseRecord first, PhaseRecord second) {
+        return new PhaseRecord(first.phase, first.wallNanos + second.wallNanos, sumMeasured(first.allocatedBytes, second.allocatedBytes),
+                (int) sumMeasured(first.lineCount, second.lineCount), (int) sumMeasured(first.fragmentCount, second.fragmentCount));
+    }
+
+    private static long sumMeasured(long first, long second) {
+        return first < 0 || second < 0 ? -1 : first + second;
+    }
+
+    private static void writeRow(Appendable output, String name, int count, PhaseRecord total) throws IOException {
+        output.append(String.format("%-24s %6d %12.2f %14s %10s %10s%n", name, count, total.wallNanos / 1e6,
+                total.allocatedBytes < 0 ? "-" : String.format("%,d", total.allocatedBytes / 1024),
+                total.lineCount < 0 ? "-" : String.format("%,d", total.lineCount),
+                total.fragmentCount < 0 ? "-" : String.format("%,d", total.fragmentCount)));
+    }
+}
@@ -0,0 +1,73 @@
+package com.farald.Statistics;
+
+import java.io.IOException;
+import java.util.Locale;
+
+//Reloads of changed documents, added by the watcher thread and read by anyone. The report is in the Prometheus text
+//format, e.g. "bills_reload_failures_total 1", the last failure is added as a comment.
+public class ReloadStatistics {
+    private long reloadCount;
+    private long failureCount;
+    private long totalNanos;
+    private long lastNanos;
+    private long maxNanos;
+    private String lastFailure;
+
+    public synchronized void addReload(long nanos) {
+        reloadCount++;
+        addDuration(nanos);
+    }
+
+    public synchronized void addFailure(long nanos, String failure) {
+        failureCount++;
+        lastFailure = failure;
+        addDuration(nanos);
+    }
+
+    private void addDuration(long nanos) {
+        totalNanos += nanos;
+        lastNanos = nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    public synchronized long getReloadCount() {
+        return reloadCount;
+    }
+
+    public synchronized long getFailureCount() {
+        return failureCount;
+    }
+
+    //Null if no reload failed
+    public synchronized String getLastFailure() {
+        return lastFailure;
+    }
+
+    public void writeReport(Appendable output) throws IOException {
+        long reloads;
+        long failures;
+        long total;
+        long last;
+        long max;
+        String failure;
+        synchronized (this) {
+            reloads = reloadCount;
+            failures = failureCount;
+            total = totalNanos;
+            last = lastNanos;
+            max = maxNanos;
+            failure = lastFailure;
+        }
+
+        output.append(String.format(Locale.ROOT, "bills_reloads_total %d%n", reloads));
+        output.append(String.format(Locale.ROOT, "bills_reload_failures_total %d%n", failures));
+        //Durations include the failed reloads
+        output.append(String.format(Locale.ROOT, "bills_reload_duration_seconds_count %d%n", reloads + failures));
+        output.append(String.format(Locale.ROOT, "bills_reload_duration_seconds_sum %.6f%n", total / 1e9));
+        output.append(String.format(Locale.ROOT, "bills_reload_last_duration_seconds %.6f%n", last / 1e9));
+        output.append(String.format(Locale.ROOT, "bills_reload_max_duration_seconds %.6f%n", max / 1e9));
+        if (failure != null) {
+            output.append("# Last failure: ").append(failure.replace('\n', ' ')).append(System.lineSeparator());
+        }
+    }
+}
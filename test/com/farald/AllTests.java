@@ -0,0 +1,19 @@
+package com.farald;
+
+import com.farald.Cleaner.CleanerRuleClassifierTest;
+import com.farald.DocumentSystem.ArticleIndexTest;
+import com.farald.Generator.SyntheticBillGeneratorTest;
+import com.farald.Parser.ParserEngineTest;
+import com.farald.Parser.ReparseTest;
+
+//Runs every test, run from the project directory so the bundled documents are found.
+//A failed test ends the run with an AssertionError and a non-zero exit code.
+public class AllTests {
+    public static void main(String[] args) throws Exception {
+        ArticleIndexTest.main(args);
+        CleanerRuleClassifierTest.main(args);
+        ParserEngineTest.main(args);
+        ReparseTest.main(args);
+        SyntheticBillGeneratorTest.main(args);
+    }
+}
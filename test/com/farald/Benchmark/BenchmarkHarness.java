@@ -0,0 +1,83 @@
+package com.farald.Benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.Supplier;
+
+public class BenchmarkHarness {
+    private final int warmupIterations;
+    private final int measuredIterations;
+    private volatile int blackhole;
+
+    public BenchmarkHarness(int warmupIterations, int measuredIterations) {
+        if (warmupIterations < 0 || measuredIterations <= 0) {
+            throw new IllegalArgumentException("Wrong number of iterations.");
+        }
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+    }
+
+    public BenchmarkResult run(String name, Supplier<?> operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            consume(operation.get());
+        }
+
+        long gcCountBefore = getGcCount();
+        long gcMillisBefore = getGcMillis();
+        long allocatedBefore = getAllocatedBytes();
+        long timeBefore = System.nanoTime();
+        for (int i = 0; i < measuredIterations; i++) {
+            consume(operation.get());
+        }
+        long timeAfter = System.nanoTime();
+        long allocatedAfter = getAllocatedBytes();
+        long gcCountAfter = getGcCount();
+        long gcMillisAfter = getGcMillis();
+
+        double nanosPerOperation = (double) (timeAfter - timeBefore) / measuredIterations;
+        double bytesPerOperation = allocatedBefore < 0 ? -1 : (double) (allocatedAfter - allocatedBefore) / measuredIterations;
+        long gcCount = gcCountBefore < 0 ? -1 : gcCountAfter - gcCountBefore;
+        long gcMillis = gcMillisBefore < 0 ? -1 : gcMillisAfter - gcMillisBefore;
+        return new BenchmarkResult(name, measuredIterations, nanosPerOperation, bytesPerOperation, gcCount, gcMillis);
+    }
+
+    //Keeps the JIT from removing the measured work
+    private void consume(Object result) {
+        blackhole ^= System.identityHashCode(result);
+    }
+
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    //Sums of all collectors, negative if any of them doesn't count
+    private static long getGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collectorBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collectorBean.getCollectionCount() < 0) {
+                return -1;
+            }
+            count += collectorBean.getCollectionCount();
+        }
+        return count;
+    }
+
+    private static long getGcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collectorBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collectorBean.getCollectionTime() < 0) {
+                return -1;
+            }
+            millis += collectorBean.getCollectionTime();
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,43 @@
+package com.farald.Benchmark;
+
+public class BenchmarkResult {
+    public final String name;
+    public final int iterations;
+    public final double nanosPerOperation;
+    public final double bytesPerOperation;
+    //Garbage collections during the measured iterations, negative if they couldn't be counted
+    public final long gcCount;
+    public final long gcMillis;
+
+    public BenchmarkResult(String name, int iterations, double nanosPerOperation, double bytesPerOperation) {
+        this(name, iterations, nanosPerOperation, bytesPerOperation, -1, -1);
+    }
+
+    public BenchmarkResult(String name, int iterations, double nanosPerOperation, double bytesPerOperation, long gcCount, long gcMillis) {
+        this.name = name;
+        this.iterations = iterations;
+        this.nanosPerOperation = nanosPerOperation;
+        this.bytesPerOperation = bytesPerOperation;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+    }
+
+    public double getOperationsPerSecond() {
+        return 1_000_000_000.0 / nanosPerOperation;
+    }
+
+    //Allocation rate in MB/s, negative if allocation couldn't be measured
+    public double getAllocationRate() {
+        if (bytesPerOperation < 0) {
+            return -1;
+        }
+        return bytesPerOperation * getOperationsPerSecond() / (1024 * 1024);
+    }
+
+    @Override
+    public String toString() {
+        String allocation = bytesPerOperation < 0 ? "n/a" : String.format("%,.0f B/op, %,.1f MB/s", bytesPerOperation, getAllocationRate());
+        String collections = gcCount < 0 ? "" : String.format(", gc: %d (%d ms)", gcCount, gcMillis);
+        return String.format("%-45s %,14.1f us/op %,12.1f ops/s   %s%s", name, nanosPerOperation / 1000, getOperationsPerSecond(), allocation, collections);
+    }
+}
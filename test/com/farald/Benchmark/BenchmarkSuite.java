@@ -0,0 +1,47 @@
+package com.farald.Benchmark;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+//Single entry point running all benchmarks: the pipeline stages on both documents, then the comparisons
+//and the scaling on synthetic bills. "--pipeline" runs only the pipeline stages.
+public class BenchmarkSuite {
+    private static final String[] DOCUMENTS = {"konstytucja.txt", "uokik.txt"};
+
+    public static void main(String[] args) throws IOException {
+        List<String> arguments = Arrays.asList(args);
+        for (String filepath : DOCUMENTS) {
+            System.out.println("== Pipeline: " + filepath);
+            for (BenchmarkResult result : PipelineBenchmark.run(filepath)) {
+                System.out.println(result);
+            }
+            System.out.println();
+        }
+        if (arguments.contains("--pipeline")) {
+            return;
+        }
+
+        for (String filepath : DOCUMENTS) {
+            String[] benchmarkArgs = {filepath};
+            System.out.println("== Cleaner: " + filepath);
+            CleanerBenchmark.main(benchmarkArgs);
+            System.out.println("== Parser: " + filepath);
+            ParserBenchmark.main(benchmarkArgs);
+            System.out.println("== Fragment index: " + filepath);
+            FragmentIndexBenchmark.main(benchmarkArgs);
+            System.out.println("== Search: " + filepath);
+            SearchBenchmark.main(benchmarkArgs);
+            System.out.println("== Reparse: " + filepath);
+            ReparseBenchmark.main(benchmarkArgs);
+            System.out.println("== Traversal: " + filepath);
+            TraversalBenchmark.main(benchmarkArgs);
+            System.out.println("== Render: " + filepath);
+            RenderBenchmark.main(benchmarkArgs);
+            System.out.println();
+        }
+
+        System.out.println("== Scaling (synthetic bills)");
+        ScalingBenchmark.main(new String[]{"10000", "100000"});
+    }
+}
@@ -0,0 +1,43 @@
+package com.farald.Benchmark;
+
+import com.farald.Cleaner.Cleaner;
+import com.farald.DocumentRepresentation.BillDocument;
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentSystem.AbstractDocumentSystem;
+import com.farald.DocumentSystem.ConsumersBillDocumentSystem;
+import com.farald.DocumentSystem.DocumentSystemOptions;
+
+import java.io.IOException;
+
+//Compares fused (single pass) cleaning with one pass per rule, and measures cleaning chained with word joining
+public class CleanerBenchmark {
+    public static void main(String[] args) throws IOException {
+        String filepath = args.length > 0 ? args[0] : "uokik.txt";
+        DocumentBuffer documentBuffer = AbstractDocumentSystem.readDocumentBuffer(filepath);
+        Cleaner cleaner = new ConsumersBillDocumentSystem(documentBuffer, new DocumentSystemOptions()).getCleaner();
+        BenchmarkHarness harness = new BenchmarkHarness(200, 500);
+
+        cleaner.setFusedCleaning(false);
+        BenchmarkResult perRule = harness.run("Cleaner.clearDocument (rule per pass)", () -> clear(cleaner, documentBuffer));
+        cleaner.setFusedCleaning(true);
+        BenchmarkResult fused = harness.run("Cleaner.clearDocument (fused)", () -> clear(cleaner, documentBuffer));
+        BenchmarkResult connected = harness.run("Cleaner.clearAndConnectDocument (fused)", () -> clearAndConnect(cleaner, documentBuffer));
+
+        System.out.println(perRule);
+        System.out.println(fused);
+        System.out.println(connected);
+        System.out.println(String.format("Speedup: %.2fx", perRule.nanosPerOperation / fused.nanosPerOperation));
+    }
+
+    private static BillDocument clear(Cleaner cleaner, DocumentBuffer documentBuffer) {
+        BillDocument billDocument = new BillDocument(documentBuffer);
+        cleaner.clearDocument(billDocument);
+        return billDocument;
+    }
+
+    private static BillDocument clearAndConnect(Cleaner cleaner, DocumentBuffer documentBuffer) {
+        BillDocument billDocument = new BillDocument(documentBuffer);
+        cleaner.clearAndConnectDocument(billDocument);
+        return billDocument;
+    }
+}
@@ -0,0 +1,67 @@
+package com.farald.Benchmark;
+
+import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.BillFragmentIndex;
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentRepresentation.DocumentType;
+import com.farald.DocumentSystem.AbstractDocumentSystem;
+import com.farald.DocumentSystem.ConstitutionDocumentSystem;
+import com.farald.DocumentSystem.ConsumersBillDocumentSystem;
+import com.farald.DocumentSystem.DocumentSystemOptions;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+//Compares looking up every identifier of the document with a depth first search and with the fragment index
+public class FragmentIndexBenchmark {
+    public static void main(String[] args) throws IOException {
+        String filepath = args.length > 0 ? args[0] : "uokik.txt";
+        DocumentBuffer documentBuffer = AbstractDocumentSystem.readDocumentBuffer(filepath);
+        AbstractDocumentSystem documentSystem = createDocumentSystem(documentBuffer);
+        BillFragment root = documentSystem.getBillDocument().getBillFragment();
+        BillFragmentIndex fragmentIndex = documentSystem.getBillDocument().getFragmentIndex();
+        List<String> identifiers = new ArrayList<>();
+        collectIdentifiers(root, identifiers);
+        BenchmarkHarness harness = new BenchmarkHarness(20, 50);
+
+        BenchmarkResult search = harness.run("BillFragment.findFirstFragmentWithIdentifier (" + identifiers.size() + " lookups)", () -> {
+            int found = 0;
+            for (String identifier : identifiers) {
+                found += root.findFirstFragmentWithIdentifier(identifier) == null ? 0 : 1;
+            }
+            return found;
+        });
+        BenchmarkResult indexed = harness.run("BillFragmentIndex.findFirstFragmentWithIdentifier (" + identifiers.size() + " lookups)", () -> {
+            int found = 0;
+            for (String identifier : identifiers) {
+                found += fragmentIndex.findFirstFragmentWithIdentifier(root, identifier) == null ? 0 : 1;
+            }
+            return found;
+        });
+        BenchmarkResult building = harness.run("BillFragmentIndex.build", () -> BillFragmentIndex.build(root));
+
+        System.out.println(search);
+        System.out.println(indexed);
+        System.out.println(building);
+        System.out.println(String.format("Speedup: %.2fx", search.nanosPerOperation / indexed.nanosPerOperation));
+    }
+
+    private static AbstractDocumentSystem createDocumentSystem(DocumentBuffer documentBuffer) {
+        DocumentSystemOptions options = new DocumentSystemOptions();
+        if (PolishDocumentSystem.checkDocumentType(documentBuffer.getLineSequences()) == DocumentType.Constitution) {
+            return new ConstitutionDocumentSystem(documentBuffer, options);
+        }
+        return new ConsumersBillDocumentSystem(documentBuffer, options);
+    }
+
+    private static void collectIdentifiers(BillFragment fragment, List<String> identifiers) {
+        if (fragment.getIdentifier() != null) {
+            identifiers.add(fragment.getIdentifier());
+        }
+        for (BillFragment child : fragment.getChildren()) {
+            collectIdentifiers(child, identifiers);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.farald.Benchmark;
+
+import com.farald.Cleaner.Cleaner;
+import com.farald.DocumentRepresentation.BillDocument;
+import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentSystem.AbstractDocumentSystem;
+import com.farald.DocumentSystem.ConstitutionDocumentSystem;
+import com.farald.DocumentSystem.ConsumersBillDocumentSystem;
+import com.farald.DocumentSystem.DocumentSystemOptions;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+import com.farald.DocumentRepresentation.DocumentType;
+import com.farald.Parser.Parser;
+import com.farald.Parser.ParserEngineType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+//Compares parsing with fragments sharing the document text against parsing with a content copy per fragment,
+//the parser engines against each other and sequential parsing against parallel parsing of sibling subtrees.
+//Every engine, and the parallel parsing, has to give the same tree as the sequential recursive one.
+public class ParserBenchmark {
+    public static void main(String[] args) throws IOException {
+        String filepath = args.length > 0 ? args[0] : "uokik.txt";
+        DocumentBuffer documentBuffer = AbstractDocumentSystem.readDocumentBuffer(filepath);
+        AbstractDocumentSystem documentSystem = createDocumentSystem(documentBuffer);
+        Cleaner cleaner = documentSystem.getCleaner();
+        Parser parser = documentSystem.getParser();
+        BenchmarkHarness harness = new BenchmarkHarness(50, 200);
+
+        BillDocument clearedDocument = new BillDocument(documentBuffer);
+        cleaner.clearAndConnectDocument(clearedDocument);
+        List<String> clearedLines = clearedDocument.getBillDocumentLines();
+
+        parser.setEngineType(ParserEngineType.Recursive);
+        parser.setSharedContent(false);
+        BenchmarkResult copied = harness.run("Parser.parseDocument (copied content)", () -> parse(parser, clearedLines));
+        parser.setSharedContent(true);
+        BenchmarkResult shared = harness.run("Parser.parseDocument (shared content)", () -> parse(parser, clearedLines));
+        System.out.println(copied);
+        System.out.println(shared);
+        System.out.println(String.format("Speedup: %.2fx, allocation: %.2fx less", copied.nanosPerOperation / shared.nanosPerOperation,
+                copied.bytesPerOperation / shared.bytesPerOperation));
+
+        BillFragment recursiveTree = parse(parser, clearedLines).getBillFragment();
+        for (ParserEngineType engineType : ParserEngineType.values()) {
+            if (engineType == ParserEngineType.Recursive) {
+                continue;
+            }
+            parser.setEngineType(engineType);
+            if (!isSameTree(recursiveTree, parse(parser, clearedLines).getBillFragment())) {
+                throw new IllegalStateException(engineType + " engine gives a different document tree.");
+            }
+            BenchmarkResult engine = harness.run("Parser.parseDocument (" + engineType + ")", () -> parse(parser, clearedLines));
+            System.out.println(engine);
+            System.out.println(String.format("Speedup over Recursive: %.2fx", shared.nanosPerOperation / engine.nanosPerOperation));
+        }
+
+        //Sibling subtrees parsed at the same time, the speedup depends on the number of processors
+        parser.setEngineType(ParserEngineType.Recursive);
+        parser.setParsingPool(ForkJoinPool.commonPool());
+        if (!isSameTree(recursiveTree, parse(parser, clearedLines).getBillFragment())) {
+            throw new IllegalStateException("Parallel parsing gives a different document tree.");
+        }
+        BenchmarkResult parallel = harness.run("Parser.parseDocument (Recursive, parallel, " + ForkJoinPool.getCommonPoolParallelism() + " threads)",
+                () -> parse(parser, clearedLines));
+        parser.setParsingPool(null);
+        System.out.println(parallel);
+        System.out.println(String.format("Speedup over sequential Recursive: %.2fx", shared.nanosPerOperation / parallel.nanosPerOperation));
+    }
+
+    private static AbstractDocumentSystem createDocumentSystem(DocumentBuffer documentBuffer) {
+        if (PolishDocumentSystem.checkDocumentType(documentBuffer.getLineSequences()) == DocumentType.Constitution) {
+            return new ConstitutionDocumentSystem(documentBuffer, new DocumentSystemOptions());
+        }
+        return new ConsumersBillDocumentSystem(documentBuffer, new DocumentSystemOptions());
+    }
+
+    private static BillDocument parse(Parser parser, List<String> clearedLines) {
+        BillDocument billDocument = new BillDocument(new ArrayList<>(clearedLines));
+        parser.parseDocument(billDocument);
+        return billDocument;
+    }
+
+    private static boolean isSameTree(BillFragment first, BillFragment second) {
+        if (!Objects.equals(first.getIdentifier(), second.getIdentifier()) || !Objects.equals(first.getContent(), second.getContent())) {
+            return false;
+        }
+        List<BillFragment> firstChildren = first.getChildren();
+        List<BillFragment> secondChildren = second.getChildren();
+        if (firstChildren.size() != secondChildren.size()) {
+            return false;
+        }
+        for (int i = 0; i < firstChildren.size(); i++) {
+            if (!isSameTree(firstChildren.get(i), secondChildren.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,121 @@
+package com.farald.Benchmark;
+
+import com.farald.Cleaner.Cleaner;
+import com.farald.DocumentRepresentation.BillDocument;
+import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentSystem.AbstractDocumentSystem;
+import com.farald.DocumentSystem.ConstitutionDocumentSystem;
+import com.farald.DocumentSystem.ConsumersBillDocumentSystem;
+import com.farald.DocumentSystem.DocumentSystemOptions;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+import com.farald.Parser.Parser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+//Measures every stage of the pipeline on its own: reading, cleaning, joining broken words, parsing,
+//article lookups, rendering of the whole document and the tables of contents. Every stage gets the output
+//of the previous one prepared beforehand, so only the stage itself is measured.
+public class PipelineBenchmark {
+    public static void main(String[] args) throws IOException {
+        String[] filepaths = args.length > 0 ? args : new String[]{"konstytucja.txt", "uokik.txt"};
+        for (String filepath : filepaths) {
+            System.out.println(filepath);
+            for (BenchmarkResult result : run(filepath)) {
+                System.out.println(result);
+            }
+            System.out.println();
+        }
+    }
+
+    public static List<BenchmarkResult> run(String filepath) throws IOException {
+        DocumentBuffer documentBuffer = AbstractDocumentSystem.readDocumentBuffer(filepath);
+        PolishDocumentSystem documentSystem = PolishDocumentSystem.create(documentBuffer, new DocumentSystemOptions());
+        Cleaner cleaner = documentSystem.getCleaner();
+        Parser parser = documentSystem.getParser();
+        BillFragment root = documentSystem.getBillDocument().getBillFragment();
+
+        BillDocument clearedDocument = new BillDocument(documentBuffer);
+        cleaner.clearDocument(clearedDocument);
+        List<String> clearedLines = clearedDocument.getBillDocumentLines();
+        cleaner.connectBrokenWords(clearedDocument);
+        List<String> connectedLines = clearedDocument.getBillDocumentLines();
+
+        List<String> articleNumbers = getArticleNumbers(root);
+        if (articleNumbers.isEmpty()) {
+            throw new IllegalStateException("Document has no articles.");
+        }
+        String firstArticle = articleNumbers.get(0);
+        String middleArticle = articleNumbers.get(articleNumbers.size() / 2);
+        String lastArticle = articleNumbers.get(articleNumbers.size() - 1);
+        //Lookups are measured without building the index
+        documentSystem.getArticleIndex();
+
+        BenchmarkHarness slowHarness = new BenchmarkHarness(50, 200);
+        BenchmarkHarness fastHarness = new BenchmarkHarness(1000, 10000);
+        List<BenchmarkResult> results = new ArrayList<>();
+        results.add(slowHarness.run("AbstractDocumentSystem.readFile", () -> readFile(filepath)));
+        results.add(slowHarness.run("Cleaner.clearDocument", () -> clear(cleaner, documentBuffer)));
+        results.add(slowHarness.run("Cleaner.connectBrokenWords", () -> connect(cleaner, clearedLines)));
+        results.add(slowHarness.run("Parser.parseDocument", () -> parse(parser, connectedLines)));
+        results.add(fastHarness.run("PolishDocumentSystem.getArticle (Art. " + middleArticle + ")", () -> documentSystem.getArticle(middleArticle)));
+        results.add(fastHarness.run("PolishDocumentSystem.getArticlesInRange (all)", () -> documentSystem.getArticlesInRange(firstArticle, lastArticle)));
+        results.add(slowHarness.run("BillFragment.getFragmentContentWithChildren", root::getFragmentContentWithChildren));
+        results.add(slowHarness.run("getTableOfContents", documentSystem::getTableOfContents));
+        results.add(slowHarness.run(getPartTableOfContentsName(documentSystem), () -> getPartTableOfContents(documentSystem)));
+        return results;
+    }
+
+    //Numbers of articles in the document order, "Art. 12a." gives "12a"
+    private static List<String> getArticleNumbers(BillFragment root) {
+        List<String> articleNumbers = new ArrayList<>();
+        root.preOrderStream()
+                .map(BillFragment::getIdentifier)
+                .filter((x) -> x != null && x.startsWith("Art. ") && x.endsWith("."))
+                .forEach((x) -> articleNumbers.add(x.substring("Art. ".length(), x.length() - 1)));
+        return articleNumbers;
+    }
+
+    private static List<String> readFile(String filepath) {
+        try {
+            return AbstractDocumentSystem.readFile(filepath);
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't read file.", e);
+        }
+    }
+
+    private static BillDocument clear(Cleaner cleaner, DocumentBuffer documentBuffer) {
+        BillDocument billDocument = new BillDocument(documentBuffer);
+        cleaner.clearDocument(billDocument);
+        return billDocument;
+    }
+
+    private static BillDocument connect(Cleaner cleaner, List<String> clearedLines) {
+        BillDocument billDocument = new BillDocument(clearedLines);
+        cleaner.connectBrokenWords(billDocument);
+        return billDocument;
+    }
+
+    private static BillDocument parse(Parser parser, List<String> connectedLines) {
+        BillDocument billDocument = new BillDocument(new ArrayList<>(connectedLines));
+        parser.parseDocument(billDocument);
+        return billDocument;
+    }
+
+    //Table of contents of the first part, chapter of the constitution or section of the bill
+    private static String getPartTableOfContentsName(PolishDocumentSystem documentSystem) {
+        if (documentSystem instanceof ConstitutionDocumentSystem) {
+            return "getChapterTableOfContents (I)";
+        }
+        return "getSectionTableOfContents (I)";
+    }
+
+    private static String getPartTableOfContents(PolishDocumentSystem documentSystem) {
+        if (documentSystem instanceof ConstitutionDocumentSystem) {
+            return ((ConstitutionDocumentSystem) documentSystem).getChapterTableOfContents("I");
+        }
+        return ((ConsumersBillDocumentSystem) documentSystem).getSectionTableOfContents("I");
+    }
+}
@@ -0,0 +1,157 @@
+package com.farald.Benchmark;
+
+import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentRepresentation.DocumentType;
+import com.farald.DocumentRepresentation.FragmentRenderer;
+import com.farald.DocumentRepresentation.TableOfContentsRenderer;
+import com.farald.DocumentSystem.AbstractDocumentSystem;
+import com.farald.DocumentSystem.ConstitutionDocumentSystem;
+import com.farald.DocumentSystem.ConsumersBillDocumentSystem;
+import com.farald.DocumentSystem.DocumentSystemOptions;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+//Compares rendering of the whole document with a string built at every fragment and rendering straight into an output.
+//Table of contents built from lists of child lines is compared with the one rendered with lines indented by depth.
+public class RenderBenchmark {
+    public static void main(String[] args) throws IOException {
+        String filepath = args.length > 0 ? args[0] : "uokik.txt";
+        DocumentBuffer documentBuffer = AbstractDocumentSystem.readDocumentBuffer(filepath);
+        BillFragment root = createDocumentSystem(documentBuffer).getBillDocument().getBillFragment();
+        if (!getContentWithStrings(root).equals(root.getFragmentContentWithChildren())) {
+            throw new IllegalStateException("Rendered text differs from the text built at every fragment.");
+        }
+        CountingWriter countingWriter = new CountingWriter();
+        BufferedWriter bufferedWriter = new BufferedWriter(countingWriter);
+        FragmentRenderer writerRenderer = new FragmentRenderer(bufferedWriter);
+        BenchmarkHarness harness = new BenchmarkHarness(200, 500);
+
+        BenchmarkResult strings = harness.run("Strings built at every fragment", () -> getContentWithStrings(root));
+        BenchmarkResult builder = harness.run("BillFragment.getFragmentContentWithChildren", root::getFragmentContentWithChildren);
+        BenchmarkResult writer = harness.run("FragmentRenderer into a buffered writer", () -> render(writerRenderer, bufferedWriter, root, countingWriter));
+
+        System.out.println(strings);
+        System.out.println(builder);
+        System.out.println(writer);
+        System.out.println(String.format("Speedup (string): %.2fx", strings.nanosPerOperation / builder.nanosPerOperation));
+        System.out.println(String.format("Speedup (writer): %.2fx", strings.nanosPerOperation / writer.nanosPerOperation));
+
+        Predicate<BillFragment> traverseSubtree = (x) -> true;
+        Predicate<String> contentPredicate = Objects::nonNull;
+        if (!joinLines(getTableOfContentsWithLists(root, traverseSubtree, contentPredicate)).equals(renderTableOfContents(root, traverseSubtree, contentPredicate))) {
+            throw new IllegalStateException("Rendered table of contents differs from the one built from lists.");
+        }
+        BenchmarkResult tocLists = harness.run("Table of contents with lists prefixed at every level",
+                () -> joinLines(getTableOfContentsWithLists(root, traverseSubtree, contentPredicate)));
+        BenchmarkResult tocRenderer = harness.run("TableOfContentsRenderer", () -> renderTableOfContents(root, traverseSubtree, contentPredicate));
+
+        System.out.println(tocLists);
+        System.out.println(tocRenderer);
+        System.out.println(String.format("Speedup (table of contents): %.2fx", tocLists.nanosPerOperation / tocRenderer.nanosPerOperation));
+    }
+
+    private static AbstractDocumentSystem createDocumentSystem(DocumentBuffer documentBuffer) {
+        DocumentSystemOptions options = new DocumentSystemOptions();
+        if (PolishDocumentSystem.checkDocumentType(documentBuffer.getLineSequences()) == DocumentType.Constitution) {
+            return new ConstitutionDocumentSystem(documentBuffer, options);
+        }
+        return new ConsumersBillDocumentSystem(documentBuffer, options);
+    }
+
+    private static Long render(FragmentRenderer renderer, Writer writer, BillFragment root, CountingWriter countingWriter) {
+        try {
+            renderer.render(root);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return countingWriter.written;
+    }
+
+    //Previous implementation of getFragmentContentWithChildren, kept for the comparison
+    private static String getContentWithStrings(BillFragment fragment) {
+        StringBuilder contents = new StringBuilder("");
+        if (fragment.getIdentifier() != null) {
+            contents.append(fragment.getIdentifier());
+            contents.append(" ");
+        }
+        if (fragment.getContentSource() != null) {
+            contents.append(fragment.getContentSource(), fragment.getContentStart(), fragment.getContentEnd());
+            contents.append("\n");
+        }
+
+        for (BillFragment child : fragment.getChildren()) {
+            contents.append(getContentWithStrings(child));
+        }
+        return contents.toString();
+    }
+
+    private static String renderTableOfContents(BillFragment root, Predicate<BillFragment> traverseSubtree, Predicate<String> contentPredicate) {
+        StringBuilder tableOfContents = new StringBuilder();
+        try {
+            new TableOfContentsRenderer(tableOfContents, 2, traverseSubtree, contentPredicate).render(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tableOfContents.toString();
+    }
+
+    //Previous implementation of the table of contents, every parent prefixed the lines of its children again
+    private static List<String> getTableOfContentsWithLists(BillFragment fragment, Predicate<BillFragment> traverseSubtree, Predicate<String> contentPredicate) {
+        List<String> tableOfContents = new ArrayList<>();
+        if (!traverseSubtree.test(fragment)) {
+            return tableOfContents;
+        }
+        if (fragment.getIdentifier() != null) {
+            tableOfContents.addAll(Arrays.asList(fragment.getIdentifier().split("\n")));
+        }
+        String content = fragment.getContent();
+        if (contentPredicate.test(content)) {
+            tableOfContents.add(content);
+        }
+        for (BillFragment child : fragment.getChildren()) {
+            for (String childToC : getTableOfContentsWithLists(child, traverseSubtree, contentPredicate)) {
+                tableOfContents.add("  " + childToC);
+            }
+        }
+        return tableOfContents;
+    }
+
+    private static String joinLines(List<String> lines) {
+        StringBuilder builder = new StringBuilder("");
+        for (String line : lines) {
+            if (line != null && line.trim().length() > 0) {
+                builder.append(line).append("\n");
+            }
+        }
+        return builder.toString();
+    }
+
+    //Discards the text, only its length is kept
+    private static class CountingWriter extends Writer {
+        private long written;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            written += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.farald.Benchmark;
+
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentSystem.AbstractDocumentSystem;
+import com.farald.DocumentSystem.DocumentSystemOptions;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Compares updating a parsed document with a small edit of its text against parsing the edited document from scratch.
+//ReparseTest checks that both give the same document.
+public class ReparseBenchmark {
+    public static void main(String[] args) throws IOException {
+        String filepath = args.length > 0 ? args[0] : "uokik.txt";
+        List<String> lines = AbstractDocumentSystem.readDocumentBuffer(filepath).getLines();
+        Map<String, List<String>> edits = createEdits(lines);
+
+        BenchmarkHarness harness = new BenchmarkHarness(20, 50);
+        DocumentBuffer original = DocumentBuffer.fromLines(lines);
+        for (Map.Entry<String, List<String>> edit : edits.entrySet()) {
+            DocumentBuffer edited = DocumentBuffer.fromLines(edit.getValue());
+            PolishDocumentSystem documentSystem = PolishDocumentSystem.create(original, new DocumentSystemOptions());
+            System.out.println(edit.getKey() + ": " + documentSystem.updateDocument(edited));
+            BenchmarkResult full = harness.run("Full parse (" + edit.getKey() + ")",
+                    () -> PolishDocumentSystem.create(edited, new DocumentSystemOptions()));
+            //Every update goes from one version to the other, so each one reparses the same change
+            boolean[] isEdited = {true};
+            BenchmarkResult incremental = harness.run("AbstractDocumentSystem.updateDocument (" + edit.getKey() + ")", () -> {
+                isEdited[0] = !isEdited[0];
+                return documentSystem.updateDocument(isEdited[0] ? edited : original);
+            });
+            System.out.println(full);
+            System.out.println(incremental);
+            System.out.println(String.format("Speedup: %.2fx", full.nanosPerOperation / incremental.nanosPerOperation));
+        }
+    }
+
+    //Edits of the document text near its middle
+    private static Map<String, List<String>> createEdits(List<String> lines) {
+        int articleLine = findLine(lines, lines.size() / 2, "Art. ");
+        int textLine = articleLine + 1;
+        int chapterLine = findLine(lines, lines.size() / 3, "Rozdział");
+        Map<String, List<String>> edits = new LinkedHashMap<>();
+
+        edits.put("no change", new ArrayList<>(lines));
+        List<String> edit = new ArrayList<>(lines);
+        edit.set(textLine, edit.get(textLine) + " oraz inne");
+        edits.put("words added to an article", edit);
+        edit = new ArrayList<>(lines);
+        edit.add(textLine, "przepis dodany w nowym brzmieniu,");
+        edits.put("line inserted into an article", edit);
+        edit = new ArrayList<>(lines);
+        edit.remove(textLine);
+        edits.put("line deleted from an article", edit);
+        edit = new ArrayList<>(lines);
+        edit.add(articleLine, "Art. 999a. Nowy artykuł.");
+        edits.put("article inserted", edit);
+        edit = new ArrayList<>(lines);
+        edit.set(articleLine, edit.get(articleLine).replaceFirst("Art\\. ", "Artykuł "));
+        edits.put("article merged with the previous one", edit);
+        if (chapterLine >= 0) {
+            edit = new ArrayList<>(lines);
+            edit.set(chapterLine + 1, edit.get(chapterLine + 1) + " i inne");
+            edits.put("chapter title changed", edit);
+        }
+        edit = new ArrayList<>(lines);
+        for (int line = articleLine % 100; line < edit.size(); line += 100) {
+            edit.set(line, edit.get(line) + " ");
+        }
+        edits.put("every 100th line changed", edit);
+        return edits;
+    }
+
+    private static int findLine(List<String> lines, int from, String prefix) {
+        for (int line = from; line < lines.size() - 1; line++) {
+            if (lines.get(line).startsWith(prefix)) {
+                return line;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,69 @@
+package com.farald.Benchmark;
+
+import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentSystem.DocumentSystemOptions;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+import com.farald.Generator.SyntheticBillGenerator;
+import com.farald.Generator.SyntheticBillOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Measures how cleaning with parsing and the queries scale with the size of synthetic bills.
+//Arguments are the numbers of lines, the last lines are a CSV table (microseconds per operation) ready to be plotted.
+public class ScalingBenchmark {
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[]{10_000, 30_000, 100_000, 300_000};
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        List<String> rows = new ArrayList<>();
+        for (int size : sizes) {
+            List<BenchmarkResult> results = run(size);
+            StringBuilder row = new StringBuilder(Integer.toString(size));
+            System.out.println(size + " lines");
+            for (BenchmarkResult result : results) {
+                System.out.println(result);
+                row.append(String.format(",%.1f", result.nanosPerOperation / 1000));
+            }
+            rows.add(row.toString());
+        }
+        System.out.println("lines,parse,getArticle,getArticlesInRange,getFragmentContentWithChildren,getTableOfContents");
+        for (String row : rows) {
+            System.out.println(row);
+        }
+    }
+
+    public static List<BenchmarkResult> run(int lineCount) {
+        SyntheticBillOptions generatorOptions = new SyntheticBillOptions();
+        generatorOptions.setTargetLines(lineCount);
+        DocumentBuffer documentBuffer = DocumentBuffer.fromLines(new SyntheticBillGenerator(generatorOptions).generateLines());
+        DocumentSystemOptions options = new DocumentSystemOptions();
+        PolishDocumentSystem documentSystem = PolishDocumentSystem.create(documentBuffer, options);
+        BillFragment root = documentSystem.getBillDocument().getBillFragment();
+
+        List<String> articleNumbers = new ArrayList<>();
+        root.preOrderStream()
+                .map(BillFragment::getIdentifier)
+                .filter((x) -> x != null && x.startsWith("Art. ") && x.endsWith("."))
+                .forEach((x) -> articleNumbers.add(x.substring("Art. ".length(), x.length() - 1)));
+        String firstArticle = articleNumbers.get(0);
+        String middleArticle = articleNumbers.get(articleNumbers.size() / 2);
+        String lastArticle = articleNumbers.get(articleNumbers.size() - 1);
+        documentSystem.getArticleIndex();
+
+        //Large documents take seconds to parse
+        BenchmarkHarness parseHarness = new BenchmarkHarness(1, 3);
+        BenchmarkHarness slowHarness = new BenchmarkHarness(5, 20);
+        BenchmarkHarness fastHarness = new BenchmarkHarness(1000, 10000);
+        List<BenchmarkResult> results = new ArrayList<>();
+        results.add(parseHarness.run("PolishDocumentSystem.create", () -> PolishDocumentSystem.create(documentBuffer, options)));
+        results.add(fastHarness.run("PolishDocumentSystem.getArticle", () -> documentSystem.getArticle(middleArticle)));
+        results.add(fastHarness.run("PolishDocumentSystem.getArticlesInRange (all)", () -> documentSystem.getArticlesInRange(firstArticle, lastArticle)));
+        results.add(slowHarness.run("BillFragment.getFragmentContentWithChildren", root::getFragmentContentWithChildren));
+        results.add(slowHarness.run("getTableOfContents", documentSystem::getTableOfContents));
+        return results;
+    }
+}
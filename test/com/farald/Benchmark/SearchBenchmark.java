@@ -0,0 +1,60 @@
+package com.farald.Benchmark;
+
+import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentSystem.AbstractDocumentSystem;
+import com.farald.DocumentSystem.DocumentSystemOptions;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+import com.farald.Search.FullTextIndex;
+import com.farald.Search.SearchQuery;
+import com.farald.Search.TextNormalizer;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+//Compares finding the fragments with all words of a query by walking every fragment with the full text index
+public class SearchBenchmark {
+    private static final String[] QUERIES = {"ustawa", "Rzeczypospolitej Polskiej", "Rada Ministrów określi"};
+
+    public static void main(String[] args) throws IOException {
+        String filepath = args.length > 0 ? args[0] : "uokik.txt";
+        DocumentBuffer documentBuffer = AbstractDocumentSystem.readDocumentBuffer(filepath);
+        PolishDocumentSystem documentSystem = PolishDocumentSystem.create(documentBuffer, new DocumentSystemOptions());
+        BillFragment root = documentSystem.getBillDocument().getBillFragment();
+        TextNormalizer normalizer = TextNormalizer.polish();
+        FullTextIndex searchIndex = FullTextIndex.build(root, normalizer);
+        BenchmarkHarness slowHarness = new BenchmarkHarness(20, 50);
+        BenchmarkHarness fastHarness = new BenchmarkHarness(1000, 10000);
+
+        for (String query : QUERIES) {
+            List<String> terms = SearchQuery.parse(query, normalizer).getTerms();
+            BenchmarkResult walk = slowHarness.run("Walk of every fragment (" + query + ")", () -> countMatchingFragments(root, normalizer, terms));
+            BenchmarkResult indexed = fastHarness.run("FullTextIndex.search (" + query + ")", () -> searchIndex.search(query, 10));
+            System.out.println(walk);
+            System.out.println(indexed);
+            System.out.println(String.format("Speedup: %.2fx", walk.nanosPerOperation / indexed.nanosPerOperation));
+        }
+        System.out.println(slowHarness.run("FullTextIndex.build (" + searchIndex.getFragmentCount() + " fragments, "
+                + searchIndex.getTermCount() + " terms)", () -> FullTextIndex.build(root, normalizer)));
+    }
+
+    private static int countMatchingFragments(BillFragment root, TextNormalizer normalizer, List<String> terms) {
+        int found = 0;
+        Iterator<BillFragment> fragments = root.preOrderIterator();
+        while (fragments.hasNext()) {
+            BillFragment fragment = fragments.next();
+            Set<String> fragmentTerms = new HashSet<>();
+            if (fragment.getIdentifier() != null) {
+                normalizer.forEachWord(fragment.getIdentifier(), (term, start, end) -> fragmentTerms.add(term));
+            }
+            if (fragment.getContent() != null) {
+                normalizer.forEachWord(fragment.getContent(), (term, start, end) -> fragmentTerms.add(term));
+            }
+            found += fragmentTerms.containsAll(terms) ? 1 : 0;
+        }
+        return found;
+    }
+}
@@ -0,0 +1,62 @@
+package com.farald.Benchmark;
+
+import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentRepresentation.DocumentType;
+import com.farald.DocumentSystem.AbstractDocumentSystem;
+import com.farald.DocumentSystem.ConstitutionDocumentSystem;
+import com.farald.DocumentSystem.ConsumersBillDocumentSystem;
+import com.farald.DocumentSystem.DocumentSystemOptions;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+//Compares the lazy pre-order traversal with the recursive search which built a list at every fragment
+public class TraversalBenchmark {
+    public static void main(String[] args) throws IOException {
+        String filepath = args.length > 0 ? args[0] : "uokik.txt";
+        DocumentBuffer documentBuffer = AbstractDocumentSystem.readDocumentBuffer(filepath);
+        BillFragment root = createDocumentSystem(documentBuffer).getBillDocument().getBillFragment();
+        Predicate<BillFragment> articlePredicate = (x) -> x.getIdentifier() != null && x.getIdentifier().contains("Art.");
+        //First article, which a first match search can stop at early
+        Predicate<BillFragment> firstArticlePredicate = (x) -> x.getIdentifier() != null && x.getIdentifier().equals("Art. 1.");
+        BenchmarkHarness harness = new BenchmarkHarness(200, 1000);
+
+        BenchmarkResult listsAll = harness.run("Recursive lists, all articles", () -> findAllWithLists(root, articlePredicate));
+        BenchmarkResult streamAll = harness.run("BillFragment.findAllFragmentsSatisfyingPredicate, all articles",
+                () -> root.findAllFragmentsSatisfyingPredicate(articlePredicate));
+        BenchmarkResult listsFirst = harness.run("Recursive lists, first article", () -> findAllWithLists(root, firstArticlePredicate).get(0));
+        BenchmarkResult streamFirst = harness.run("BillFragment.findFirstFragmentSatisfyingPredicate, first article",
+                () -> root.findFirstFragmentSatisfyingPredicate(firstArticlePredicate));
+
+        System.out.println(listsAll);
+        System.out.println(streamAll);
+        System.out.println(String.format("Speedup: %.2fx", listsAll.nanosPerOperation / streamAll.nanosPerOperation));
+        System.out.println(listsFirst);
+        System.out.println(streamFirst);
+        System.out.println(String.format("Speedup: %.2fx", listsFirst.nanosPerOperation / streamFirst.nanosPerOperation));
+    }
+
+    private static AbstractDocumentSystem createDocumentSystem(DocumentBuffer documentBuffer) {
+        DocumentSystemOptions options = new DocumentSystemOptions();
+        if (PolishDocumentSystem.checkDocumentType(documentBuffer.getLineSequences()) == DocumentType.Constitution) {
+            return new ConstitutionDocumentSystem(documentBuffer, options);
+        }
+        return new ConsumersBillDocumentSystem(documentBuffer, options);
+    }
+
+    //Previous implementation of the search, kept for the comparison
+    private static List<BillFragment> findAllWithLists(BillFragment fragment, Predicate<BillFragment> predicate) {
+        List<BillFragment> fragments = new ArrayList<>();
+        if (predicate.test(fragment)) {
+            fragments.add(fragment);
+        }
+        for (BillFragment child : fragment.getChildren()) {
+            fragments.addAll(findAllWithLists(child, predicate));
+        }
+        return fragments;
+    }
+}
@@ -0,0 +1,283 @@
+package com.farald.Cleaner;
+
+import com.farald.DocumentRepresentation.BillDocument;
+import com.farald.DocumentRepresentation.BillTreeAssertions;
+import com.farald.DocumentSystem.AbstractDocumentSystem;
+import com.farald.DocumentSystem.DocumentSystemOptions;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+//A rule whose regex finds a match in a line has to be among the candidates the classifier selects for the line,
+//and its prefilter has to accept the line, otherwise fused cleaning keeps lines the rule should delete.
+//Checked with generated patterns and lines, many of the lines built to contain a match.
+public class CleanerRuleClassifierTest {
+    private static final String[] DOCUMENTS = {"konstytucja.txt", "uokik.txt"};
+    private static final String LINE_CHARACTERS = "aAbBz09-. ()\tóŁ Ā";
+    private static final int RULE_SETS = 3000;
+    private static final int RULES_PER_SET = 6;
+    private static final int LINES_PER_RULE = 12;
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(4);
+        int matchCount = 0;
+        for (int ruleSet = 0; ruleSet < RULE_SETS; ruleSet++) {
+            List<CleanerRule> cleanerRules = new ArrayList<>();
+            List<String> lines = new ArrayList<>();
+            for (int rule = 0; rule < RULES_PER_SET; rule++) {
+                StringBuilder regex = new StringBuilder();
+                List<StringBuilder> samples = new ArrayList<>();
+                for (int line = 0; line < LINES_PER_RULE; line++) {
+                    samples.add(new StringBuilder());
+                }
+                generatePattern(random, regex, samples);
+                CleanerRuleType ruleType = random.nextBoolean() ? CleanerRuleType.DeleteLineWithPhrase : CleanerRuleType.DeletePhrase;
+                cleanerRules.add(new CleanerRule(regex.toString(), ruleType));
+                for (StringBuilder sample : samples) {
+                    lines.add(sample.toString());
+                }
+                lines.add(randomText(random, 10));
+            }
+            lines.add("");
+            lines.add(randomText(random, 3) + "\n" + randomText(random, 3));
+            matchCount += checkCandidates(cleanerRules, lines);
+            checkFusedCleaning(cleanerRules, lines, "rule set " + ruleSet);
+        }
+        BillTreeAssertions.check(matchCount > RULE_SETS * RULES_PER_SET * LINES_PER_RULE / 4,
+                "Only " + matchCount + " generated lines contain a match.");
+
+        for (String filepath : DOCUMENTS) {
+            List<String> lines = AbstractDocumentSystem.readDocumentBuffer(filepath).getLines();
+            Cleaner cleaner = PolishDocumentSystem.create(AbstractDocumentSystem.readDocumentBuffer(filepath), new DocumentSystemOptions()).getCleaner();
+            BillTreeAssertions.check(clear(cleaner, lines, true).equals(clear(cleaner, lines, false)),
+                    filepath + ": fused cleaning gives different lines than a pass per rule.");
+        }
+        System.out.println("CleanerRuleClassifierTest: OK");
+    }
+
+    //Number of rule matches checked
+    private static int checkCandidates(List<CleanerRule> cleanerRules, List<String> lines) {
+        CleanerRuleClassifier classifier = new CleanerRuleClassifier(cleanerRules);
+        int matchCount = 0;
+        for (String line : lines) {
+            boolean plainLine = CleanerRuleClassifier.isPlainLine(line);
+            int[] candidateRules = classifier.getCandidateRules(line, plainLine);
+            for (int i = 1; i < candidateRules.length; i++) {
+                BillTreeAssertions.check(candidateRules[i - 1] < candidateRules[i], "Candidate rules aren't ascending.");
+            }
+            for (int ruleNumber = 0; ruleNumber < cleanerRules.size(); ruleNumber++) {
+                Pattern pattern = cleanerRules.get(ruleNumber).regexPattern;
+                if (!pattern.matcher(line).find()) {
+                    continue;
+                }
+                matchCount++;
+                BillTreeAssertions.check(contains(candidateRules, ruleNumber),
+                        "Rule " + pattern + " matches \"" + line + "\" but isn't a candidate.");
+                BillTreeAssertions.check(classifier.mayMatch(ruleNumber, line, plainLine),
+                        "Rule " + pattern + " matches \"" + line + "\" but its prefilter rejects the line.");
+            }
+        }
+        return matchCount;
+    }
+
+    private static void checkFusedCleaning(List<CleanerRule> cleanerRules, List<String> lines, String name) {
+        Cleaner cleaner = new Cleaner();
+        for (CleanerRule cleanerRule : cleanerRules) {
+            cleaner.addNewCleanRule(cleanerRule);
+        }
+        BillTreeAssertions.check(clear(cleaner, lines, true).equals(clear(cleaner, lines, false)),
+                name + ": fused cleaning gives different lines than a pass per rule.");
+    }
+
+    private static List<String> clear(Cleaner cleaner, List<String> lines, boolean fusedCleaning) {
+        BillDocument billDocument = new BillDocument(new ArrayList<>(lines));
+        cleaner.setFusedCleaning(fusedCleaning);
+        cleaner.clearDocument(billDocument);
+        cleaner.setFusedCleaning(true);
+        return billDocument.getBillDocumentLines();
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int candidate : values) {
+            if (candidate == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //<editor-fold desc="Generated patterns">
+    //Writes a pattern and appends a text matching it to every sample, samples get random text around the match
+    private static void generatePattern(Random random, StringBuilder regex, List<StringBuilder> samples) {
+        if (random.nextInt(4) == 0) {
+            regex.append("(?m)");
+        }
+        boolean anchoredAtStart = random.nextInt(3) == 0;
+        if (anchoredAtStart) {
+            regex.append('^');
+        } else {
+            for (StringBuilder sample : samples) {
+                sample.append(randomSurrounding(random));
+            }
+        }
+
+        int atomCount = 1 + random.nextInt(5);
+        for (int atom = 0; atom < atomCount; atom++) {
+            generateQuantifiedAtom(random, regex, samples);
+        }
+        if (random.nextInt(6) == 0) {
+            //Alternatives aren't analyzed, the rule is a candidate for every line
+            regex.append('|');
+            generateQuantifiedAtom(random, regex, new ArrayList<>());
+        }
+
+        boolean anchoredAtEnd = random.nextInt(3) == 0;
+        if (anchoredAtEnd) {
+            regex.append('$');
+        } else {
+            for (StringBuilder sample : samples) {
+                sample.append(randomSurrounding(random));
+            }
+        }
+    }
+
+    private static void generateQuantifiedAtom(Random random, StringBuilder regex, List<StringBuilder> samples) {
+        List<StringBuilder> atomSamples = new ArrayList<>();
+        for (int i = 0; i < samples.size(); i++) {
+            atomSamples.add(new StringBuilder());
+        }
+        generateAtom(random, regex, atomSamples);
+
+        int minimumCount;
+        int maximumCount;
+        switch (random.nextInt(9)) {
+            case 0:
+                regex.append('?');
+                minimumCount = 0;
+                maximumCount = 1;
+                break;
+            case 1:
+                regex.append('*');
+                minimumCount = 0;
+                maximumCount = 3;
+                break;
+            case 2:
+                regex.append('+');
+                minimumCount = 1;
+                maximumCount = 3;
+                break;
+            case 3:
+                minimumCount = random.nextInt(3);
+                maximumCount = minimumCount;
+                regex.append('{').append(minimumCount).append('}');
+                break;
+            case 4:
+                minimumCount = random.nextInt(2);
+                maximumCount = minimumCount + random.nextInt(3);
+                regex.append('{').append(minimumCount).append(',').append(maximumCount).append('}');
+                break;
+            case 5:
+                minimumCount = 1 + random.nextInt(2);
+                maximumCount = minimumCount + 2;
+                regex.append('{').append(minimumCount).append(",}");
+                break;
+            default:
+                minimumCount = 1;
+                maximumCount = 1;
+        }
+        if (maximumCount != 1 || minimumCount != 1) {
+            //Lazy or possessive repetition
+            int modifier = random.nextInt(4);
+            if (modifier == 0) {
+                regex.append('?');
+            } else if (modifier == 1) {
+                regex.append('+');
+            }
+        }
+
+        //Every sample repeats its own text of the atom, which some atoms (classes, dots) choose at random
+        for (int i = 0; i < samples.size(); i++) {
+            int count = minimumCount + random.nextInt(maximumCount - minimumCount + 1);
+            for (int repeat = 0; repeat < count; repeat++) {
+                samples.get(i).append(atomSamples.get(i));
+            }
+        }
+    }
+
+    private static void generateAtom(Random random, StringBuilder regex, List<StringBuilder> samples) {
+        switch (random.nextInt(12)) {
+            case 0:
+                regex.append('.');
+                appendEach(random, samples, "abŁ .-");
+                break;
+            case 1:
+                regex.append("[a-c]");
+                appendEach(random, samples, "abc");
+                break;
+            case 2:
+                regex.append("[^a]");
+                appendEach(random, samples, "bŁ9 ");
+                break;
+            case 3:
+                regex.append("[A-Z0-9]");
+                appendEach(random, samples, "AZ09");
+                break;
+            case 4:
+                regex.append("[\\-.ó]");
+                appendEach(random, samples, "-.ó");
+                break;
+            case 5:
+                regex.append("\\.");
+                appendEach(random, samples, ".");
+                break;
+            case 6:
+                regex.append("\\d");
+                appendEach(random, samples, "0579");
+                break;
+            case 7:
+                regex.append("\\s");
+                appendEach(random, samples, " \t");
+                break;
+            case 8:
+                regex.append("(a|bB)");
+                appendEach(random, samples, "a");
+                break;
+            case 9:
+                regex.append("(?:ab)");
+                appendEach(random, samples, "ab");
+                break;
+            default:
+                String literals = "abAzŁó0- ";
+                char literal = literals.charAt(random.nextInt(literals.length()));
+                regex.append(literal);
+                for (StringBuilder sample : samples) {
+                    sample.append(literal);
+                }
+        }
+    }
+
+    private static void appendEach(Random random, List<StringBuilder> samples, String characters) {
+        for (StringBuilder sample : samples) {
+            sample.append(characters.charAt(random.nextInt(characters.length())));
+        }
+    }
+
+    //Often nothing, so lines as short as the pattern allows are checked too
+    private static String randomSurrounding(Random random) {
+        return random.nextBoolean() ? "" : randomText(random, 3);
+    }
+
+    private static String randomText(Random random, int maximumLength) {
+        int length = random.nextInt(maximumLength + 1);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(LINE_CHARACTERS.charAt(random.nextInt(LINE_CHARACTERS.length())));
+        }
+        return text.toString();
+    }
+    //</editor-fold>
+}
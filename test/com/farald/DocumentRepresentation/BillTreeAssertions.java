@@ -0,0 +1,102 @@
+package com.farald.DocumentRepresentation;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ArrayList;
+import java.util.Objects;
+
+//Checks of parsed documents shared by the tests, a failed check throws an AssertionError
+public class BillTreeAssertions {
+    private BillTreeAssertions() {
+    }
+
+    public static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    //Same identifiers, contents and shape of the trees, the tree of the actual document with correct parent links
+    //and a fragment index which finds every fragment of it
+    public static void assertSameDocument(BillDocument expected, BillDocument actual, String name) {
+        assertSameTree(expected.getBillFragment(), actual.getBillFragment(), name);
+        assertParentLinks(actual.getBillFragment(), name);
+        assertFragmentIndex(actual, name);
+    }
+
+    //<editor-fold desc="Tree">
+    public static void assertSameTree(BillFragment expected, BillFragment actual, String name) {
+        check(expected != null && actual != null, name + ": document has no tree.");
+        Iterator<BillFragment> expectedFragments = expected.preOrderIterator();
+        Iterator<BillFragment> actualFragments = actual.preOrderIterator();
+        int number = 0;
+        while (expectedFragments.hasNext() && actualFragments.hasNext()) {
+            BillFragment expectedFragment = expectedFragments.next();
+            BillFragment actualFragment = actualFragments.next();
+            check(Objects.equals(expectedFragment.getIdentifier(), actualFragment.getIdentifier()),
+                    name + ": fragment " + number + " has identifier " + actualFragment.getIdentifier()
+                            + " instead of " + expectedFragment.getIdentifier() + ".");
+            check(Objects.equals(expectedFragment.getContent(), actualFragment.getContent()),
+                    name + ": fragment " + number + " (" + actualFragment.getIdentifier() + ") has different content.");
+            check(expectedFragment.getChildren().size() == actualFragment.getChildren().size(),
+                    name + ": fragment " + number + " (" + actualFragment.getIdentifier() + ") has "
+                            + actualFragment.getChildren().size() + " children instead of " + expectedFragment.getChildren().size() + ".");
+            number++;
+        }
+        check(!expectedFragments.hasNext() && !actualFragments.hasNext(), name + ": trees have different sizes.");
+    }
+
+    public static void assertParentLinks(BillFragment root, String name) {
+        check(root.getParent() == null, name + ": root has a parent.");
+        Deque<BillFragment> fragments = new ArrayDeque<>();
+        fragments.push(root);
+        while (!fragments.isEmpty()) {
+            BillFragment fragment = fragments.pop();
+            for (BillFragment child : fragment.getChildren()) {
+                check(child.getParent() == fragment, name + ": fragment " + child.getIdentifier()
+                        + " doesn't link to its parent " + fragment.getIdentifier() + ".");
+                fragments.push(child);
+            }
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Fragment index">
+    //Index of the document has every fragment of its tree and no other, lookups give the same fragments as the tree
+    public static void assertFragmentIndex(BillDocument billDocument, String name) {
+        BillFragment root = billDocument.getBillFragment();
+        BillFragmentIndex fragmentIndex = billDocument.getFragmentIndex();
+        check(fragmentIndex != null, name + ": document has no fragment index.");
+
+        Map<String, List<BillFragment>> fragmentsByIdentifier = new LinkedHashMap<>();
+        Map<BillFragment, Boolean> fragments = new IdentityHashMap<>();
+        Iterator<BillFragment> iterator = root.preOrderIterator();
+        while (iterator.hasNext()) {
+            BillFragment fragment = iterator.next();
+            fragments.put(fragment, Boolean.TRUE);
+            check(fragmentIndex.contains(fragment), name + ": fragment " + fragment.getIdentifier() + " isn't indexed.");
+            if (fragment.getIdentifier() != null) {
+                fragmentsByIdentifier.computeIfAbsent(fragment.getIdentifier(), (x) -> new ArrayList<>()).add(fragment);
+                check(fragmentIndex.findFirstFragmentWithIdentifier(fragment, fragment.getIdentifier()) == fragment,
+                        name + ": index doesn't find fragment " + fragment.getIdentifier() + " in its own subtree.");
+            }
+        }
+        check(fragmentIndex.size() == fragments.size(), name + ": index has " + fragmentIndex.size()
+                + " fragments, the tree has " + fragments.size() + ".");
+
+        for (Map.Entry<String, List<BillFragment>> entry : fragmentsByIdentifier.entrySet()) {
+            List<BillFragment> found = fragmentIndex.findAllFragmentsWithIdentifier(root, entry.getKey());
+            check(found.size() == entry.getValue().size(), name + ": index finds " + found.size() + " fragments "
+                    + entry.getKey() + " instead of " + entry.getValue().size() + ".");
+            for (int i = 0; i < found.size(); i++) {
+                check(found.get(i) == entry.getValue().get(i), name + ": index finds fragments " + entry.getKey() + " in a different order.");
+            }
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,147 @@
+package com.farald.DocumentSystem;
+
+import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.BillTreeAssertions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+//Order of article numbers and the article lookups of -a and -A: range articles ("Art. 115–129."), articles found
+//through the range covering their number, and range ends without an article resolved to their neighbours
+public class ArticleIndexTest {
+    public static void main(String[] args) throws IOException {
+        checkOrder();
+        checkParsing();
+        checkIndex();
+        checkDocument();
+        System.out.println("ArticleIndexTest: OK");
+    }
+
+    private static void checkOrder() {
+        String[] ordered = {"1", "5", "5a", "5i", "5ia", "5j", "6", "103", "103–104", "103a", "104", "1000"};
+        for (int i = 0; i + 1 < ordered.length; i++) {
+            ArticleNumber lower = ArticleNumber.parse(ordered[i]);
+            ArticleNumber higher = ArticleNumber.parse(ordered[i + 1]);
+            BillTreeAssertions.check(lower.compareTo(higher) < 0 && higher.compareTo(lower) > 0,
+                    "Art. " + ordered[i] + " isn't before Art. " + ordered[i + 1] + ".");
+            BillTreeAssertions.check(lower.compareTo(ArticleNumber.parse(ordered[i])) == 0, "Art. " + ordered[i] + " isn't equal to itself.");
+        }
+    }
+
+    private static void checkParsing() {
+        ArticleNumber range = ArticleNumber.fromIdentifier("Art. 103–104.");
+        BillTreeAssertions.check(range != null && range.isRange() && range.number == 103 && range.lastNumber == 104,
+                "Art. 103–104. isn't a range.");
+        BillTreeAssertions.check("Art. 103–104.".equals(range.toIdentifier()), "Range gives identifier " + range.toIdentifier());
+        BillTreeAssertions.check(range.includes(ArticleNumber.parse("103")) && range.includes(ArticleNumber.parse("104"))
+                        && range.includes(ArticleNumber.parse("103a")) && !range.includes(ArticleNumber.parse("105")),
+                "Range includes wrong articles.");
+        BillTreeAssertions.check(!ArticleNumber.parse("5").includes(ArticleNumber.parse("5")), "Single article includes an article.");
+        BillTreeAssertions.check("Art. 5ia.".equals(ArticleNumber.fromIdentifier("Art. 5ia.").toIdentifier()), "Art. 5ia. isn't parsed.");
+
+        String[] wrongNumbers = {"", "a", "5A", "5.", "–5", "5–", "104–103", "5a–6", "1234567890"};
+        for (String wrongNumber : wrongNumbers) {
+            BillTreeAssertions.check(ArticleNumber.parse(wrongNumber) == null, "\"" + wrongNumber + "\" is parsed as an article number.");
+        }
+        BillTreeAssertions.check(ArticleNumber.fromIdentifier("Art. 5") == null && ArticleNumber.fromIdentifier("Rozdział 5.") == null,
+                "Identifier which isn't an article is parsed.");
+    }
+
+    private static void checkIndex() {
+        ArticleIndex articleIndex = createIndex("1", "2", "5", "5a", "5i", "5ia", "5j", "6", "103–104", "105");
+        BillTreeAssertions.check(articleIndex.isOrdered(), "Ordered articles aren't ordered.");
+        assertArticle(articleIndex.findArticle("5ia"), "Art. 5ia.", "-a 5ia");
+        assertArticle(articleIndex.findArticle("103"), "Art. 103–104.", "-a 103");
+        assertArticle(articleIndex.findArticle("104"), "Art. 103–104.", "-a 104");
+        BillTreeAssertions.check(articleIndex.findArticle("3") == null && articleIndex.findArticle("5b") == null
+                && articleIndex.findArticle("x") == null, "Missing articles are found.");
+
+        assertArticles(articleIndex.findArticlesInRange("5", "6"), "-A 5,6", "5", "5a", "5i", "5ia", "5j", "6");
+        assertArticles(articleIndex.findArticlesInRange("3", "5a"), "-A 3,5a", "5", "5a");
+        assertArticles(articleIndex.findArticlesInRange("5b", "5j"), "-A 5b,5j", "5i", "5ia", "5j");
+        assertArticles(articleIndex.findArticlesInRange("104", "200"), "-A 104,200", "103–104", "105");
+        assertArticles(articleIndex.findArticlesInRange("0", "1"), "-A 0,1", "1");
+        //Reversed neighbouring articles give no articles, reversed ranges with articles between them are wrong
+        assertArticles(articleIndex.findArticlesInRange("2", "1"), "-A 2,1");
+        assertArticles(articleIndex.findArticlesInRange("5a", "5"), "-A 5a,5");
+        assertWrongRange(articleIndex, "6", "5");
+        assertWrongRange(articleIndex, "3", "4");
+        assertWrongRange(articleIndex, "106", "200");
+        assertWrongRange(articleIndex, "x", "5");
+
+        ArticleIndex unordered = createIndex("1", "3", "2");
+        BillTreeAssertions.check(!unordered.isOrdered(), "Unordered articles are ordered.");
+        try {
+            unordered.findArticle("1");
+            throw new AssertionError("Unordered articles are searched.");
+        } catch (IllegalStateException e) {
+            //Document system falls back to going through the tree
+        }
+    }
+
+    //Lookups of the CLI options on uokik.txt, which has a range article Art. 115–129.
+    private static void checkDocument() throws IOException {
+        PolishDocumentSystem documentSystem = PolishDocumentSystem.create(AbstractDocumentSystem.readDocumentBuffer("uokik.txt"),
+                new DocumentSystemOptions());
+        BillTreeAssertions.check(documentSystem.getArticleIndex().isOrdered(), "uokik.txt: articles aren't ordered.");
+        assertArticle(documentSystem.getArticle("6a"), "Art. 6a.", "uokik.txt, -a 6a");
+        assertArticle(documentSystem.getArticle("115"), "Art. 115–129.", "uokik.txt, -a 115");
+        assertArticle(documentSystem.getArticle("120"), "Art. 115–129.", "uokik.txt, -a 120");
+        assertArticle(documentSystem.getArticle("129"), "Art. 115–129.", "uokik.txt, -a 129");
+        try {
+            documentSystem.getArticle("139");
+            throw new AssertionError("uokik.txt, -a 139: missing article is found.");
+        } catch (IllegalArgumentException e) {
+            //"No such article."
+        }
+
+        List<BillFragment> articles = documentSystem.getArticlesInRange("2", "300");
+        BillTreeAssertions.check(articles.size() == 175 && "Art. 2.".equals(articles.get(0).getIdentifier())
+                        && "Art. 138.".equals(articles.get(articles.size() - 1).getIdentifier()),
+                "uokik.txt, -A 2,300: " + articles.size() + " articles.");
+        assertArticles(documentSystem.getArticlesInRange("114", "116"), "uokik.txt, -A 114,116", "114", "115–129");
+        assertArticles(documentSystem.getArticlesInRange("6b", "7"), "uokik.txt, -A 6b,7", "7");
+        assertArticles(documentSystem.getArticlesInRange("2", "1"), "uokik.txt, -A 2,1");
+        try {
+            documentSystem.getArticlesInRange("139", "140");
+            throw new AssertionError("uokik.txt, -A 139,140: range after the last article is found.");
+        } catch (IllegalArgumentException e) {
+            //"Given range is not valid."
+        }
+    }
+
+    private static ArticleIndex createIndex(String... numbers) {
+        List<BillFragment> articles = new ArrayList<>();
+        for (String number : numbers) {
+            articles.add(new BillFragment("Art. " + number + ".", "Treść."));
+        }
+        return new ArticleIndex(articles);
+    }
+
+    private static void assertArticle(BillFragment article, String identifier, String name) {
+        BillTreeAssertions.check(article != null && identifier.equals(article.getIdentifier()),
+                name + " gives " + (article == null ? null : article.getIdentifier()) + " instead of " + identifier);
+    }
+
+    private static void assertArticles(List<BillFragment> articles, String name, String... numbers) {
+        List<String> identifiers = new ArrayList<>();
+        for (BillFragment article : articles) {
+            identifiers.add(article.getIdentifier());
+        }
+        List<String> expected = new ArrayList<>();
+        for (String number : numbers) {
+            expected.add("Art. " + number + ".");
+        }
+        BillTreeAssertions.check(identifiers.equals(expected), name + " gives " + identifiers + " instead of " + expected);
+    }
+
+    private static void assertWrongRange(ArticleIndex articleIndex, String rangeStart, String rangeEnd) {
+        try {
+            articleIndex.findArticlesInRange(rangeStart, rangeEnd);
+            throw new AssertionError("-A " + rangeStart + "," + rangeEnd + " gives articles.");
+        } catch (IllegalArgumentException e) {
+            //"Given range is not valid."
+        }
+    }
+}
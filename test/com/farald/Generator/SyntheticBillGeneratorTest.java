@@ -0,0 +1,73 @@
+package com.farald.Generator;
+
+import com.farald.DocumentRepresentation.BillFragment;
+import com.farald.DocumentRepresentation.BillTreeAssertions;
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentRepresentation.DocumentType;
+import com.farald.DocumentSystem.DocumentSystemOptions;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//Generated bills have to be parsed as bills, and every generated article, with its paragraphs, has to be found by number
+public class SyntheticBillGeneratorTest {
+    private static final Pattern ARTICLE_LINE = Pattern.compile("^Art\\. (\\d+[a-z]*)\\. (.*)$");
+
+    public static void main(String[] args) {
+        for (int depth = 0; depth <= 3; depth++) {
+            checkBill(createOptions(3000, depth, 3, depth), "depth " + depth);
+        }
+        //More than 999 articles, so numbers get letter suffixes
+        checkBill(createOptions(40000, 0, 1, 7), "article suffixes");
+        System.out.println("SyntheticBillGeneratorTest: OK");
+    }
+
+    private static SyntheticBillOptions createOptions(int targetLines, int depth, int fanOut, long seed) {
+        SyntheticBillOptions options = new SyntheticBillOptions();
+        options.setTargetLines(targetLines);
+        options.setDepth(depth);
+        options.setFanOut(fanOut);
+        options.setSeed(seed);
+        return options;
+    }
+
+    private static void checkBill(SyntheticBillOptions options, String name) {
+        List<String> lines = new SyntheticBillGenerator(options).generateLines();
+        BillTreeAssertions.check(lines.size() >= options.getTargetLines(), name + ": bill has " + lines.size() + " lines.");
+        BillTreeAssertions.check(lines.equals(new SyntheticBillGenerator(options).generateLines()),
+                name + ": the same options give a different bill.");
+
+        PolishDocumentSystem documentSystem = PolishDocumentSystem.create(DocumentBuffer.fromLines(lines), new DocumentSystemOptions());
+        BillTreeAssertions.check(documentSystem.getDocumentType() == DocumentType.Bill, name + ": bill is parsed as " + documentSystem.getDocumentType() + ".");
+        BillTreeAssertions.assertParentLinks(documentSystem.getBillDocument().getBillFragment(), name);
+        BillTreeAssertions.assertFragmentIndex(documentSystem.getBillDocument(), name);
+        BillTreeAssertions.check(documentSystem.getArticleIndex().isOrdered(), name + ": articles are out of order.");
+
+        List<String> articleNumbers = new ArrayList<>();
+        for (String line : lines) {
+            Matcher matcher = ARTICLE_LINE.matcher(line);
+            if (!matcher.matches()) {
+                continue;
+            }
+            String articleNumber = matcher.group(1);
+            articleNumbers.add(articleNumber);
+            BillFragment article = documentSystem.getArticle(articleNumber);
+            BillTreeAssertions.check(("Art. " + articleNumber + ".").equals(article.getIdentifier()),
+                    name + ": Art. " + articleNumber + " gives " + article.getIdentifier());
+            boolean repealed = matcher.group(2).equals("(uchylony)");
+            if (options.getDepth() > 0 && !repealed) {
+                String paragraphNumber = Integer.toString(options.getFanOut());
+                BillFragment paragraph = documentSystem.getParagraph(articleNumber, paragraphNumber);
+                BillTreeAssertions.check(paragraph.getParent() == article && (paragraphNumber + ".").equals(paragraph.getIdentifier()),
+                        name + ": paragraph " + paragraphNumber + " of Art. " + articleNumber + " isn't found.");
+            }
+        }
+        BillTreeAssertions.check(!articleNumbers.isEmpty(), name + ": bill has no articles.");
+        List<BillFragment> articles = documentSystem.getArticlesInRange(articleNumbers.get(0), articleNumbers.get(articleNumbers.size() - 1));
+        BillTreeAssertions.check(articles.size() == articleNumbers.size(), name + ": range of all articles has "
+                + articles.size() + " articles instead of " + articleNumbers.size() + ".");
+    }
+}
@@ -0,0 +1,36 @@
+package com.farald.Parser;
+
+import com.farald.DocumentRepresentation.BillDocument;
+import com.farald.DocumentRepresentation.BillTreeAssertions;
+import com.farald.DocumentSystem.AbstractDocumentSystem;
+import com.farald.DocumentSystem.DocumentSystemOptions;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+import com.farald.DocumentRepresentation.DocumentBuffer;
+
+import java.io.IOException;
+
+//Every parser engine, and parallel parsing, has to give the tree of the sequential recursive parser
+//for both bundled documents
+public class ParserEngineTest {
+    private static final String[] DOCUMENTS = {"konstytucja.txt", "uokik.txt"};
+
+    public static void main(String[] args) throws IOException {
+        for (String filepath : DOCUMENTS) {
+            DocumentBuffer documentBuffer = AbstractDocumentSystem.readDocumentBuffer(filepath);
+            BillDocument expected = parse(documentBuffer, ParserEngineType.Recursive, false);
+            BillTreeAssertions.assertParentLinks(expected.getBillFragment(), filepath);
+            for (ParserEngineType engineType : ParserEngineType.values()) {
+                BillTreeAssertions.assertSameDocument(expected, parse(documentBuffer, engineType, false), filepath + ", " + engineType);
+                BillTreeAssertions.assertSameDocument(expected, parse(documentBuffer, engineType, true), filepath + ", " + engineType + ", parallel");
+            }
+        }
+        System.out.println("ParserEngineTest: OK");
+    }
+
+    private static BillDocument parse(DocumentBuffer documentBuffer, ParserEngineType engineType, boolean parallelParsing) {
+        DocumentSystemOptions options = new DocumentSystemOptions();
+        options.setParserEngineType(engineType);
+        options.setParallelParsing(parallelParsing);
+        return PolishDocumentSystem.create(documentBuffer, options).getBillDocument();
+    }
+}
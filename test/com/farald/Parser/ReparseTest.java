@@ -0,0 +1,162 @@
+package com.farald.Parser;
+
+import com.farald.DocumentRepresentation.BillDocument;
+import com.farald.DocumentRepresentation.BillTreeAssertions;
+import com.farald.DocumentRepresentation.DocumentBuffer;
+import com.farald.DocumentSystem.AbstractDocumentSystem;
+import com.farald.DocumentSystem.DocumentSystemOptions;
+import com.farald.DocumentSystem.PolishDocumentSystem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+//Updating a parsed document has to give the document of a full parse of the new text: the same tree, parent links
+//and fragment index. Checked for every engine, sequential and parallel, with edits of both bundled documents
+//and with a series of random edits applied one after another.
+public class ReparseTest {
+    private static final String[] DOCUMENTS = {"konstytucja.txt", "uokik.txt"};
+    private static final String[] INSERTED_LINES = {"Art. 77. Nowy.", "1. Ustęp nowy", "2) punkt", "a) litera", "Rozdział 9",
+            "tekst dodany w nowym brzmieniu,", "", "przeno-", "dalej"};
+    private static final int RANDOM_EDITS = 15;
+
+    public static void main(String[] args) throws IOException {
+        for (String filepath : DOCUMENTS) {
+            List<String> lines = AbstractDocumentSystem.readDocumentBuffer(filepath).getLines();
+            Map<String, List<String>> edits = createEdits(lines);
+            for (ParserEngineType engineType : ParserEngineType.values()) {
+                for (boolean parallelParsing : new boolean[]{false, true}) {
+                    DocumentSystemOptions options = createOptions(engineType, parallelParsing);
+                    String name = filepath + ", " + engineType + (parallelParsing ? ", parallel" : "");
+                    checkEdits(lines, edits, options, name);
+                    checkRandomEdits(lines, options, new Random(filepath.hashCode()), name);
+                }
+            }
+        }
+        System.out.println("ReparseTest: OK");
+    }
+
+    private static DocumentSystemOptions createOptions(ParserEngineType engineType, boolean parallelParsing) {
+        DocumentSystemOptions options = new DocumentSystemOptions();
+        options.setParserEngineType(engineType);
+        options.setParallelParsing(parallelParsing);
+        return options;
+    }
+
+    //Every edit is applied to the original document and then reverted
+    private static void checkEdits(List<String> lines, Map<String, List<String>> edits, DocumentSystemOptions options, String name) {
+        DocumentBuffer original = DocumentBuffer.fromLines(lines);
+        BillDocument originalDocument = PolishDocumentSystem.create(original, options).getBillDocument();
+        for (Map.Entry<String, List<String>> edit : edits.entrySet()) {
+            String editName = name + ", " + edit.getKey();
+            DocumentBuffer edited = DocumentBuffer.fromLines(edit.getValue());
+            PolishDocumentSystem documentSystem = PolishDocumentSystem.create(original, options);
+            ReparseReport report = documentSystem.updateDocument(edited);
+            BillTreeAssertions.check(!report.fullParse, editName + ": update parsed the whole document.");
+            BillDocument editedDocument = PolishDocumentSystem.create(edited, options).getBillDocument();
+            BillTreeAssertions.assertSameDocument(editedDocument, documentSystem.getBillDocument(), editName);
+
+            documentSystem.updateDocument(original);
+            BillTreeAssertions.assertSameDocument(originalDocument, documentSystem.getBillDocument(), editName + ", back");
+        }
+    }
+
+    //Edits which a full parse can't parse are skipped, the document keeps its last parsed edition
+    private static void checkRandomEdits(List<String> lines, DocumentSystemOptions options, Random random, String name) {
+        List<String> current = new ArrayList<>(lines);
+        PolishDocumentSystem documentSystem = PolishDocumentSystem.create(DocumentBuffer.fromLines(current), options);
+        for (int step = 0; step < RANDOM_EDITS; step++) {
+            List<String> edited = editRandomly(current, random);
+            DocumentBuffer editedBuffer = DocumentBuffer.fromLines(edited);
+            BillDocument editedDocument;
+            try {
+                editedDocument = PolishDocumentSystem.create(editedBuffer, options).getBillDocument();
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                continue;
+            }
+            documentSystem.updateDocument(editedBuffer);
+            BillTreeAssertions.assertSameDocument(editedDocument, documentSystem.getBillDocument(), name + ", random edit " + step);
+            current = edited;
+        }
+    }
+
+    private static List<String> editRandomly(List<String> lines, Random random) {
+        List<String> edited = new ArrayList<>(lines);
+        //Mostly a few lines, sometimes many changes spread over the document
+        int changeCount = 1 + random.nextInt(random.nextInt(10) < 8 ? 3 : 40);
+        for (int change = 0; change < changeCount; change++) {
+            //Header of the act stays, so the document type doesn't change
+            int line = 5 + random.nextInt(edited.size() - 5);
+            switch (random.nextInt(5)) {
+                case 0:
+                    edited.add(line, INSERTED_LINES[random.nextInt(INSERTED_LINES.length)]);
+                    break;
+                case 1:
+                    edited.remove(line);
+                    break;
+                case 2:
+                    edited.set(line, edited.get(line) + " oraz inne");
+                    break;
+                case 3:
+                    String text = edited.get(line);
+                    edited.set(line, text.length() > 3 ? text.substring(2) : text);
+                    break;
+                default:
+                    Collections.swap(edited, line, 5 + random.nextInt(edited.size() - 5));
+            }
+        }
+        return edited;
+    }
+
+    //Edits of the document text near its middle
+    private static Map<String, List<String>> createEdits(List<String> lines) {
+        int articleLine = findLine(lines, lines.size() / 2, "Art. ");
+        int textLine = articleLine + 1;
+        int chapterLine = findLine(lines, lines.size() / 3, "Rozdział");
+        Map<String, List<String>> edits = new LinkedHashMap<>();
+
+        edits.put("no change", new ArrayList<>(lines));
+        List<String> edit = new ArrayList<>(lines);
+        edit.set(textLine, edit.get(textLine) + " oraz inne");
+        edits.put("words added to an article", edit);
+        edit = new ArrayList<>(lines);
+        edit.add(textLine, "przepis dodany w nowym brzmieniu,");
+        edits.put("line inserted into an article", edit);
+        edit = new ArrayList<>(lines);
+        edit.remove(textLine);
+        edits.put("line deleted from an article", edit);
+        edit = new ArrayList<>(lines);
+        edit.add(articleLine, "Art. 999a. Nowy artykuł.");
+        edits.put("article inserted", edit);
+        edit = new ArrayList<>(lines);
+        edit.set(articleLine, edit.get(articleLine).replaceFirst("Art\\. ", "Artykuł "));
+        edits.put("article merged with the previous one", edit);
+        if (chapterLine >= 0) {
+            edit = new ArrayList<>(lines);
+            edit.set(chapterLine + 1, edit.get(chapterLine + 1) + " i inne");
+            edits.put("chapter title changed", edit);
+        }
+        edit = new ArrayList<>(lines);
+        edit.set(lines.size() - 1, edit.get(lines.size() - 1) + " oraz inne");
+        edits.put("last line changed", edit);
+        edit = new ArrayList<>(lines);
+        for (int line = articleLine % 100; line < edit.size(); line += 100) {
+            edit.set(line, edit.get(line) + " ");
+        }
+        edits.put("every 100th line changed", edit);
+        return edits;
+    }
+
+    private static int findLine(List<String> lines, int from, String prefix) {
+        for (int line = from; line < lines.size() - 1; line++) {
+            if (lines.get(line).startsWith(prefix)) {
+                return line;
+            }
+        }
+        return -1;
+    }
+}